@@ -19,6 +19,7 @@ package socs.network;
 
 import java.util.Timer;
 import java.util.TimerTask;
+import socs.network.node.AgingTask;
 import socs.network.node.HeartbeatTask;
 import socs.network.node.Router;
 import socs.network.utils.RouterConfiguration;
@@ -42,6 +43,10 @@ public class Main {
     TimerTask heartbeatTask = new HeartbeatTask(r);
     Timer timer = new Timer();
     timer.schedule(heartbeatTask, 0, Router.HEARTBEAT_WAIT_TIME);
+    // and for periodic aging of our LSD (apart, so that slow heartbeats never hold it back)
+    TimerTask agingTask = new AgingTask(r);
+    Timer agingTimer = new Timer();
+    agingTimer.schedule(agingTask, Router.LSA_AGING_PERIOD, Router.LSA_AGING_PERIOD);
     // then display the router's console for user input
     r.terminal();
   }
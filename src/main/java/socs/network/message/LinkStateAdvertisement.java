@@ -17,6 +17,9 @@
  */
 package socs.network.message;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.LinkedList;
 import socs.network.utils.CommonUtils;
@@ -36,6 +39,12 @@ public class LinkStateAdvertisement implements Serializable {
    */
   public static final int MIN_SEQ_NUMBER = 0;
 
+  /**
+   * Short constant of the age (in seconds) at which a Link State Advertisement expires, and is
+   * purged from every database (as per OSPF's MaxAge).
+   */
+  public static final short MAX_AGE = 3600;
+
   /**
    * Simulated IP address of the router originating this LinkStateAdvertisement.
    */
@@ -51,6 +60,17 @@ public class LinkStateAdvertisement implements Serializable {
    */
   public boolean hasShutdown = false;
 
+  /**
+   * Age (in seconds) of this LSA as of its receipt (or origination) by this router, which grows
+   * from then on (written out by our codec as its current age).
+   */
+  public transient short lsaAge = 0;
+
+  /**
+   * Timestamp (in milliseconds) of the receipt (or origination) of this LSA by this router.
+   */
+  private transient long receiptTimeMillis = System.currentTimeMillis();
+
   /**
    * List of Link Descriptions per link associated to this LSA.
    */
@@ -84,13 +104,53 @@ public class LinkStateAdvertisement implements Serializable {
 
   }
 
+  /**
+   * Getter of the current age (in seconds) of this LSA, capped at MAX_AGE.
+   */
+  public short getCurrentAge() {
+    long ageSeconds = lsaAge + (System.currentTimeMillis() - receiptTimeMillis) / 1000;
+    return (short) Math.min(MAX_AGE, ageSeconds);
+  }
+
+  /**
+   * Boolean helper method to check if this LSA has expired (ie. reached MAX_AGE).
+   */
+  public boolean isMaxAge() {
+    return getCurrentAge() >= MAX_AGE;
+  }
+
+  /**
+   * Getter of the time (in seconds) since the receipt (or origination) of this LSA by this router.
+   */
+  public long getSecondsSinceReceipt() {
+    return (System.currentTimeMillis() - receiptTimeMillis) / 1000;
+  }
+
+  /**
+   * Serialize this LSA, writing out its current age (rather than its age at receipt).
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeShort(getCurrentAge());
+  }
+
+  /**
+   * Deserialize this LSA, which is received (and starts aging from its written age) right now.
+   */
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    lsaAge = in.readShort();
+    receiptTimeMillis = System.currentTimeMillis();
+  }
+
   /**
    * Convey string representation of Link State Advertisement instance.
    */
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
-    sb.append(linkStateId).append(":").append(lsaSeqNumber).append("\n");
+    sb.append(linkStateId).append(":").append(lsaSeqNumber).append(" (age ")
+        .append(getCurrentAge()).append(")\n");
     for (LinkDescription ld : links) {
       sb.append(ld);
     }
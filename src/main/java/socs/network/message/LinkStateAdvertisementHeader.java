@@ -0,0 +1,101 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.message;
+
+import java.io.Serializable;
+import socs.network.utils.CommonUtils;
+
+/**
+ * Summary of a Link State Advertisement (ie. everything but its links), exchanged by neighbors
+ * describing their databases to one another when forming an adjacency.
+ */
+public class LinkStateAdvertisementHeader implements Serializable {
+
+  /**
+   * Long constant of the version of this class's serialized form (sent over the wire in DBDs).
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Simulated IP address of the router originating the summarized LSA.
+   */
+  public final String linkStateId;
+
+  /**
+   * Sequence number of the summarized LSA.
+   */
+  public final int lsaSeqNumber;
+
+  /**
+   * Shutdown flag of the summarized LSA.
+   */
+  public final boolean hasShutdown;
+
+  /**
+   * Age (in seconds) of the summarized LSA.
+   */
+  public final short lsaAge;
+
+  /**
+   * Constructor to instantiate a LinkStateAdvertisementHeader with required input parameters.
+   */
+  public LinkStateAdvertisementHeader(String linkStateId, int lsaSeqNumber, boolean hasShutdown,
+      short lsaAge) {
+    if (CommonUtils.isNullOrEmptyString(linkStateId)) {
+      throw new IllegalArgumentException(
+          "Cannot instantiate LinkStateAdvertisementHeader with a null or empty link state id."
+      );
+    }
+    this.linkStateId = linkStateId;
+    this.lsaSeqNumber = lsaSeqNumber;
+    this.hasShutdown = hasShutdown;
+    this.lsaAge = lsaAge;
+  }
+
+  /**
+   * Constructor to instantiate the LinkStateAdvertisementHeader summarizing the input LSA.
+   */
+  public LinkStateAdvertisementHeader(LinkStateAdvertisement lsa) {
+    this(lsa.linkStateId, lsa.lsaSeqNumber, lsa.hasShutdown, lsa.getCurrentAge());
+  }
+
+  /**
+   * Boolean helper method to check if the summarized LSA has expired (ie. reached MAX_AGE).
+   */
+  public boolean isMaxAge() {
+    return lsaAge >= LinkStateAdvertisement.MAX_AGE;
+  }
+
+  /**
+   * Check whether the input LSA (of the same router) should replace the one summarized here (an
+   * expired copy of the same instance replacing it, so that purges spread).
+   */
+  public boolean isSupersededBy(LinkStateAdvertisement lsa) {
+    return lsaSeqNumber < lsa.lsaSeqNumber || (hasShutdown && !lsa.hasShutdown)
+        || (lsaSeqNumber == lsa.lsaSeqNumber && !isMaxAge() && lsa.isMaxAge());
+  }
+
+  /**
+   * Convey string representation of Link State Advertisement Header instance.
+   */
+  @Override
+  public String toString() {
+    return linkStateId + ":" + lsaSeqNumber + (hasShutdown ? "(shutdown)" : "")
+        + (isMaxAge() ? "(maxage)" : "");
+  }
+}
@@ -56,6 +56,38 @@ public class SospfPacket implements Serializable {
    */
   public static final short SOSPF_HEARTBEAT = 4;
 
+  /**
+   * Int constant to flag that SospfPacket is responding that the router is too busy to handle a
+   * request (which the client may retry later).
+   */
+  public static final short SOSPF_BUSY = 5;
+
+  /**
+   * Int constant to flag that SospfPacket is a DATABASE DESCRIPTION (ie. summary of an LSD).
+   */
+  public static final short SOSPF_DBD = 6;
+
+  /**
+   * Int constant to flag that SospfPacket is a DIGEST request (ie. of the nodes of the Merkle tree
+   * summarizing an LSD).
+   */
+  public static final short SOSPF_DIGEST = 7;
+
+  /**
+   * Byte constant of an empty capabilities bitmask.
+   */
+  public static final byte NO_CAPABILITIES = 0;
+
+  /**
+   * Byte constant of the capability bit to receive deflated payloads.
+   */
+  public static final byte DEFLATE_CAPABILITY = 1;
+
+  /**
+   * Int constant flagging that the source router advertises no compression dictionary.
+   */
+  public static final int NO_COMPRESSION_DICTIONARY = 0;
+
   /**
    * Int constant to flag that the SospfPacket weightOfTransmission is irrelevant.
    */
@@ -82,7 +114,7 @@ public class SospfPacket implements Serializable {
   public final String dstIp;
 
   /**
-   * SospfType identifies type of message: 0 = HELLO 1 = LSAUPDATE .
+   * SospfType identifies type of message: 0 = HELLO 1 = LSAUPDATE ... 5 = BUSY 6 = DBD 7 = DIGEST .
    */
   public final short sospfType;
 
@@ -104,17 +136,80 @@ public class SospfPacket implements Serializable {
    */
   public final Vector<LinkStateAdvertisement> lsaArray;
 
+  /**
+   * Array of Link State Advertisement Headers summarizing the sender's LSD during DBD.
+   */
+  public final Vector<LinkStateAdvertisementHeader> lsaHeaderArray;
+
   /**
    * Stored weight of the cost to transmit a packet between the source and destination router.
    */
   public final short weightOfTransmission;
 
+  /**
+   * Bitmask of the optional features supported by the source router (advertised during HELLO).
+   */
+  public final byte capabilities;
+
+  /**
+   * Id (ie. Adler-32 checksum) of the preset dictionary against which the source router deflates
+   * payloads (advertised during HELLO alongside its capabilities).
+   */
+  public final int compressionDictionaryId;
+
+  /**
+   * Array of the indices of the nodes (of the Merkle tree summarizing the sender's LSD) whose
+   * digests are carried in parallel by digests (during HEARTBEAT & DIGEST).
+   */
+  public final int[] digestNodes;
+
+  /**
+   * Array of the digests of the nodes listed by digestNodes.
+   */
+  public final long[] digests;
+
   /**
    * Constructor to instantiate an SospfPacket with required input parameters.
    */
   public SospfPacket(String srcProcessIp, short srcProcessPort, String srcIp,
       String dstIp, short sospfType, String routerId, String neighborId,
       Vector<LinkStateAdvertisement> lsaArray, short weightOfTransmission) {
+    this(srcProcessIp, srcProcessPort, srcIp, dstIp, sospfType, routerId, neighborId, lsaArray,
+        null, weightOfTransmission);
+  }
+
+  /**
+   * Constructor to instantiate an SospfPacket which also carries Link State Advertisement Headers.
+   */
+  public SospfPacket(String srcProcessIp, short srcProcessPort, String srcIp,
+      String dstIp, short sospfType, String routerId, String neighborId,
+      Vector<LinkStateAdvertisement> lsaArray, Vector<LinkStateAdvertisementHeader> lsaHeaderArray,
+      short weightOfTransmission) {
+    this(srcProcessIp, srcProcessPort, srcIp, dstIp, sospfType, routerId, neighborId, lsaArray,
+        lsaHeaderArray, weightOfTransmission, NO_CAPABILITIES, NO_COMPRESSION_DICTIONARY);
+  }
+
+  /**
+   * Constructor to instantiate an SospfPacket advertising the capabilities (and compression
+   * dictionary) of the source router.
+   */
+  public SospfPacket(String srcProcessIp, short srcProcessPort, String srcIp,
+      String dstIp, short sospfType, String routerId, String neighborId,
+      Vector<LinkStateAdvertisement> lsaArray, Vector<LinkStateAdvertisementHeader> lsaHeaderArray,
+      short weightOfTransmission, byte capabilities, int compressionDictionaryId) {
+    this(srcProcessIp, srcProcessPort, srcIp, dstIp, sospfType, routerId, neighborId, lsaArray,
+        lsaHeaderArray, weightOfTransmission, capabilities, compressionDictionaryId, null, null);
+  }
+
+  /**
+   * Constructor to instantiate an SospfPacket with every input parameter (ie. also carrying digests
+   * of the source router's LSD).
+   */
+  public SospfPacket(String srcProcessIp, short srcProcessPort, String srcIp,
+      String dstIp, short sospfType, String routerId, String neighborId,
+      Vector<LinkStateAdvertisement> lsaArray, Vector<LinkStateAdvertisementHeader> lsaHeaderArray,
+      short weightOfTransmission, byte capabilities, int compressionDictionaryId,
+      int[] digestNodes, long[] digests) {
     if (CommonUtils.isNullOrEmptyString(srcProcessIp)) {
       throw new IllegalArgumentException(
           "Cannot instantiate SOSPF Packet with null or empty process IP address."
@@ -143,11 +238,18 @@ public class SospfPacket implements Serializable {
     if (sospfType != SOSPF_NO_PORTS_AVAILABLE
         && sospfType != SOSPF_HELLO && sospfType != SOSPF_LSAUPDATE
         && sospfType != SOSPF_CONNECT && sospfType != SOSPF_DISCONNECT
-        && sospfType != SOSPF_HEARTBEAT) {
+        && sospfType != SOSPF_HEARTBEAT && sospfType != SOSPF_BUSY
+        && sospfType != SOSPF_DBD && sospfType != SOSPF_DIGEST) {
       throw new IllegalArgumentException(
           "Tried to instantiate SOSPF Packet with invalid SOSPF Type = '" + sospfType + "'."
       );
     }
+    if ((digestNodes == null) != (digests == null)
+        || (digestNodes != null && digestNodes.length != digests.length)) {
+      throw new IllegalArgumentException(
+          "Cannot instantiate SOSPF Packet with mismatched digest nodes & digests."
+      );
+    }
     this.srcProcessIp = srcProcessIp;
     this.srcProcessPort = srcProcessPort;
     this.srcIp = srcIp;
@@ -156,7 +258,12 @@ public class SospfPacket implements Serializable {
     this.routerId = routerId;
     this.neighborId = neighborId;
     this.lsaArray = lsaArray;
+    this.lsaHeaderArray = lsaHeaderArray;
     this.weightOfTransmission = weightOfTransmission;
+    this.capabilities = capabilities;
+    this.compressionDictionaryId = compressionDictionaryId;
+    this.digestNodes = digestNodes;
+    this.digests = digests;
   }
 
 }
@@ -0,0 +1,325 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.message;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Vector;
+
+/**
+ * Static utilities class to (de)serialize SospfPackets in a compact, versioned binary format.
+ *
+ * <p> Layout of an encoded packet (all numbers big-endian). Since the same few router IPs recur
+ * throughout an LSAUPDATE, each STR field is interned: its first occurrence is written as a -1
+ * short followed by the string (as per DataOutput.writeUTF) while later occurrences are written
+ * as the short index of that first occurrence. </p>
+ *
+ * <pre>
+ *   byte    codec version
+ *   short   sospfType
+ *   STR     srcProcessIp
+ *   short   srcProcessPort
+ *   STR     srcIp, dstIp, routerId, neighborId
+ *   short   weightOfTransmission
+ *   byte    capabilities
+ *   int     compressionDictionaryId
+ *   int     number of LSAs (or -1 for a null lsaArray), followed by each LSA:
+ *     STR     linkStateId
+ *     int     lsaSeqNumber
+ *     boolean hasShutdown
+ *     short   lsaAge (as of encoding)
+ *     short   number of links, followed by each link:
+ *       STR     linkId
+ *       int     processPortNum
+ *       short   tosMetrics
+ *   int     number of LSA headers (or -1 for a null lsaHeaderArray), followed by each header:
+ *     STR     linkStateId
+ *     int     lsaSeqNumber
+ *     boolean hasShutdown
+ *     short   lsaAge
+ *   int     number of digests (or -1 for null digestNodes & digests), followed by each digest:
+ *     short   node
+ *     long    digest
+ * </pre>
+ *
+ * <p> ** any field added to the message classes must also be added here (bumping the version,
+ * and decoding the older one with default values, so that mixed routers still interoperate) **
+ * </p>
+ */
+public final class SospfPacketCodec {
+
+  /**
+   * Byte constant of the version of the binary format written by this codec (the layout above is
+   * the first to have shipped, so any router decoding it runs this very layout).
+   */
+  public static final byte CODEC_VERSION = 1;
+
+  /**
+   * Int constant flagging a null lsaArray in place of its length.
+   */
+  private static final int NULL_LSA_ARRAY_FLAG = -1;
+
+  /**
+   * Int constant flagging a null lsaHeaderArray in place of its length.
+   */
+  private static final int NULL_LSA_HEADER_ARRAY_FLAG = -1;
+
+  /**
+   * Int constant flagging null digestNodes & digests in place of their length.
+   */
+  private static final int NULL_DIGESTS_FLAG = -1;
+
+  /**
+   * Short constant flagging the first occurrence of a string (written out in full).
+   */
+  private static final short NEW_STRING_FLAG = -1;
+
+  /**
+   * Private constructor to restrict class instantiation.
+   */
+  private SospfPacketCodec() {
+  }
+
+  /**
+   * Static method to write the binary encoding of a SospfPacket to the given stream.
+   */
+  public static void encode(SospfPacket packet, DataOutputStream out) throws IOException {
+    if (packet == null) {
+      throw new IllegalArgumentException("Trying to encode null packet!");
+    }
+    HashMap<String, Short> stringIndices = new HashMap<>();
+    out.writeByte(CODEC_VERSION);
+    out.writeShort(packet.sospfType);
+    encodeString(packet.srcProcessIp, stringIndices, out);
+    out.writeShort(packet.srcProcessPort);
+    encodeString(packet.srcIp, stringIndices, out);
+    encodeString(packet.dstIp, stringIndices, out);
+    encodeString(packet.routerId, stringIndices, out);
+    encodeString(packet.neighborId, stringIndices, out);
+    out.writeShort(packet.weightOfTransmission);
+    out.writeByte(packet.capabilities);
+    out.writeInt(packet.compressionDictionaryId);
+    if (packet.lsaArray == null) {
+      out.writeInt(NULL_LSA_ARRAY_FLAG);
+    } else {
+      out.writeInt(packet.lsaArray.size());
+      for (LinkStateAdvertisement lsa : packet.lsaArray) {
+        encodeLinkStateAdvertisement(lsa, stringIndices, out);
+      }
+    }
+    if (packet.lsaHeaderArray == null) {
+      out.writeInt(NULL_LSA_HEADER_ARRAY_FLAG);
+    } else {
+      out.writeInt(packet.lsaHeaderArray.size());
+      for (LinkStateAdvertisementHeader lsaHeader : packet.lsaHeaderArray) {
+        encodeString(lsaHeader.linkStateId, stringIndices, out);
+        out.writeInt(lsaHeader.lsaSeqNumber);
+        out.writeBoolean(lsaHeader.hasShutdown);
+        out.writeShort(lsaHeader.lsaAge);
+      }
+    }
+    if (packet.digestNodes == null) {
+      out.writeInt(NULL_DIGESTS_FLAG);
+    } else {
+      out.writeInt(packet.digestNodes.length);
+      for (int digestIndex = 0; digestIndex < packet.digestNodes.length; digestIndex++) {
+        if (packet.digestNodes[digestIndex] < 0
+            || packet.digestNodes[digestIndex] > Short.MAX_VALUE) {
+          throw new IllegalArgumentException(
+              "Trying to encode digest of invalid (node = " + packet.digestNodes[digestIndex]
+                  + " ).");
+        }
+        out.writeShort(packet.digestNodes[digestIndex]);
+        out.writeLong(packet.digests[digestIndex]);
+      }
+    }
+  }
+
+  /**
+   * Static method to read a SospfPacket from its binary encoding in the given stream.
+   */
+  public static SospfPacket decode(DataInputStream in) throws IOException {
+    byte codecVersion = in.readByte();
+    if (codecVersion != CODEC_VERSION) {
+      throw new StreamCorruptedException(
+          "Received packet with unsupported (codec version = " + codecVersion + " ).");
+    }
+    ArrayList<String> strings = new ArrayList<>();
+    short sospfType = in.readShort();
+    String srcProcessIp = decodeString(strings, in);
+    short srcProcessPort = in.readShort();
+    String srcIp = decodeString(strings, in);
+    String dstIp = decodeString(strings, in);
+    String routerId = decodeString(strings, in);
+    String neighborId = decodeString(strings, in);
+    short weightOfTransmission = in.readShort();
+    byte capabilities = in.readByte();
+    int compressionDictionaryId = in.readInt();
+    Vector<LinkStateAdvertisement> lsaArray = null;
+    int numLsas = in.readInt();
+    if (numLsas != NULL_LSA_ARRAY_FLAG) {
+      if (numLsas < 0) {
+        throw new StreamCorruptedException(
+            "Received packet with invalid (number of LSAs = " + numLsas + " ).");
+      }
+      // not presized: the count is only trusted as far as the bytes which follow back it up
+      lsaArray = new Vector<>();
+      for (int lsaIndex = 0; lsaIndex < numLsas; lsaIndex++) {
+        lsaArray.add(decodeLinkStateAdvertisement(strings, in));
+      }
+    }
+    Vector<LinkStateAdvertisementHeader> lsaHeaderArray = null;
+    int numLsaHeaders = in.readInt();
+    if (numLsaHeaders != NULL_LSA_HEADER_ARRAY_FLAG) {
+      if (numLsaHeaders < 0) {
+        throw new StreamCorruptedException(
+            "Received packet with invalid (number of LSA headers = " + numLsaHeaders + " ).");
+      }
+      lsaHeaderArray = new Vector<>();
+      for (int lsaHeaderIndex = 0; lsaHeaderIndex < numLsaHeaders; lsaHeaderIndex++) {
+        String linkStateId = decodeString(strings, in);
+        int lsaSeqNumber = in.readInt();
+        boolean hasShutdown = in.readBoolean();
+        short lsaAge = decodeAge(in);
+        lsaHeaderArray.add(
+            new LinkStateAdvertisementHeader(linkStateId, lsaSeqNumber, hasShutdown, lsaAge));
+      }
+    }
+    int[] digestNodes = null;
+    long[] digests = null;
+    int numDigests = in.readInt();
+    if (numDigests != NULL_DIGESTS_FLAG) {
+      if (numDigests < 0 || numDigests > Short.MAX_VALUE) {
+        throw new StreamCorruptedException(
+            "Received packet with invalid (number of digests = " + numDigests + " ).");
+      }
+      digestNodes = new int[numDigests];
+      digests = new long[numDigests];
+      for (int digestIndex = 0; digestIndex < numDigests; digestIndex++) {
+        digestNodes[digestIndex] = in.readShort();
+        digests[digestIndex] = in.readLong();
+      }
+    }
+    // the constructor performs the same validation as for a locally built packet
+    return new SospfPacket(srcProcessIp, srcProcessPort, srcIp, dstIp, sospfType,
+        routerId, neighborId, lsaArray, lsaHeaderArray, weightOfTransmission, capabilities,
+        compressionDictionaryId, digestNodes, digests);
+  }
+
+  /**
+   * Helper method to write the binary encoding of a single LSA.
+   */
+  private static void encodeLinkStateAdvertisement(LinkStateAdvertisement lsa,
+      HashMap<String, Short> stringIndices, DataOutputStream out) throws IOException {
+    encodeString(lsa.linkStateId, stringIndices, out);
+    out.writeInt(lsa.lsaSeqNumber);
+    out.writeBoolean(lsa.hasShutdown);
+    out.writeShort(lsa.getCurrentAge());
+    if (lsa.links.size() > Short.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "Trying to encode LSA with too many (links = " + lsa.links.size() + " ).");
+    }
+    out.writeShort(lsa.links.size());
+    for (LinkDescription ld : lsa.links) {
+      encodeString(ld.linkId, stringIndices, out);
+      out.writeInt(ld.processPortNum);
+      out.writeShort(ld.tosMetrics);
+    }
+  }
+
+  /**
+   * Helper method to read a single LSA from its binary encoding.
+   */
+  private static LinkStateAdvertisement decodeLinkStateAdvertisement(ArrayList<String> strings,
+      DataInputStream in) throws IOException {
+    String linkStateId = decodeString(strings, in);
+    int lsaSeqNumber = in.readInt();
+    boolean hasShutdown = in.readBoolean();
+    short lsaAge = decodeAge(in);
+    short numLinks = in.readShort();
+    if (numLinks < 0) {
+      throw new StreamCorruptedException(
+          "Received LSA with invalid (number of links = " + numLinks + " ).");
+    }
+    LinkedList<LinkDescription> links = new LinkedList<>();
+    for (int linkIndex = 0; linkIndex < numLinks; linkIndex++) {
+      String linkId = decodeString(strings, in);
+      int processPortNum = in.readInt();
+      short tosMetrics = in.readShort();
+      links.add(new LinkDescription(linkId, processPortNum, tosMetrics));
+    }
+    LinkStateAdvertisement lsa = new LinkStateAdvertisement(linkStateId, lsaSeqNumber, links);
+    lsa.hasShutdown = hasShutdown;
+    lsa.lsaAge = lsaAge;
+    return lsa;
+  }
+
+  /**
+   * Helper method to read the age of an LSA (or LSA header).
+   */
+  private static short decodeAge(DataInputStream in) throws IOException {
+    short lsaAge = in.readShort();
+    if (lsaAge < 0 || lsaAge > LinkStateAdvertisement.MAX_AGE) {
+      throw new StreamCorruptedException("Received LSA with invalid (age = " + lsaAge + " ).");
+    }
+    return lsaAge;
+  }
+
+  /**
+   * Helper method to write a string (or a back-reference to its first occurrence in the packet).
+   */
+  private static void encodeString(String string, HashMap<String, Short> stringIndices,
+      DataOutputStream out) throws IOException {
+    Short stringIndex = stringIndices.get(string);
+    if (stringIndex != null) {
+      out.writeShort(stringIndex);
+      return;
+    }
+    out.writeShort(NEW_STRING_FLAG);
+    out.writeUTF(string);
+    // only intern as many strings as our short indices can address
+    if (stringIndices.size() < Short.MAX_VALUE) {
+      stringIndices.put(string, (short) stringIndices.size());
+    }
+  }
+
+  /**
+   * Helper method to read a string (resolving back-references against those already read).
+   */
+  private static String decodeString(ArrayList<String> strings, DataInputStream in)
+      throws IOException {
+    short stringIndex = in.readShort();
+    if (stringIndex == NEW_STRING_FLAG) {
+      String string = in.readUTF();
+      if (strings.size() < Short.MAX_VALUE) {
+        strings.add(string);
+      }
+      return string;
+    }
+    if (stringIndex < 0 || stringIndex >= strings.size()) {
+      throw new StreamCorruptedException(
+          "Received packet with invalid (string index = " + stringIndex + " ).");
+    }
+    return strings.get(stringIndex);
+  }
+}
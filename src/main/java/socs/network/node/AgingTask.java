@@ -0,0 +1,77 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.TimerTask;
+import socs.network.message.LinkStateAdvertisement;
+
+/**
+ * Task to coordinate aging the LSA's of a given router's database: refreshing its own LSA before
+ * it expires, and purging those of other routers once they expire (ie. reach MaxAge), so that our
+ * database only tracks the routers still alive in our network.
+ */
+public class AgingTask extends TimerTask {
+
+  /**
+   * Router for which this aging task is responsible.
+   */
+  private final Router routerToNotify;
+
+  /**
+   * Constructor of AgingTask (requiring a router at which to attach).
+   */
+  public AgingTask(Router routerToNotify) {
+    this.routerToNotify = routerToNotify;
+  }
+
+  /**
+   * Scheduled task of our aging mechanism.
+   */
+  @Override
+  public void run() {
+    try {
+      initAgingCycle();
+    } catch (Exception e) {
+      String alertMessageOfFailedAgingCycle =
+          "\n\nError: Aging cycle failed unexpectedly. \n\n";
+      RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedAgingCycle);
+    }
+  }
+
+  /**
+   * Method to age each LSA of our database once.
+   */
+  private void initAgingCycle() throws Exception {
+    // first, purge the LSA's of other routers which expired
+    boolean agingCycleHasChangedLsdState = routerToNotify.ageLinkStateDatabase();
+
+    // then, refresh our own LSA (once we have advertised one) before it expires in turn
+    LinkStateAdvertisement lastLsa = routerToNotify.getLastLinkStateAdvertisement();
+    if (lastLsa != null
+        && lastLsa.lsaSeqNumber != LinkStateAdvertisement.NO_PREVIOUS_ADVERTISEMENTS_FLAG
+        && lastLsa.getCurrentAge() >= routerToNotify.getLsaRefreshInterval()) {
+      routerToNotify.writeLinkStateOfThisRouterToDatabase();
+      agingCycleHasChangedLsdState = true;
+    }
+
+    if (agingCycleHasChangedLsdState) {
+      // flood our refreshed LSA & purges to our live neighbors
+      routerToNotify.broadcastLsaUpdateToAllNeighbors();
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Distance & next-hop matrix between every pair of (live) routers of a graph snapshot, computed by
+ * one SPF per source router run in parallel on a fork/join pool.
+ *
+ * <p> Since the whole matrix holds V^2 entries, it is never held at once: rows are computed (and
+ * formatted) in parallel a batch of sources at a time, then streamed out in order. Each row reads
+ * as the source router followed by a "distance/next hop" entry per destination router (or "-"
+ * where it is unreachable), in the order of the header. </p>
+ */
+final class AllPairsShortestPaths {
+
+  /**
+   * Int constant of the number of rows computed in parallel before being written out.
+   */
+  private static final int ROWS_PER_BATCH = 256;
+
+  /**
+   * Int constant of the number of rows below which a task computes its rows itself (rather than
+   * forking them).
+   */
+  private static final int ROWS_PER_TASK = 4;
+
+  /**
+   * String constant of the entry of an unreachable destination.
+   */
+  private static final String UNREACHABLE_ENTRY = "-";
+
+  /**
+   * Graph snapshot over which our paths are computed.
+   */
+  private final LinkStateGraph graph;
+
+  /**
+   * Nodes of the live routers (ie. which advertised an LSA & have not shutdown) of our graph.
+   */
+  private final int[] routerNodes;
+
+  /**
+   * Instantiate AllPairsShortestPaths over the input graph snapshot.
+   */
+  AllPairsShortestPaths(LinkStateGraph graph) {
+    if (graph == null) {
+      throw new IllegalArgumentException("Cannot compute all-pairs shortest paths of null graph.");
+    }
+    this.graph = graph;
+    int numRouters = 0;
+    for (int node = 0; node < graph.getNumNodes(); node++) {
+      if (isLiveRouter(node)) {
+        numRouters++;
+      }
+    }
+    routerNodes = new int[numRouters];
+    int routerIndex = 0;
+    for (int node = 0; node < graph.getNumNodes(); node++) {
+      if (isLiveRouter(node)) {
+        routerNodes[routerIndex++] = node;
+      }
+    }
+  }
+
+  /**
+   * Getter of the number of routers between which paths are computed.
+   */
+  int getNumRouters() {
+    return routerNodes.length;
+  }
+
+  /**
+   * Compute our matrix on the input pool, streaming it to the input writer (row by row).
+   */
+  void writeTo(Writer out, ForkJoinPool pool) throws IOException {
+    // first, our header listing the destination of each column
+    StringBuilder sb = new StringBuilder("source");
+    for (int routerNode : routerNodes) {
+      sb.append('\t').append(graph.getNodeId(routerNode));
+    }
+    out.write(sb.append('\n').toString());
+
+    // then, each batch of rows (computed in parallel) in turn
+    String[] rows = new String[Math.min(ROWS_PER_BATCH, routerNodes.length)];
+    for (int firstRow = 0; firstRow < routerNodes.length; firstRow += ROWS_PER_BATCH) {
+      int endRow = Math.min(firstRow + ROWS_PER_BATCH, routerNodes.length);
+      pool.invoke(new RowsTask(rows, firstRow, firstRow, endRow));
+      for (int row = firstRow; row < endRow; row++) {
+        out.write(rows[row - firstRow]);
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Boolean helper method to check if the input node is that of a live router.
+   */
+  private boolean isLiveRouter(int node) {
+    return graph.hasLinkStateAdvertisement(node) && !graph.hasShutdown(node);
+  }
+
+  /**
+   * Helper method to compute the row of the input source router, in our output format.
+   */
+  private String computeRow(int sourceNode) {
+    ShortestPathTree shortestPathTree =
+        LinkStateDatabaseUtils.computeShortestPathTree(graph, sourceNode);
+    StringBuilder sb = new StringBuilder(graph.getNodeId(sourceNode));
+    for (int routerNode : routerNodes) {
+      sb.append('\t');
+      if (!shortestPathTree.isReachable(routerNode)) {
+        sb.append(UNREACHABLE_ENTRY);
+        continue;
+      }
+      int firstHop = shortestPathTree.getFirstHop(routerNode);
+      sb.append(shortestPathTree.getDistance(routerNode)).append('/').append(
+          (firstHop == ShortestPathTree.NO_PREVIOUS_NODE)
+              ? UNREACHABLE_ENTRY : graph.getNodeId(firstHop));
+    }
+    return sb.append('\n').toString();
+  }
+
+  /**
+   * Task computing a range of rows of our matrix (splitting it in halves until small enough).
+   */
+  // only Serializable by way of ForkJoinTask: it never leaves the pool which runs it
+  @SuppressWarnings("serial")
+  private class RowsTask extends RecursiveAction {
+
+    /**
+     * Rows of the current batch (indexed from its first row).
+     */
+    private final String[] rows;
+
+    /**
+     * Index of the first row of the current batch.
+     */
+    private final int firstRowOfBatch;
+
+    /**
+     * Index of the first row of this task.
+     */
+    private final int firstRow;
+
+    /**
+     * Index past the last row of this task.
+     */
+    private final int endRow;
+
+    /**
+     * Instantiate RowsTask for the input range of rows.
+     */
+    RowsTask(String[] rows, int firstRowOfBatch, int firstRow, int endRow) {
+      this.rows = rows;
+      this.firstRowOfBatch = firstRowOfBatch;
+      this.firstRow = firstRow;
+      this.endRow = endRow;
+    }
+
+    /**
+     * RowsTask's execution routine to compute its rows (or fork them as two halves).
+     */
+    @Override
+    protected void compute() {
+      if (endRow - firstRow <= ROWS_PER_TASK) {
+        for (int row = firstRow; row < endRow; row++) {
+          rows[row - firstRowOfBatch] = computeRow(routerNodes[row]);
+        }
+        return;
+      }
+      int midRow = (firstRow + endRow) >>> 1;
+      invokeAll(new RowsTask(rows, firstRowOfBatch, firstRow, midRow),
+          new RowsTask(rows, firstRowOfBatch, midRow, endRow));
+    }
+  }
+
+  /**
+   * Convey string representation of All Pairs Shortest Paths instance.
+   */
+  @Override
+  public String toString() {
+    return "AllPairsShortestPaths[routers=" + routerNodes.length + "," + graph + "]";
+  }
+}
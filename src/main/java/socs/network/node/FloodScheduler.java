@@ -0,0 +1,158 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler coalescing the floods of LSAUPDATEs requested by a Router within a short window.
+ *
+ * <p> Since each flood only carries what every neighbor has yet to see, merging a burst of
+ * requests (eg. a heartbeat cycle detaching several neighbors) into a single flood sends each
+ * neighbor one LSAUPDATE holding every change of the burst. A flood goes out once the first
+ * pending request has waited for the coalescing delay, or right away once maxBatchSize requests
+ * are pending (a delay of zero floods synchronously on every request). </p>
+ */
+class FloodScheduler {
+
+  /**
+   * Router on behalf of which floods are sent.
+   */
+  private final Router router;
+
+  /**
+   * Delay (in milliseconds) over which requests are merged into a single flood.
+   */
+  private final long coalescingDelayMillis;
+
+  /**
+   * Number of pending requests past which we flood without waiting out the delay.
+   */
+  private final int maxBatchSize;
+
+  /**
+   * Single thread sending our floods (one at a time).
+   */
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Number of requests merged into the pending flood (guarded by this).
+   */
+  private int numPendingRequests = 0;
+
+  /**
+   * Neighbor IP excluded by every request merged into the pending flood, if any (guarded by this).
+   */
+  private String pendingExcludedRemoteIp = null;
+
+  /**
+   * Scheduled run of the pending flood (guarded by this).
+   */
+  private ScheduledFuture<?> pendingFlood = null;
+
+  /**
+   * Instantiate FloodScheduler with the input coalescing delay and batch size cap.
+   */
+  FloodScheduler(Router router, long coalescingDelayMillis, int maxBatchSize) {
+    if (router == null) {
+      throw new IllegalArgumentException("Cannot instantiate a flood scheduler for a null router.");
+    }
+    if (coalescingDelayMillis < 0 || maxBatchSize <= 0) {
+      throw new IllegalArgumentException(
+          "Cannot instantiate a flood scheduler with (coalescing delay = " + coalescingDelayMillis
+              + ", max batch size = " + maxBatchSize + " ).");
+    }
+    this.router = router;
+    this.coalescingDelayMillis = coalescingDelayMillis;
+    this.maxBatchSize = maxBatchSize;
+    executor = Executors.newSingleThreadScheduledExecutor(job -> {
+      Thread schedulerThread = new Thread(job, "sospf-flood-scheduler");
+      // the scheduler should never hold the router process open on quit
+      schedulerThread.setDaemon(true);
+      return schedulerThread;
+    });
+  }
+
+  /**
+   * Request a flood to every neighbor (except the input one, if non-null).
+   */
+  void requestFlood(String excludedRemoteIp) {
+    if (coalescingDelayMillis == 0) {
+      router.fanOutLsaUpdateWithExcludedRemote(excludedRemoteIp);
+      return;
+    }
+    synchronized (this) {
+      if (numPendingRequests == 0) {
+        pendingExcludedRemoteIp = excludedRemoteIp;
+        pendingFlood =
+            executor.schedule(this::runPendingFlood, coalescingDelayMillis, TimeUnit.MILLISECONDS);
+      } else if (pendingExcludedRemoteIp != null
+          && !pendingExcludedRemoteIp.equals(excludedRemoteIp)) {
+        // a neighbor is only spared the merged flood if every request spared it
+        pendingExcludedRemoteIp = null;
+      }
+      numPendingRequests++;
+      if (numPendingRequests >= maxBatchSize && pendingFlood.cancel(false)) {
+        pendingFlood = executor.schedule(this::runPendingFlood, 0, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * Synchronously send the pending flood, if any (eg. before quitting).
+   */
+  void flush() {
+    runPendingFlood();
+  }
+
+  /**
+   * Helper method to send the pending flood (merging every request made until now).
+   */
+  private void runPendingFlood() {
+    String excludedRemoteIp;
+    synchronized (this) {
+      if (numPendingRequests == 0) {
+        return;
+      }
+      if (pendingFlood != null) {
+        pendingFlood.cancel(false);
+      }
+      excludedRemoteIp = pendingExcludedRemoteIp;
+      numPendingRequests = 0;
+      pendingExcludedRemoteIp = null;
+      pendingFlood = null;
+    }
+    try {
+      router.fanOutLsaUpdateWithExcludedRemote(excludedRemoteIp);
+    } catch (Exception e) {
+      RouterUtils.alertExceptionToConsole(e, "\n\nError: Failed to run coalesced flood.\n\n");
+    }
+  }
+
+  /**
+   * Convey string representation of Flood Scheduler instance.
+   */
+  @Override
+  public String toString() {
+    return "FloodScheduler[coalescingDelay=" + coalescingDelayMillis + "ms,maxBatchSize="
+        + maxBatchSize + "]";
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import socs.network.message.SospfPacket;
+import socs.network.message.SospfPacketCodec;
+
+/**
+ * Static utilities class to (de)frame SospfPackets over a byte stream.
+ *
+ * <p> Every packet travels as a self-contained frame: a 4-byte big-endian payload length and a
+ * 4-byte conversation id followed by the payload itself. Unlike a long-lived ObjectOutputStream,
+ * this lets either end of a connection (and, in particular, a non-blocking selector) find packet
+ * boundaries without deserializing anything, while the conversation id lets several conversations
+ * be in flight over the same connection (each reply being matched to its request by id). </p>
+ *
+ * <p> The first byte of each payload names the wire format of the rest of it (either default Java
+ * serialization or our compact SospfPacketCodec). Decoding honours whichever format the sender
+ * picked, so routers configured with different formats still understand each other. </p>
+ *
+ * <p> Over connections whose ends both advertised it at HELLO time, payloads past a size threshold
+ * are further deflated (against the preset dictionary of the sender's WireEncoding) and wrapped in
+ * a payload of their own wire format. </p>
+ */
+final class FramingUtils {
+
+  /**
+   * Int constant of the size (in bytes) of the header (length prefix and conversation id)
+   * heading each frame.
+   */
+  static final int FRAME_HEADER_LENGTH = 8;
+
+  /**
+   * Int constant of the offset (in bytes) of the conversation id within a frame header.
+   */
+  static final int FRAME_CONVERSATION_ID_OFFSET = 4;
+
+  /**
+   * Int constant of the maximum payload size (in bytes) accepted for a single frame.
+   */
+  static final int MAX_FRAME_PAYLOAD_LENGTH = 16 * 1024 * 1024;
+
+  /**
+   * Byte constant flagging a payload encoded via default Java serialization.
+   */
+  static final byte JAVA_SERIALIZATION_WIRE_FORMAT = 0;
+
+  /**
+   * Byte constant flagging a payload encoded via our binary SospfPacketCodec.
+   */
+  static final byte BINARY_CODEC_WIRE_FORMAT = 1;
+
+  /**
+   * Byte constant flagging a deflated payload (itself wrapping a payload of another wire format).
+   */
+  static final byte DEFLATE_COMPRESSED_WIRE_FORMAT = 2;
+
+  /**
+   * Private constructor to restrict class instantiation.
+   */
+  private FramingUtils() {
+  }
+
+  /**
+   * Static method to verify that a frame's advertised payload length is acceptable.
+   */
+  static void verifyFramePayloadLength(int payloadLength) throws IOException {
+    if (payloadLength < 0 || payloadLength > MAX_FRAME_PAYLOAD_LENGTH) {
+      throw new StreamCorruptedException(
+          "Received frame with invalid (payload length = " + payloadLength + " ).");
+    }
+  }
+
+  /**
+   * Static method to encode a SospfPacket as a frame payload (compressing it if negotiated with
+   * the receiver and worth it).
+   */
+  static byte[] encodeSospfPacket(SospfPacket packet, WireEncoding encoding,
+      boolean compressionNegotiated) throws IOException {
+    byte[] payload = encodeSospfPacket(packet, encoding.wireFormat);
+    if (!compressionNegotiated || payload.length < encoding.compressionThreshold) {
+      return payload;
+    }
+    byte[] compressedPayload = compressPayload(payload, encoding.compressionDictionary);
+    // only bother the receiver with inflating the payload if it actually got smaller
+    return (compressedPayload.length < payload.length) ? compressedPayload : payload;
+  }
+
+  /**
+   * Static method to encode a SospfPacket as a frame payload of the input wire format.
+   */
+  static byte[] encodeSospfPacket(SospfPacket packet, byte wireFormat) throws IOException {
+    if (packet == null) {
+      throw new IllegalArgumentException("Trying to encode null packet!");
+    }
+    ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+    payloadBytes.write(wireFormat);
+    if (wireFormat == BINARY_CODEC_WIRE_FORMAT) {
+      DataOutputStream payloadStream = new DataOutputStream(payloadBytes);
+      SospfPacketCodec.encode(packet, payloadStream);
+      payloadStream.flush();
+    } else {
+      ObjectOutputStream payloadStream = new ObjectOutputStream(payloadBytes);
+      payloadStream.writeObject(packet);
+      payloadStream.close();
+    }
+    return payloadBytes.toByteArray();
+  }
+
+  /**
+   * Static method to decode a SospfPacket from a frame payload (inflating it against the
+   * dictionary of the input encoding, should it be compressed).
+   */
+  static SospfPacket decodeSospfPacket(byte[] payload, WireEncoding encoding) throws Exception {
+    if (payload == null) {
+      throw new IllegalArgumentException("Trying to decode null payload!");
+    }
+    if (payload.length == 0) {
+      throw new StreamCorruptedException("Received frame with empty payload.");
+    }
+    ByteArrayInputStream payloadBytes = new ByteArrayInputStream(payload);
+    byte wireFormat = (byte) payloadBytes.read();
+    switch (wireFormat) {
+      case BINARY_CODEC_WIRE_FORMAT:
+        return SospfPacketCodec.decode(new DataInputStream(payloadBytes));
+      case JAVA_SERIALIZATION_WIRE_FORMAT:
+        ObjectInputStream payloadStream = new ObjectInputStream(payloadBytes);
+        Object decodedObject = payloadStream.readObject();
+        if (!(decodedObject instanceof SospfPacket)) {
+          throw new StreamCorruptedException("Frame payload does not hold an SospfPacket.");
+        }
+        return (SospfPacket) decodedObject;
+      case DEFLATE_COMPRESSED_WIRE_FORMAT:
+        byte[] decompressedPayload = decompressPayload(payload, encoding);
+        if (decompressedPayload.length > 0
+            && decompressedPayload[0] == DEFLATE_COMPRESSED_WIRE_FORMAT) {
+          throw new StreamCorruptedException("Received frame with nested compressed payload.");
+        }
+        return decodeSospfPacket(decompressedPayload, encoding);
+      default:
+        throw new StreamCorruptedException(
+            "Received frame with unknown (wire format = " + wireFormat + " ).");
+    }
+  }
+
+  /**
+   * Helper method to wrap a payload into a deflated one (prefixed by its original length).
+   */
+  private static byte[] compressPayload(byte[] payload, byte[] dictionary) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      if (dictionary.length > 0) {
+        deflater.setDictionary(dictionary);
+      }
+      deflater.setInput(payload);
+      deflater.finish();
+      ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream(payload.length / 2);
+      compressedBytes.write(DEFLATE_COMPRESSED_WIRE_FORMAT);
+      ByteBuffer payloadLength = ByteBuffer.allocate(Integer.BYTES).putInt(payload.length);
+      compressedBytes.write(payloadLength.array(), 0, Integer.BYTES);
+      byte[] buffer = new byte[4096];
+      while (!deflater.finished()) {
+        compressedBytes.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return compressedBytes.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Helper method to unwrap the payload held by a deflated one.
+   */
+  private static byte[] decompressPayload(byte[] compressedPayload, WireEncoding encoding)
+      throws IOException {
+    if (compressedPayload.length < 1 + Integer.BYTES) {
+      throw new StreamCorruptedException("Received frame with truncated compressed payload.");
+    }
+    int payloadLength = ByteBuffer.wrap(compressedPayload, 1, Integer.BYTES).getInt();
+    verifyFramePayloadLength(payloadLength);
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressedPayload, 1 + Integer.BYTES,
+          compressedPayload.length - 1 - Integer.BYTES);
+      byte[] payload = new byte[payloadLength];
+      int numInflatedBytes = 0;
+      while (numInflatedBytes < payloadLength) {
+        int numBytes =
+            inflater.inflate(payload, numInflatedBytes, payloadLength - numInflatedBytes);
+        if (numBytes == 0) {
+          if (inflater.needsDictionary()) {
+            // the sender must have deflated against the very dictionary we advertised
+            if (inflater.getAdler() != encoding.compressionDictionaryId) {
+              throw new StreamCorruptedException("Received payload compressed against unknown "
+                  + "(dictionary id = " + inflater.getAdler() + " ).");
+            }
+            inflater.setDictionary(encoding.compressionDictionary);
+          } else if (inflater.finished() || inflater.needsInput()) {
+            break;
+          }
+        }
+        numInflatedBytes += numBytes;
+      }
+      if (numInflatedBytes != payloadLength) {
+        throw new StreamCorruptedException(
+            "Received compressed payload not matching its (length = " + payloadLength + " ).");
+      }
+      return payload;
+    } catch (DataFormatException e) {
+      throw new StreamCorruptedException("Received corrupt compressed payload: " + e.getMessage());
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Static method to encode a SospfPacket as a complete frame (ready for a channel write).
+   */
+  static ByteBuffer encodeFrame(int conversationId, SospfPacket packet, WireEncoding encoding,
+      boolean compressionNegotiated) throws IOException {
+    byte[] payload = encodeSospfPacket(packet, encoding, compressionNegotiated);
+    ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_LENGTH + payload.length);
+    frame.putInt(payload.length);
+    frame.putInt(conversationId);
+    frame.put(payload);
+    frame.flip();
+    return frame;
+  }
+
+  /**
+   * Static method to write a SospfPacket as a single frame to the given output stream.
+   */
+  static void writeFrame(DataOutputStream outToRemote, int conversationId, SospfPacket packet,
+      WireEncoding encoding, boolean compressionNegotiated) throws IOException {
+    byte[] payload = encodeSospfPacket(packet, encoding, compressionNegotiated);
+    outToRemote.writeInt(payload.length);
+    outToRemote.writeInt(conversationId);
+    outToRemote.write(payload);
+    outToRemote.flush();
+  }
+
+  /**
+   * Static method to perform a blocking read of a single frame from the given stream.
+   */
+  static Frame readFrame(DataInputStream inFromRemote) throws IOException {
+    int payloadLength = inFromRemote.readInt();
+    verifyFramePayloadLength(payloadLength);
+    int conversationId = inFromRemote.readInt();
+    byte[] payload = new byte[payloadLength];
+    inFromRemote.readFully(payload);
+    return new Frame(conversationId, payload);
+  }
+
+  /**
+   * Frame received over a connection (its payload yet to be decoded).
+   */
+  static final class Frame {
+
+    /**
+     * Id of the conversation to which this frame belongs.
+     */
+    final int conversationId;
+
+    /**
+     * Encoded SospfPacket carried by this frame.
+     */
+    final byte[] payload;
+
+    /**
+     * Instantiate Frame with the input conversation id and payload.
+     */
+    Frame(int conversationId, byte[] payload) {
+      this.conversationId = conversationId;
+      this.payload = payload;
+    }
+  }
+}
@@ -17,11 +17,7 @@
  */
 package socs.network.node;
 
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
 import java.util.TimerTask;
-import socs.network.message.LinkStateAdvertisement;
 import socs.network.message.SospfPacket;
 
 /**
@@ -63,78 +59,63 @@ public class HeartbeatTask extends TimerTask {
     boolean heartbeatCycleHasChangedLsdState = false;
 
     // prepare some reusable variables
-    Socket clientSocket = null;
-    ObjectInputStream inFromRemoteServer = null;
-    ObjectOutputStream outToRemoteServer = null;
     RouterDescription remoteRouterDescription;
-    String remoteProcessIp;
-    int remoteProcessPortNumber;
     short curLinkWeight;
+    LinkChannel channel;
     // iterate over each link in our ports array to identify each neighbour
     int portIndexOfCurLink;
     Link[] ports = routerToNotify.ports;
     for (portIndexOfCurLink = 0; portIndexOfCurLink < ports.length; portIndexOfCurLink++) {
       Link curLink = ports[portIndexOfCurLink];
       if (curLink != null) {
+        // first, release this link's connection if nothing has used it in a while
+        curLink.closeChannelIfIdle();
         remoteRouterDescription = curLink.targetRouter;
         if (remoteRouterDescription.status == RouterStatus.TWO_WAY) {
-          // found a neighbor: let's try to ping it
+          // found a neighbor: let's try to ping it (over our long-lived channel to it)
+          channel = curLink.getChannel();
+          SospfPacket heartbeatReply = null;
           int numRetries = 0;
           // retry as often as allowed
           while (numRetries < Router.HEARTBEAT_MAX_RETRY) {
             try {
-              // let's prepare what we need to request a connection
-              remoteProcessIp = remoteRouterDescription.processIpAddress;
-              remoteProcessPortNumber = remoteRouterDescription.processPortNumber;
+              // let's prepare what we need to ping the neighbor
               curLinkWeight = curLink.weight;
 
               SospfPacket heartbeatPacket = null;
+              LinkChannel.Conversation conversation = null;
 
               try {
-                try {
-                  // let's attempt a connection
-                  clientSocket = new Socket(remoteProcessIp, remoteProcessPortNumber);
-                  // IMPORTANT: must establish output stream first to enable input stream setup
-                  outToRemoteServer = new ObjectOutputStream(clientSocket.getOutputStream());
-                  inFromRemoteServer = new ObjectInputStream(clientSocket.getInputStream());
-
-                  // successfully connected, let's get our SospfPacket ready
-
-                  heartbeatPacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
-                      routerToNotify.rd, remoteRouterDescription,
-                      SospfPacket.SOSPF_HEARTBEAT, null, curLinkWeight
-                  );
-
-                  // time to send our HEARTBEAT packet!
-                  outToRemoteServer.writeObject(heartbeatPacket);
-
-                } catch (Exception e) {
-                  // important to raise exception here to defer control flow & close connections
-                  throw e;
-                }
+                // let's get our SospfPacket ready
+                heartbeatPacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
+                    routerToNotify.rd, remoteRouterDescription,
+                    SospfPacket.SOSPF_HEARTBEAT, null, curLinkWeight
+                );
+
+                // time to send our HEARTBEAT packet (alongside any other ongoing conversation)!
+                conversation = channel.openConversation();
+                conversation.send(heartbeatPacket);
 
                 // having made it this far, we now proceed to wait for a reply
 
                 // blocking wait to deserialize SospfPacket response
-                SospfPacket responseFromRemote =
-                    RouterUtils.deserializeSospfPacketFromInputStream(inFromRemoteServer,
-                        clientSocket, true);
-
-                try {
-                  if (responseFromRemote.sospfType != SospfPacket.SOSPF_HEARTBEAT) {
-                    throw new Exception("\n\nReceived invalid response packet.\n\n");
-                  }
-                } catch (Exception e) {
-                  // important to raise exception here to defer control flow
-                  throw e;
+                SospfPacket responseFromRemote = conversation.receive(true);
+
+                // (a neighbor too busy to handle our heartbeat is still alive)
+                if (responseFromRemote == null
+                    || (responseFromRemote.sospfType != SospfPacket.SOSPF_HEARTBEAT
+                    && responseFromRemote.sospfType != SospfPacket.SOSPF_BUSY)) {
+                  throw new Exception("\n\nReceived invalid response packet.\n\n");
                 }
+                heartbeatReply = responseFromRemote;
               } catch (Exception e) {
-                RouterUtils.closeIoSocketConnection(clientSocket,
-                    inFromRemoteServer, outToRemoteServer);
+                // drop the connection so that our retry starts over on a fresh one
+                channel.close();
                 throw e;
               } finally {
-                RouterUtils.closeIoSocketConnection(clientSocket,
-                    inFromRemoteServer, outToRemoteServer);
+                if (conversation != null) {
+                  conversation.close();
+                }
               }
             } catch (Exception e) {
               numRetries += 1;
@@ -155,26 +136,22 @@ public class HeartbeatTask extends TimerTask {
 
             System.out.println("\n\nNo heartbeat heard for neighbor with IP: "
                 + neighborIpAddress + "\n\n");
+            // switch its traffic onto our alternates first, while the network reconverges
+            routerToNotify.failOverNeighbor(neighborIpAddress);
             routerToNotify.detachLinkAtPortIndex(portIndexOfCurLink);
+            curLink.closeChannel();
             System.out.print(">> ");
 
             // update our link state database with the results of this conversation
             routerToNotify.writeLinkStateOfThisRouterToDatabase();
 
-            // get the latest lsa for the dead neighbor
-            LinkStateAdvertisement lastLsaOfNeighbor =
-                routerToNotify.getLastLinkStateAdvertisement(neighborIpAddress);
-
-            // flag that the neighbor has died
-            lastLsaOfNeighbor.hasShutdown = true;
-
-            // increment the lsa seq number
-            lastLsaOfNeighbor.lsaSeqNumber = lastLsaOfNeighbor.lsaSeqNumber + 1;
-
-            // write this to our lsd
-            routerToNotify.putLinkStateAdvertisement(neighborIpAddress, lastLsaOfNeighbor);
+            // flag that the neighbor has died (over its latest lsa, under the next seq number)
+            routerToNotify.writeShutdownOfRouterToDatabase(neighborIpAddress);
 
             heartbeatCycleHasChangedLsdState = true;
+          } else {
+            // the neighbor is alive: check that its lsd agrees with ours (as per its digest)
+            routerToNotify.synchronizeLsdDigestWithNeighbor(curLink, heartbeatReply);
           }
         }
       }
@@ -0,0 +1,161 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import socs.network.message.SospfPacket;
+
+/**
+ * Server-side view of a connection accepted from a client router.
+ *
+ * <p> A client may pipeline several conversations over the same connection. Each incoming frame
+ * is therefore routed by its conversation id: the first frame of a new conversation opens an
+ * InboundConversation and hands it to a RequestHandlerJob, while later frames are queued for the
+ * job already handling it. Subclasses only provide the transport (ie. either a blocking socket or
+ * a non-blocking selector). </p>
+ *
+ * <p> The bytes queued for those jobs are bounded per connection: a client which sends faster
+ * than its conversations are handled (or to conversations nobody reads) is dropped. </p>
+ */
+abstract class InboundConnection {
+
+  /**
+   * Int constant of the maximum number of payload bytes queued over a connection for its jobs (ie.
+   * a single frame of the largest size), past which its client is deemed to be flooding us.
+   */
+  private static final int MAX_QUEUED_LENGTH = FramingUtils.MAX_FRAME_PAYLOAD_LENGTH;
+
+  /**
+   * Router on behalf of which this connection's requests are handled.
+   */
+  private final Router router;
+
+  /**
+   * Conversations currently open over this connection (by id).
+   */
+  private final ConcurrentHashMap<Integer, InboundConversation> openConversations =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Number of payload bytes received over this connection but not yet consumed by their jobs.
+   */
+  private final AtomicInteger queuedLength = new AtomicInteger(0);
+
+  /**
+   * Boolean to flag that the connection has ended (no further frame will be received).
+   */
+  private volatile boolean reachedEndOfStream = false;
+
+  /**
+   * Settings with which we encode the packets sent over (and decode those received from) this
+   * connection.
+   */
+  final WireEncoding wireEncoding;
+
+  /**
+   * Boolean to flag that the client agreed (at HELLO time) to receive compressed payloads.
+   */
+  volatile boolean compressionNegotiated = false;
+
+  /**
+   * Instantiate InboundConnection on behalf of the input router.
+   */
+  InboundConnection(Router router) {
+    if (router == null) {
+      throw new IllegalArgumentException("Cannot serve a connection for a null router.");
+    }
+    this.router = router;
+    this.wireEncoding = router.getWireEncoding();
+  }
+
+  /**
+   * Route a frame received over this connection to its conversation (opening it if new).
+   */
+  void deliverFrame(int conversationId, byte[] payload) throws IOException {
+    if (queuedLength.addAndGet(payload.length) > MAX_QUEUED_LENGTH) {
+      queuedLength.addAndGet(-payload.length);
+      // raising here has the transport drop the client, as for any other read failure
+      throw new IOException("Queued requests of connection exceeded ( max length = "
+          + MAX_QUEUED_LENGTH + " ).");
+    }
+    InboundConversation conversation = openConversations.get(conversationId);
+    if (conversation != null) {
+      conversation.deliver(payload);
+      return;
+    }
+    if (reachedEndOfStream) {
+      queuedLength.addAndGet(-payload.length);
+      return;
+    }
+    // first frame of a new conversation: it carries the request opening it
+    conversation = new InboundConversation(this, conversationId);
+    openConversations.put(conversationId, conversation);
+    conversation.deliver(payload);
+    router.dispatchRequestHandlerJob(conversation);
+  }
+
+  /**
+   * Account for queued payload bytes of the input length once consumed (or discarded).
+   */
+  void releaseQueuedLength(int length) {
+    queuedLength.addAndGet(-length);
+  }
+
+  /**
+   * Forget a conversation once its job is done with it.
+   */
+  void endConversation(InboundConversation conversation) {
+    openConversations.remove(conversation.conversationId, conversation);
+  }
+
+  /**
+   * Boolean helper method to check if any conversation is still open over this connection.
+   */
+  boolean hasOpenConversations() {
+    return !openConversations.isEmpty();
+  }
+
+  /**
+   * Boolean helper method to check if the connection has ended.
+   */
+  boolean hasReachedEndOfStream() {
+    return reachedEndOfStream;
+  }
+
+  /**
+   * Flag that the connection has ended, waking up any job waiting on its next packet.
+   */
+  void markEndOfStream() {
+    reachedEndOfStream = true;
+    for (InboundConversation conversation : openConversations.values()) {
+      conversation.markEndOfStream();
+    }
+  }
+
+  /**
+   * Send a packet of the input conversation to the client router.
+   */
+  abstract void sendFrame(int conversationId, SospfPacket packet) throws Exception;
+
+  /**
+   * Close the connection (along with every conversation still open over it).
+   */
+  abstract void close();
+}
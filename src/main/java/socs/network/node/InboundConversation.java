@@ -0,0 +1,163 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.io.EOFException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import socs.network.message.SospfPacket;
+
+/**
+ * Single conversation opened by a client router over an InboundConnection.
+ *
+ * <p> A RequestHandlerJob converses with its client exclusively through this class, so that the
+ * same handlers serve conversations multiplexed over either a blocking socket or a selector. </p>
+ */
+class InboundConversation {
+
+  /**
+   * Empty payload queued in the inbox to flag that the connection has ended.
+   */
+  private static final byte[] END_OF_STREAM = new byte[0];
+
+  /**
+   * Connection over which this conversation takes place.
+   */
+  private final InboundConnection connection;
+
+  /**
+   * Id stamped on every frame of this conversation.
+   */
+  final int conversationId;
+
+  /**
+   * Queue of frame payloads received for this conversation but not yet consumed.
+   */
+  private final LinkedBlockingQueue<byte[]> inbox = new LinkedBlockingQueue<>();
+
+  /**
+   * Boolean to flag that this conversation has been closed (any frame still queued is discarded).
+   */
+  private volatile boolean isClosed = false;
+
+  /**
+   * Instantiate InboundConversation with the input id over the input connection.
+   */
+  InboundConversation(InboundConnection connection, int conversationId) {
+    this.connection = connection;
+    this.conversationId = conversationId;
+  }
+
+  /**
+   * Queue a frame payload received for this conversation.
+   */
+  void deliver(byte[] payload) {
+    inbox.add(payload);
+    if (isClosed) {
+      // we were closed just as the frame arrived: nobody is left to read it
+      discardQueuedPayloads();
+    }
+  }
+
+  /**
+   * Flag that the connection has ended, waking up any job waiting on its next packet.
+   */
+  void markEndOfStream() {
+    inbox.add(END_OF_STREAM);
+  }
+
+  /**
+   * Perform a blocking wait on the next packet of this conversation.
+   */
+  SospfPacket receive(boolean suppressEofExceptionAlert) throws Exception {
+    try {
+      byte[] payload =
+          inbox.poll(Router.SERVER_CONVERSATION_TIMEOUT, TimeUnit.MILLISECONDS);
+      if (payload == null) {
+        throw new SocketTimeoutException("Timed out awaiting packet from client.");
+      }
+      if (payload == END_OF_STREAM) {
+        // keep the flag queued in case we are asked again
+        inbox.add(END_OF_STREAM);
+        throw new EOFException("Client closed the connection mid-conversation.");
+      }
+      connection.releaseQueuedLength(payload.length);
+      return FramingUtils.decodeSospfPacket(payload, connection.wireEncoding);
+    } catch (Exception e) {
+      if (!suppressEofExceptionAlert) {
+        String alertMessageOfFailedInputStreamParsing =
+            "\n\nError: Failed to receive SospfPacket at " + this + " \n\n";
+        RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedInputStreamParsing);
+      }
+      // important to raise exception here to defer control flow & close connections
+      throw e;
+    }
+  }
+
+  /**
+   * Send a packet of this conversation to the client router.
+   */
+  void send(SospfPacket packet) throws Exception {
+    connection.sendFrame(conversationId, packet);
+  }
+
+  /**
+   * Setter of whether packets sent over this conversation's connection may be compressed.
+   */
+  void setCompressionNegotiated(boolean compressionNegotiated) {
+    connection.compressionNegotiated = compressionNegotiated;
+  }
+
+  /**
+   * Close this conversation (leaving the connection open for the client's other conversations).
+   */
+  void close() {
+    isClosed = true;
+    connection.endConversation(this);
+    discardQueuedPayloads();
+  }
+
+  /**
+   * Helper method to empty the inbox, releasing the bytes it held from its connection's bound.
+   */
+  private void discardQueuedPayloads() {
+    byte[] payload;
+    while ((payload = inbox.poll()) != null) {
+      if (payload != END_OF_STREAM) {
+        connection.releaseQueuedLength(payload.length);
+      }
+    }
+  }
+
+  /**
+   * Close this conversation along with its whole connection (so that the client stops waiting).
+   */
+  void closeConnection() {
+    close();
+    connection.close();
+  }
+
+  /**
+   * Convey string representation of Inbound Conversation instance.
+   */
+  @Override
+  public String toString() {
+    return connection + " (conversation " + conversationId + ")";
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of the nodes (by index, from 0 to capacity - 1) of a graph, keyed by
+ * primitive int distances.
+ *
+ * <p> Unlike a java.util.PriorityQueue, each node holds a single entry whose key may be lowered in
+ * place (decrease-key), so that Dijkstra's algorithm runs in O((V + E) log V) without boxing or
+ * stale entries. </p>
+ */
+class IndexedMinHeap {
+
+  /**
+   * Int constant flagging a node currently absent from the heap.
+   */
+  private static final int NOT_IN_HEAP = -1;
+
+  /**
+   * Node indices laid out as a binary heap (in its first size slots).
+   */
+  private final int[] heap;
+
+  /**
+   * Slot in the heap of each node (or NOT_IN_HEAP).
+   */
+  private final int[] positionOfNode;
+
+  /**
+   * Key of each node currently in the heap.
+   */
+  private final int[] keyOfNode;
+
+  /**
+   * Number of nodes currently in the heap.
+   */
+  private int size = 0;
+
+  /**
+   * Instantiate an (initially empty) IndexedMinHeap for nodes 0 to capacity - 1.
+   */
+  IndexedMinHeap(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException(
+          "Cannot instantiate a heap with (capacity = " + capacity + " ).");
+    }
+    heap = new int[capacity];
+    positionOfNode = new int[capacity];
+    keyOfNode = new int[capacity];
+    Arrays.fill(positionOfNode, NOT_IN_HEAP);
+  }
+
+  /**
+   * Boolean helper method to check if the heap is empty.
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Boolean helper method to check if the input node is in the heap.
+   */
+  boolean contains(int node) {
+    return positionOfNode[node] != NOT_IN_HEAP;
+  }
+
+  /**
+   * Insert the input node with the input key, or lower its key if already in the heap (a higher
+   * key than its current one is ignored).
+   */
+  void insertOrDecreaseKey(int node, int key) {
+    int position = positionOfNode[node];
+    if (position == NOT_IN_HEAP) {
+      position = size++;
+      heap[position] = node;
+      positionOfNode[node] = position;
+    } else if (key >= keyOfNode[node]) {
+      return;
+    }
+    keyOfNode[node] = key;
+    siftUp(position);
+  }
+
+  /**
+   * Remove & return the node of minimum key from the (non-empty) heap.
+   */
+  int pollMin() {
+    if (size == 0) {
+      throw new IllegalStateException("Cannot poll the minimum of an empty heap.");
+    }
+    int minNode = heap[0];
+    positionOfNode[minNode] = NOT_IN_HEAP;
+    size--;
+    if (size > 0) {
+      heap[0] = heap[size];
+      positionOfNode[heap[0]] = 0;
+      siftDown(0);
+    }
+    return minNode;
+  }
+
+  /**
+   * Helper method to move the node at the input slot up until its parent's key is no greater.
+   */
+  private void siftUp(int position) {
+    int node = heap[position];
+    int key = keyOfNode[node];
+    while (position > 0) {
+      int parentPosition = (position - 1) >>> 1;
+      int parentNode = heap[parentPosition];
+      if (keyOfNode[parentNode] <= key) {
+        break;
+      }
+      heap[position] = parentNode;
+      positionOfNode[parentNode] = position;
+      position = parentPosition;
+    }
+    heap[position] = node;
+    positionOfNode[node] = position;
+  }
+
+  /**
+   * Helper method to move the node at the input slot down until its children's keys are no less.
+   */
+  private void siftDown(int position) {
+    int node = heap[position];
+    int key = keyOfNode[node];
+    int halfSize = size >>> 1;
+    while (position < halfSize) {
+      int childPosition = 2 * position + 1;
+      int childNode = heap[childPosition];
+      int rightChildPosition = childPosition + 1;
+      if (rightChildPosition < size && keyOfNode[heap[rightChildPosition]] < keyOfNode[childNode]) {
+        childPosition = rightChildPosition;
+        childNode = heap[childPosition];
+      }
+      if (key <= keyOfNode[childNode]) {
+        break;
+      }
+      heap[position] = childNode;
+      positionOfNode[childNode] = position;
+      position = childPosition;
+    }
+    heap[position] = node;
+    positionOfNode[node] = position;
+  }
+
+  /**
+   * Convey string representation of Indexed Min Heap instance.
+   */
+  @Override
+  public String toString() {
+    return "IndexedMinHeap[size=" + size + ",capacity=" + heap.length + "]";
+  }
+}
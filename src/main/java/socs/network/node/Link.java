@@ -17,6 +17,13 @@
  */
 package socs.network.node;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Vector;
+import socs.network.message.LinkStateAdvertisement;
+import socs.network.message.LinkStateAdvertisementHeader;
+import socs.network.message.SospfPacket;
+
 /**
  * Specifies link between two routers.
  */
@@ -38,10 +45,22 @@ public class Link {
   short weight;
 
   /**
-   * Instantiate Link between two routers (based on description).
+   * Long-lived channel reused by every conversation with the target router (connects lazily).
+   */
+  private final LinkChannel channel;
+
+  /**
+   * Versions of the LSAs the target router is known to hold (by linkStateId), so that floods over
+   * this link only carry what the target router has yet to see.
+   */
+  private final HashMap<String, Long> lsaVersionsKnownToTarget = new HashMap<>();
+
+  /**
+   * Instantiate Link between two routers (based on description), over whose channel packets are
+   * encoded as per the input settings.
    */
   public Link(RouterDescription originRouterDescription,
-      RouterDescription targetRouterDescription) {
+      RouterDescription targetRouterDescription, WireEncoding wireEncoding) {
     if (originRouterDescription == null) {
       throw new IllegalArgumentException("Cannot instantiate a link with a null origin router.");
     }
@@ -51,5 +70,99 @@ public class Link {
     originRouter = originRouterDescription;
     targetRouter = targetRouterDescription;
     weight = targetRouterDescription.weightToAttemptTransmission;
+    channel = new LinkChannel(targetRouterDescription, wireEncoding);
+  }
+
+  /**
+   * Getter of this link's channel to the target router.
+   */
+  LinkChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * Helper method to close this link's channel (a later conversation would reconnect it).
+   */
+  void closeChannel() {
+    channel.close();
+  }
+
+  /**
+   * Helper method to reap this link's channel if it has been idle for too long.
+   */
+  void closeChannelIfIdle() {
+    channel.closeIfIdleFor(Router.CHANNEL_IDLE_TIMEOUT);
+  }
+
+  /**
+   * Settle the capabilities of the channel to the target router from those advertised by both
+   * ends of the link at HELLO time (compression also requiring both ends to hold the same
+   * dictionary).
+   */
+  void negotiateCapabilities(byte localCapabilities, int localCompressionDictionaryId,
+      byte remoteCapabilities, int remoteCompressionDictionaryId) {
+    byte sharedCapabilities = (byte) (localCapabilities & remoteCapabilities);
+    channel.setCompressionNegotiated((sharedCapabilities & SospfPacket.DEFLATE_CAPABILITY) != 0
+        && localCompressionDictionaryId == remoteCompressionDictionaryId);
+  }
+
+  /**
+   * Synchronized method to select the input LSAs unknown to the target router (the caller is to
+   * mark them as known only once the target acknowledges them).
+   */
+  synchronized Vector<LinkStateAdvertisement> getLsasUnknownToTarget(
+      Collection<LinkStateAdvertisement> lsas) {
+    Vector<LinkStateAdvertisement> lsasUnknownToTarget = new Vector<>();
+    for (LinkStateAdvertisement lsa : lsas) {
+      if (!getVersionOfLsa(lsa).equals(lsaVersionsKnownToTarget.get(lsa.linkStateId))) {
+        lsasUnknownToTarget.add(lsa);
+      }
+    }
+    return lsasUnknownToTarget;
+  }
+
+  /**
+   * Synchronized method to record the input LSAs as known to the target router (eg. on receiving
+   * them from it, or on its acknowledging them).
+   */
+  synchronized void markLsasKnownToTarget(Collection<LinkStateAdvertisement> lsas) {
+    for (LinkStateAdvertisement lsa : lsas) {
+      lsaVersionsKnownToTarget.put(lsa.linkStateId, getVersionOfLsa(lsa));
+    }
+  }
+
+  /**
+   * Synchronized method to record the LSAs summarized by the input headers as known to the target
+   * router (eg. on receiving its DBD).
+   */
+  synchronized void markLsaHeadersKnownToTarget(
+      Collection<LinkStateAdvertisementHeader> lsaHeaders) {
+    for (LinkStateAdvertisementHeader lsaHeader : lsaHeaders) {
+      lsaVersionsKnownToTarget.put(lsaHeader.linkStateId,
+          getVersionOf(lsaHeader.lsaSeqNumber, lsaHeader.hasShutdown, lsaHeader.isMaxAge()));
+    }
+  }
+
+  /**
+   * Synchronized method to forget which LSAs the target router holds (so the next flood over this
+   * link carries our whole database).
+   */
+  synchronized void forgetLsasKnownToTarget() {
+    lsaVersionsKnownToTarget.clear();
+  }
+
+  /**
+   * Static helper method to fold the state of an LSA into a single version.
+   */
+  private static Long getVersionOfLsa(LinkStateAdvertisement lsa) {
+    return getVersionOf(lsa.lsaSeqNumber, lsa.hasShutdown, lsa.isMaxAge());
+  }
+
+  /**
+   * Static helper method to fold a sequence number, shutdown flag & expiry (so that the purge of
+   * an LSA is flooded like any new instance) into a single version.
+   */
+  private static Long getVersionOf(int lsaSeqNumber, boolean hasShutdown, boolean isMaxAge) {
+    return ((long) lsaSeqNumber << 2) | (isMaxAge ? 2L : 0L) | (hasShutdown ? 1L : 0L);
   }
 }
@@ -0,0 +1,468 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import socs.network.message.SospfPacket;
+
+/**
+ * Long-lived client connection reused by every conversation with the target router of a Link.
+ *
+ * <p> The underlying socket is opened lazily, dropped on any I/O failure (so that the next
+ * conversation transparently reconnects) and reaped once it has been idle for too long. The
+ * (blocking) connect runs outside of the channel's monitor: closing the channel never waits on it,
+ * and conversations opened meanwhile share its outcome rather than each taking their turn. </p>
+ *
+ * <p> Conversations are pipelined over the connection rather than taking turns: each one is
+ * opened with its own id, stamped on every frame it sends, and a background reader routes each
+ * incoming frame to the conversation whose id it carries. A heartbeat (or a broadcast) thus no
+ * longer waits on the round trips of an adjacency bring-up sharing its link. </p>
+ */
+class LinkChannel {
+
+  /**
+   * Empty payload queued in a conversation's inbox to flag that its connection has ended.
+   */
+  private static final byte[] END_OF_STREAM = new byte[0];
+
+  /**
+   * Process IP of the remote router served by this channel.
+   */
+  private final String remoteProcessIp;
+
+  /**
+   * Process port number of the remote router served by this channel.
+   */
+  private final short remoteProcessPortNumber;
+
+  /**
+   * Running counter from which we assign the id of each new conversation.
+   */
+  private final AtomicInteger lastConversationId = new AtomicInteger(0);
+
+  /**
+   * Currently open connection to the remote router (or null if not yet connected).
+   */
+  private ChannelConnection connection = null;
+
+  /**
+   * Connection attempt currently in progress (or null if none), shared by every conversation
+   * opened in the meantime.
+   */
+  private CompletableFuture<ChannelConnection> pendingConnection = null;
+
+  /**
+   * Socket being connected by the attempt in progress (closed to abort it if we close first).
+   */
+  private Socket connectingSocket = null;
+
+  /**
+   * Timestamp (in milliseconds) at which this channel was last used to send or receive.
+   */
+  private volatile long lastUsedTimeMillis = System.currentTimeMillis();
+
+  /**
+   * Settings with which we encode the packets sent over (and decode those received from) this
+   * channel.
+   */
+  private final WireEncoding wireEncoding;
+
+  /**
+   * Boolean to flag that the remote router agreed (at HELLO time) to receive compressed payloads.
+   */
+  private volatile boolean compressionNegotiated = false;
+
+  /**
+   * Instantiate (an initially unconnected) LinkChannel to the input remote router, over which
+   * packets are encoded as per the input settings.
+   */
+  LinkChannel(RouterDescription remoteRouterDescription, WireEncoding wireEncoding) {
+    if (remoteRouterDescription == null) {
+      throw new IllegalArgumentException("Cannot instantiate a channel to a null remote router.");
+    }
+    if (wireEncoding == null) {
+      throw new IllegalArgumentException("Cannot instantiate a channel of null wire encoding.");
+    }
+    this.wireEncoding = wireEncoding;
+    this.remoteProcessIp = remoteRouterDescription.processIpAddress;
+    this.remoteProcessPortNumber = remoteRouterDescription.processPortNumber;
+  }
+
+  /**
+   * Helper method to connect a new socket to the remote router (outside of our monitor), and
+   * install it as our connection unless we were closed in the meantime.
+   */
+  private void connect(CompletableFuture<ChannelConnection> connectionAttempt) {
+    Socket clientSocket = new Socket();
+    synchronized (this) {
+      if (pendingConnection != connectionAttempt) {
+        // we were closed before we even started
+        connectionAttempt.completeExceptionally(
+            new EOFException("Channel was closed while connecting."));
+        return;
+      }
+      connectingSocket = clientSocket;
+    }
+    ChannelConnection newConnection = null;
+    try {
+      // let's attempt a connection
+      clientSocket.connect(new InetSocketAddress(remoteProcessIp, remoteProcessPortNumber),
+          Router.CHANNEL_CONNECT_TIMEOUT);
+      clientSocket.setTcpNoDelay(true);
+      newConnection = new ChannelConnection(clientSocket);
+    } catch (Exception e) {
+      try {
+        clientSocket.close();
+      } catch (Exception ignored) {
+        // fail silently (the connection is being discarded regardless)
+      }
+      synchronized (this) {
+        if (pendingConnection == connectionAttempt) {
+          pendingConnection = null;
+          connectingSocket = null;
+        }
+      }
+      connectionAttempt.completeExceptionally(e);
+      return;
+    }
+    boolean isInstalled;
+    synchronized (this) {
+      isInstalled = (pendingConnection == connectionAttempt);
+      if (isInstalled) {
+        connection = newConnection;
+        pendingConnection = null;
+        connectingSocket = null;
+      }
+    }
+    if (!isInstalled) {
+      // we were closed while connecting: the connection is stale before it was ever used
+      newConnection.close();
+      connectionAttempt.completeExceptionally(
+          new EOFException("Channel was closed while connecting."));
+      return;
+    }
+    // the reader lives as long as its connection
+    Thread readerThread = new Thread(newConnection,
+        "sospf-channel-reader-" + remoteProcessIp + ":" + remoteProcessPortNumber);
+    readerThread.setDaemon(true);
+    readerThread.start();
+    connectionAttempt.complete(newConnection);
+  }
+
+  /**
+   * Open a new conversation with the remote router (connecting first if necessary). The caller
+   * must close the conversation once done with it.
+   */
+  Conversation openConversation() throws Exception {
+    CompletableFuture<ChannelConnection> connectionAttempt;
+    boolean isConnecting = false;
+    synchronized (this) {
+      if (connection != null && !connection.isClosed) {
+        // reuse the connection we already have
+        return openConversationOver(connection);
+      }
+      if (pendingConnection == null) {
+        pendingConnection = new CompletableFuture<>();
+        isConnecting = true;
+      }
+      connectionAttempt = pendingConnection;
+    }
+    if (isConnecting) {
+      connect(connectionAttempt);
+    }
+    ChannelConnection newConnection;
+    try {
+      // (bounded by the connect timeout of whoever is connecting)
+      newConnection = connectionAttempt.get();
+    } catch (ExecutionException e) {
+      // important to raise the failure of the (shared) attempt here to defer control flow
+      throw (Exception) e.getCause();
+    }
+    synchronized (this) {
+      return openConversationOver(newConnection);
+    }
+  }
+
+  /**
+   * Helper method to open a new conversation over the input connection (while holding our
+   * monitor).
+   */
+  private Conversation openConversationOver(ChannelConnection curConnection) {
+    lastUsedTimeMillis = System.currentTimeMillis();
+    Conversation conversation =
+        new Conversation(curConnection, lastConversationId.incrementAndGet());
+    curConnection.openConversations.put(conversation.conversationId, conversation);
+    if (curConnection.isClosed) {
+      // the connection died just as we opened the conversation: let it know right away
+      conversation.inbox.add(END_OF_STREAM);
+    }
+    return conversation;
+  }
+
+  /**
+   * Setter of whether packets sent over this channel may be compressed.
+   */
+  void setCompressionNegotiated(boolean compressionNegotiated) {
+    this.compressionNegotiated = compressionNegotiated;
+  }
+
+  /**
+   * Getter of whether packets sent over this channel may be compressed.
+   */
+  boolean isCompressionNegotiated() {
+    return compressionNegotiated;
+  }
+
+  /**
+   * Synchronized method to close the underlying connection iff unused for the input duration.
+   */
+  synchronized boolean closeIfIdleFor(long idleTimeMillis) {
+    if (connection == null || !connection.openConversations.isEmpty()
+        || System.currentTimeMillis() - lastUsedTimeMillis < idleTimeMillis) {
+      return false;
+    }
+    close();
+    return true;
+  }
+
+  /**
+   * Synchronized method to close the underlying connection (a later conversation will reconnect).
+   */
+  synchronized void close() {
+    if (connection != null) {
+      connection.close();
+    }
+    connection = null;
+    if (connectingSocket != null) {
+      try {
+        // abort the connect in progress (whose waiters then fail right away)
+        connectingSocket.close();
+      } catch (Exception ignored) {
+        // fail silently (the connection is being discarded regardless)
+      }
+    }
+    pendingConnection = null;
+    connectingSocket = null;
+  }
+
+  /**
+   * Convey string representation of Link Channel instance.
+   */
+  @Override
+  public String toString() {
+    ChannelConnection curConnection = connection;
+    return "LinkChannel[remote=" + remoteProcessIp + ":" + remoteProcessPortNumber
+        + ",socket=" + (curConnection == null ? null : curConnection.clientSocket) + "]";
+  }
+
+  /**
+   * Single socket connection of the channel (along with the job reading from it).
+   */
+  private class ChannelConnection implements Runnable {
+
+    /**
+     * Socket to the remote router.
+     */
+    private final Socket clientSocket;
+
+    /**
+     * Input stream over the socket (only ever read by this connection's reader).
+     */
+    private final DataInputStream inFromRemoteServer;
+
+    /**
+     * Output stream over the socket (shared by every conversation, one frame at a time).
+     */
+    private final DataOutputStream outToRemoteServer;
+
+    /**
+     * Conversations currently open over this connection (by id).
+     */
+    private final ConcurrentHashMap<Integer, Conversation> openConversations =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Boolean to flag that this connection has been closed (for good).
+     */
+    private volatile boolean isClosed = false;
+
+    /**
+     * Instantiate ChannelConnection over a freshly connected socket.
+     */
+    ChannelConnection(Socket clientSocket) throws Exception {
+      this.clientSocket = clientSocket;
+      // packets are framed over buffered streams (see FramingUtils)
+      outToRemoteServer =
+          new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
+      inFromRemoteServer =
+          new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+    }
+
+    /**
+     * Write a single frame of the input conversation to the remote router.
+     */
+    void sendFrame(int conversationId, SospfPacket packet) throws Exception {
+      if (isClosed) {
+        throw new EOFException("Cannot send packet over closed connection.");
+      }
+      try {
+        synchronized (outToRemoteServer) {
+          RouterUtils.serializeSospfPacketToOutputStream(outToRemoteServer, conversationId,
+              packet, wireEncoding, compressionNegotiated);
+        }
+        lastUsedTimeMillis = System.currentTimeMillis();
+      } catch (Exception e) {
+        // drop the broken connection so that the next conversation reconnects
+        close();
+        throw e;
+      }
+    }
+
+    /**
+     * Close the connection, waking up every conversation still waiting on it.
+     */
+    void close() {
+      isClosed = true;
+      try {
+        // closing the socket also closes both of its streams (and unblocks our reader)
+        clientSocket.close();
+      } catch (Exception ignored) {
+        // fail silently (the connection is being discarded regardless)
+      }
+      for (Conversation conversation : openConversations.values()) {
+        conversation.inbox.add(END_OF_STREAM);
+      }
+    }
+
+    /**
+     * ChannelConnection's reader routine to route each incoming frame to its conversation.
+     */
+    public void run() {
+      try {
+        while (!isClosed) {
+          FramingUtils.Frame frame = FramingUtils.readFrame(inFromRemoteServer);
+          lastUsedTimeMillis = System.currentTimeMillis();
+          Conversation conversation = openConversations.get(frame.conversationId);
+          if (conversation != null) {
+            conversation.inbox.add(frame.payload);
+          }
+          // otherwise, this is a late reply to a conversation we gave up on: drop it
+        }
+      } catch (Exception e) {
+        // the remote closed (or reset) the connection: nothing left to read
+      } finally {
+        synchronized (LinkChannel.this) {
+          if (connection == this) {
+            connection = null;
+          }
+        }
+        close();
+      }
+    }
+  }
+
+  /**
+   * Single request/response exchange with the remote router, multiplexed over the channel.
+   */
+  class Conversation {
+
+    /**
+     * Connection over which this conversation takes place.
+     */
+    private final ChannelConnection connection;
+
+    /**
+     * Id stamped on every frame of this conversation.
+     */
+    private final int conversationId;
+
+    /**
+     * Queue of frame payloads received for this conversation but not yet consumed.
+     */
+    private final LinkedBlockingQueue<byte[]> inbox = new LinkedBlockingQueue<>();
+
+    /**
+     * Instantiate Conversation with the input id over the input connection.
+     */
+    private Conversation(ChannelConnection connection, int conversationId) {
+      this.connection = connection;
+      this.conversationId = conversationId;
+    }
+
+    /**
+     * Send a packet of this conversation to the remote router.
+     */
+    void send(SospfPacket packet) throws Exception {
+      connection.sendFrame(conversationId, packet);
+    }
+
+    /**
+     * Perform a blocking wait on the next packet of this conversation from the remote router.
+     */
+    SospfPacket receive(boolean suppressEofExceptionAlert) throws Exception {
+      try {
+        byte[] payload = inbox.poll(Router.CHANNEL_READ_TIMEOUT, TimeUnit.MILLISECONDS);
+        if (payload == null) {
+          throw new SocketTimeoutException("Timed out awaiting reply from remote router.");
+        }
+        if (payload == END_OF_STREAM) {
+          // keep the flag queued in case we are asked again
+          inbox.add(END_OF_STREAM);
+          throw new EOFException("Remote router closed the connection mid-conversation.");
+        }
+        return FramingUtils.decodeSospfPacket(payload, wireEncoding);
+      } catch (Exception e) {
+        if (!suppressEofExceptionAlert) {
+          String alertMessageOfFailedInputStreamParsing =
+              "\n\nError: Failed to receive SospfPacket at " + this + " \n\n";
+          RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedInputStreamParsing);
+        }
+        // important to raise exception here to defer control flow
+        throw e;
+      }
+    }
+
+    /**
+     * Close this conversation (any late reply to it will be dropped).
+     */
+    void close() {
+      connection.openConversations.remove(conversationId, this);
+    }
+
+    /**
+     * Convey string representation of Conversation instance.
+     */
+    @Override
+    public String toString() {
+      return LinkChannel.this + " (conversation " + conversationId + ")";
+    }
+  }
+}
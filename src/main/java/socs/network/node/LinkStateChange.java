@@ -0,0 +1,30 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+/**
+ * Effect of a changed LSA on our shortest-path tree. NONE means the links of the LSA are unchanged
+ * (eg. it was only refreshed, or flagged as shutdown). STUB means only links to leaf routers (ie.
+ * which carry no transit traffic) or the router's own sentinel link have changed. TOPOLOGY means
+ * links which may carry transit traffic have changed.
+ */
+enum LinkStateChange {
+  NONE,
+  STUB,
+  TOPOLOGY,
+}
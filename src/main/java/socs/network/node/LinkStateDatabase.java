@@ -17,14 +17,21 @@
  */
 package socs.network.node;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 import socs.network.message.LinkDescription;
 import socs.network.message.LinkStateAdvertisement;
+import socs.network.message.LinkStateAdvertisementHeader;
 import socs.network.utils.CommonUtils;
 
 /**
@@ -33,15 +40,106 @@ import socs.network.utils.CommonUtils;
 public class LinkStateDatabase {
 
   /**
-   * Data store to map linkID (ie. simulated IP) => LinkStateAdvertisement instance.
+   * Int constant of the fraction (as its inverse) of our nodes past which a batch of changes is
+   * applied by a full rebuild of our graph & tree rather than an incremental update.
    */
-  private final HashMap<String, LinkStateAdvertisement> dataStore;
+  private static final int INCREMENTAL_UPDATE_MAX_CHANGE_RATIO = 8;
+
+  /**
+   * Int constant of the maximum number of equal-cost paths listed for a single destination.
+   */
+  private static final int MAX_EQUAL_COST_PATHS = 64;
+
+  /**
+   * Int constant of the maximum number of paths which may be asked of a k-shortest-paths query.
+   */
+  static final int MAX_K_SHORTEST_PATHS = 64;
+
+  /**
+   * Int constant of the maximum number of k-shortest-paths results cached at once.
+   */
+  private static final int MAX_CACHED_K_SHORTEST_PATHS = 128;
+
+  /**
+   * Int constant of the number of (most recent) writes retained by our change log.
+   */
+  static final int CHANGE_LOG_CAPACITY = 4096;
+
+  /**
+   * Int constant of the time (in seconds) for which an expired (ie. MaxAge) LSA is held on to, so
+   * that its purge is flooded to (and synchronized with) our neighbors, before being removed.
+   */
+  static final int MAX_AGE_HOLD_TIME = 60;
+
+  /**
+   * Latest immutable snapshot of our LSA's (ie. linkID => LinkStateAdvertisement), read without
+   * any lock & replaced by our writers (who serialize on this).
+   */
+  private final AtomicReference<LinkStateDatabaseSnapshot> snapshot;
 
   /**
    * Private description for the router maintaining this Link State Database.
    */
   private final RouterDescription rd;
 
+  /**
+   * Ring buffer of our most recent writes, each stored at the index of its version modulo our
+   * capacity (guarded by this).
+   */
+  private final LinkStateDatabaseChange[] changeLog =
+      new LinkStateDatabaseChange[CHANGE_LOG_CAPACITY];
+
+  /**
+   * Last graph snapshot of our values (or null until first needed, guarded by this).
+   */
+  private LinkStateGraph graph = null;
+
+  /**
+   * Version of the database as of which our last graph snapshot was built (guarded by this).
+   */
+  private long graphVersion = 0;
+
+  /**
+   * Last shortest-path tree computed over one of our graph snapshots (or null until first needed,
+   * guarded by this).
+   */
+  private ShortestPathTree shortestPathTree = null;
+
+  /**
+   * Version of the database as of which the graph of our last shortest-path tree was built
+   * (guarded by this).
+   */
+  private long shortestPathTreeVersion = 0;
+
+  /**
+   * Routing table installed by our last SPF run (or null until first needed, guarded by this),
+   * which may have been switched onto its alternates since.
+   */
+  private RoutingTable routingTable = null;
+
+  /**
+   * Ids of the neighbors declared dead since we last wrote our own LSA (guarded by this).
+   */
+  private final HashSet<String> failedNeighborIds = new HashSet<>();
+
+  /**
+   * Formatted results of our recent k-shortest-paths queries, by (destination, k) key (guarded by
+   * this, and only valid as of kShortestPathsCacheVersion).
+   */
+  private final LinkedHashMap<String, String> kShortestPathsCache =
+      new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldestEntry) {
+          return size() > MAX_CACHED_K_SHORTEST_PATHS;
+        }
+      };
+
+  /**
+   * Version of the database as of which our cached k-shortest-paths results hold (guarded by
+   * this).
+   */
+  private long kShortestPathsCacheVersion = 0;
+
   /**
    * Initialize database with single entry for this router.
    */
@@ -72,44 +170,442 @@ public class LinkStateDatabase {
     }
     rd = routerDescription;
     LinkStateAdvertisement initialLsaRecord = initLinkStateDatabase();
-    dataStore = new HashMap<>();
-    dataStore.put(initialLsaRecord.linkStateId, initialLsaRecord);
+    snapshot = new AtomicReference<>(LinkStateDatabaseSnapshot.of(initialLsaRecord));
+  }
+
+  /**
+   * Lock-free getter of the latest snapshot of our values.
+   */
+  LinkStateDatabaseSnapshot getSnapshot() {
+    return snapshot.get();
   }
 
   /**
-   * Synchronized helper method to construct & return vector of database values.
+   * Helper method to construct & return vector of database values (as of our latest snapshot).
    */
-  synchronized Vector<LinkStateAdvertisement> getValuesVector() {
+  Vector<LinkStateAdvertisement> getValuesVector() {
+    return new Vector<>(snapshot.get().values());
+  }
+
+  /**
+   * Helper method to construct & return vector of headers summarizing our values (as of our
+   * latest snapshot).
+   */
+  Vector<LinkStateAdvertisementHeader> getHeadersVector() {
+    LinkStateDatabaseSnapshot currentSnapshot = snapshot.get();
+    Vector<LinkStateAdvertisementHeader> lsaHeaderArray = new Vector<>(currentSnapshot.size());
+    for (LinkStateAdvertisement lsa : currentSnapshot.values()) {
+      lsaHeaderArray.add(new LinkStateAdvertisementHeader(lsa));
+    }
+    return lsaHeaderArray;
+  }
+
+  /**
+   * Helper method to construct & return vector of the database values missing from (or
+   * superseding those of) the database summarized by the input headers (as of our latest
+   * snapshot).
+   */
+  Vector<LinkStateAdvertisement> getValuesSupersedingHeaders(
+      Collection<LinkStateAdvertisementHeader> lsaHeaders) {
+    HashMap<String, LinkStateAdvertisementHeader> lsaHeadersById = new HashMap<>();
+    for (LinkStateAdvertisementHeader lsaHeader : lsaHeaders) {
+      lsaHeadersById.put(lsaHeader.linkStateId, lsaHeader);
+    }
     Vector<LinkStateAdvertisement> lsaArray = new Vector<>();
-    lsaArray.addAll(dataStore.values());
+    for (LinkStateAdvertisement lsa : snapshot.get().values()) {
+      LinkStateAdvertisementHeader lsaHeader = lsaHeadersById.get(lsa.linkStateId);
+      if (lsaHeader == null || lsaHeader.isSupersededBy(lsa)) {
+        lsaArray.add(lsa);
+      }
+    }
     return lsaArray;
   }
 
   /**
-   * Synchronized reader of last stored LSA for a given input IP address.
+   * Helper method to construct & return vector of the database values of the input digest
+   * buckets missing from (or superseding those of) the same buckets of the database summarized
+   * by the input headers (as of our latest snapshot).
    */
-  synchronized LinkStateAdvertisement getLastLinkStateAdvertisement(String simulatedIpAddress) {
+  Vector<LinkStateAdvertisement> getValuesOfBucketsSupersedingHeaders(
+      Collection<Integer> bucketNodes, Collection<LinkStateAdvertisementHeader> lsaHeaders) {
+    HashMap<String, LinkStateAdvertisementHeader> lsaHeadersById = new HashMap<>();
+    for (LinkStateAdvertisementHeader lsaHeader : lsaHeaders) {
+      lsaHeadersById.put(lsaHeader.linkStateId, lsaHeader);
+    }
+    Vector<LinkStateAdvertisement> lsaArray = new Vector<>();
+    for (LinkStateAdvertisement lsa : snapshot.get().values()) {
+      if (!bucketNodes.contains(LinkStateDatabaseDigest.getBucketNodeOf(lsa.linkStateId))) {
+        continue;
+      }
+      LinkStateAdvertisementHeader lsaHeader = lsaHeadersById.get(lsa.linkStateId);
+      if (lsaHeader == null || lsaHeader.isSupersededBy(lsa)) {
+        lsaArray.add(lsa);
+      }
+    }
+    return lsaArray;
+  }
+
+  /**
+   * Helper method to construct & return vector of headers summarizing our values of the input
+   * digest buckets (as of our latest snapshot).
+   */
+  Vector<LinkStateAdvertisementHeader> getHeadersVectorOfBuckets(
+      Collection<Integer> bucketNodes) {
+    Vector<LinkStateAdvertisementHeader> lsaHeaderArray = new Vector<>();
+    for (LinkStateAdvertisement lsa : snapshot.get().values()) {
+      if (bucketNodes.contains(LinkStateDatabaseDigest.getBucketNodeOf(lsa.linkStateId))) {
+        lsaHeaderArray.add(new LinkStateAdvertisementHeader(lsa));
+      }
+    }
+    return lsaHeaderArray;
+  }
+
+  /**
+   * Lock-free getter of the digest of our latest snapshot.
+   */
+  LinkStateDatabaseDigest getDigest() {
+    return snapshot.get().getDigest();
+  }
+
+  /**
+   * Lock-free reader of last stored LSA for a given input IP address.
+   */
+  LinkStateAdvertisement getLastLinkStateAdvertisement(String simulatedIpAddress) {
     if (CommonUtils.isNullOrEmptyString(simulatedIpAddress)) {
       throw new IllegalArgumentException("Cannot get LSA for null IP address string.");
     }
-    return dataStore.get(simulatedIpAddress);
+    return snapshot.get().get(simulatedIpAddress);
   }
 
   /**
-   * Synchronized writer of LSA for a given IP address key.
+   * Synchronized writer of LSA for a given IP address key (publishing a new snapshot of our
+   * values, so that the input LSA must never be mutated from then on).
    */
   synchronized void putLinkStateAdvertisement(String linkId,
       LinkStateAdvertisement linkStateAdvertisement) {
-    if (CommonUtils.isNullOrEmptyString(linkId)) {
-      throw new IllegalArgumentException("Cannot store LSA for null IP address string.");
+    if (linkStateAdvertisement == null) {
+      throw new IllegalArgumentException("Cannot store null LSA to Link State Database.");
     }
+    computeLinkStateAdvertisement(linkId, lastLsa -> linkStateAdvertisement);
+  }
+
+  /**
+   * Write the input LSA iff it is either the first for its IP address key, or supersedes the last
+   * one stored, returning whether it was written.
+   *
+   * <p> The LSA is first checked against our latest snapshot without any lock, so that the stale
+   * copies flooded to us by every neighbor are turned away in parallel. Only those which pass are
+   * compared again & installed atomically, so that no concurrent handler may have its newer LSA
+   * overwritten by ours. </p>
+   */
+  boolean putLinkStateAdvertisementIfNewer(LinkStateAdvertisement linkStateAdvertisement) {
     if (linkStateAdvertisement == null) {
       throw new IllegalArgumentException("Cannot store null LSA to Link State Database.");
     }
+    String linkId = linkStateAdvertisement.linkStateId;
+    if (linkStateAdvertisement.isMaxAge() && linkId.equals(rd.simulatedIpAddress)) {
+      // we alone purge our own LSA (by refreshing it well before it expires)
+      return false;
+    }
+    if (!isSupersededBy(getLastLinkStateAdvertisement(linkId), linkStateAdvertisement)) {
+      return false;
+    }
+    boolean[] isWritten = new boolean[1];
+    computeLinkStateAdvertisement(linkId, lastLsa -> {
+      isWritten[0] = isSupersededBy(lastLsa, linkStateAdvertisement);
+      return isWritten[0] ? linkStateAdvertisement : lastLsa;
+    });
+    return isWritten[0];
+  }
+
+  /**
+   * Synchronized compare-and-install of the LSA for a given IP address key (in the fashion of
+   * ConcurrentHashMap.compute): the input function maps the last stored LSA (or null) to the LSA
+   * to store in its place, which is only written if it is another (non-null) instance. Returns
+   * the LSA stored once done.
+   */
+  synchronized LinkStateAdvertisement computeLinkStateAdvertisement(String linkId,
+      UnaryOperator<LinkStateAdvertisement> remappingFunction) {
+    if (CommonUtils.isNullOrEmptyString(linkId)) {
+      throw new IllegalArgumentException("Cannot store LSA for null IP address string.");
+    }
+    LinkStateDatabaseSnapshot previousSnapshot = snapshot.get();
+    LinkStateAdvertisement previousLsa = previousSnapshot.get(linkId);
+    LinkStateAdvertisement linkStateAdvertisement = remappingFunction.apply(previousLsa);
+    if (linkStateAdvertisement == null || linkStateAdvertisement == previousLsa) {
+      return previousLsa;
+    }
     if (!linkId.equals(linkStateAdvertisement.linkStateId)) {
       throw new IllegalArgumentException("Input linkId key must equal LSA's linkId.");
     }
-    dataStore.put(linkId, linkStateAdvertisement);
+    publishWrite(linkId, previousLsa, linkStateAdvertisement,
+        previousSnapshot.withLinkStateAdvertisement(linkStateAdvertisement));
+    if (linkId.equals(rd.simulatedIpAddress)) {
+      // our own LSA now accounts for any failed neighbor
+      failedNeighborIds.clear();
+    }
+    return linkStateAdvertisement;
+  }
+
+  /**
+   * Synchronized removal of the input LSA from our values, iff it is still the one stored for its
+   * IP address key. Returns whether it was removed.
+   */
+  synchronized boolean removeLinkStateAdvertisement(LinkStateAdvertisement linkStateAdvertisement) {
+    LinkStateDatabaseSnapshot previousSnapshot = snapshot.get();
+    String linkId = linkStateAdvertisement.linkStateId;
+    if (previousSnapshot.get(linkId) != linkStateAdvertisement) {
+      return false;
+    }
+    publishWrite(linkId, linkStateAdvertisement, null,
+        previousSnapshot.withoutLinkStateAdvertisement(linkId));
+    return true;
+  }
+
+  /**
+   * Helper method to log a write of the input LSA (or null, for a removal) in place of the
+   * previous one, then publish the resulting snapshot (to be called while holding our lock).
+   */
+  private void publishWrite(String linkId, LinkStateAdvertisement previousLsa,
+      LinkStateAdvertisement linkStateAdvertisement, LinkStateDatabaseSnapshot currentSnapshot) {
+    // log the write (overwriting the oldest one once we are full) before publishing it
+    changeLog[(int) (currentSnapshot.getVersion() % CHANGE_LOG_CAPACITY)] =
+        new LinkStateDatabaseChange(currentSnapshot.getVersion(), linkId,
+            (previousLsa == null)
+                ? LinkStateAdvertisement.NO_PREVIOUS_ADVERTISEMENTS_FLAG
+                : previousLsa.lsaSeqNumber,
+            (linkStateAdvertisement == null)
+                ? LinkStateAdvertisement.NO_PREVIOUS_ADVERTISEMENTS_FLAG
+                : linkStateAdvertisement.lsaSeqNumber);
+    snapshot.set(currentSnapshot);
+  }
+
+  /**
+   * Age the LSA's of other routers held in our values: each which just expired is replaced by its
+   * MaxAge copy (to be flooded as its purge), and each MaxAge copy held for long enough is
+   * removed. Returns whether any LSA expired (ie. whether our neighbors must be updated).
+   */
+  boolean ageLinkStateAdvertisements() {
+    boolean hasExpiredLsa = false;
+    for (LinkStateAdvertisement lsa : snapshot.get().values()) {
+      if (lsa.linkStateId.equals(rd.simulatedIpAddress)) {
+        // our own LSA is refreshed by our router instead
+        continue;
+      }
+      if (lsa.lsaAge >= LinkStateAdvertisement.MAX_AGE) {
+        // we hold a purge: drop it once it has had time to reach our neighbors
+        if (lsa.getSecondsSinceReceipt() >= MAX_AGE_HOLD_TIME) {
+          removeLinkStateAdvertisement(lsa);
+        }
+      } else if (lsa.isMaxAge()) {
+        // expired while in our database (unless it was superseded in the meantime)
+        LinkStateAdvertisement maxAgeLsa = RouterUtils.createMaxAgeLinkStateAdvertisement(lsa);
+        if (computeLinkStateAdvertisement(lsa.linkStateId,
+            lastLsa -> (lastLsa == lsa) ? maxAgeLsa : lastLsa) == maxAgeLsa) {
+          hasExpiredLsa = true;
+        }
+      }
+    }
+    return hasExpiredLsa;
+  }
+
+  /**
+   * Boolean helper method to check if the input LSA should replace the last one stored (if any),
+   * knowing that the purge of an LSA we do not hold is of no use to us.
+   */
+  private static boolean isSupersededBy(LinkStateAdvertisement lastLsa,
+      LinkStateAdvertisement lsa) {
+    return (lastLsa == null)
+        ? !lsa.isMaxAge() : new LinkStateAdvertisementHeader(lastLsa).isSupersededBy(lsa);
+  }
+
+  /**
+   * Lock-free getter of the version (ie. running count of writes) of our latest snapshot.
+   */
+  long getVersion() {
+    return snapshot.get().getVersion();
+  }
+
+  /**
+   * Synchronized getter of every write since the input version (by order of version), or null if
+   * our change log no longer holds all of them (in which case the caller must start over from a
+   * full snapshot).
+   */
+  synchronized List<LinkStateDatabaseChange> getChangesSince(long sinceVersion) {
+    long currentVersion = snapshot.get().getVersion();
+    if (sinceVersion < 0 || sinceVersion > currentVersion) {
+      throw new IllegalArgumentException(
+          "Cannot get changes since ( version = " + sinceVersion + " ) of database at ( version = "
+              + currentVersion + " ).");
+    }
+    if (currentVersion - sinceVersion > CHANGE_LOG_CAPACITY) {
+      return null;
+    }
+    ArrayList<LinkStateDatabaseChange> changes =
+        new ArrayList<>((int) (currentVersion - sinceVersion));
+    for (long changeVersion = sinceVersion + 1; changeVersion <= currentVersion; changeVersion++) {
+      changes.add(changeLog[(int) (changeVersion % CHANGE_LOG_CAPACITY)]);
+    }
+    return changes;
+  }
+
+  /**
+   * Synchronized helper method to get the distinct link state ids written since the input
+   * version, or null if they warrant a full rebuild (ie. if there are too many of them, or our
+   * change log no longer holds them all).
+   */
+  private synchronized HashSet<String> getLinkStateIdsChangedSince(long sinceVersion) {
+    List<LinkStateDatabaseChange> changes = getChangesSince(sinceVersion);
+    if (changes == null) {
+      return null;
+    }
+    HashSet<String> changedLinkStateIds = new HashSet<>();
+    for (LinkStateDatabaseChange change : changes) {
+      changedLinkStateIds.add(change.getLinkStateId());
+    }
+    return isTooManyChanges(changedLinkStateIds.size()) ? null : changedLinkStateIds;
+  }
+
+  /**
+   * Synchronized getter of the graph snapshot of our current (unexpired) values (updated lazily
+   * after any write to the database, by replacing the rows of the LSAs changed since, as per our
+   * log).
+   */
+  synchronized LinkStateGraph getGraph() {
+    LinkStateDatabaseSnapshot currentSnapshot = snapshot.get();
+    if (graph != null && graphVersion == currentSnapshot.getVersion()) {
+      return graph;
+    }
+    HashSet<String> changedLinkStateIds =
+        (graph == null) ? null : getLinkStateIdsChangedSince(graphVersion);
+    if (changedLinkStateIds == null) {
+      ArrayList<LinkStateAdvertisement> liveLsas = new ArrayList<>(currentSnapshot.size());
+      for (LinkStateAdvertisement lsa : currentSnapshot.values()) {
+        if (!lsa.isMaxAge()) {
+          liveLsas.add(lsa);
+        }
+      }
+      graph = LinkStateGraph.fromLinkStateAdvertisements(liveLsas);
+      // a rebuilt graph gives out new ids: no tree computed over a previous one can be repaired
+      shortestPathTree = null;
+    } else {
+      HashMap<String, LinkStateAdvertisement> changedLsas = new HashMap<>();
+      for (String linkStateId : changedLinkStateIds) {
+        // an expired (or removed) LSA drops out of our graph
+        LinkStateAdvertisement lsa = currentSnapshot.get(linkStateId);
+        changedLsas.put(linkStateId, (lsa == null || lsa.isMaxAge()) ? null : lsa);
+      }
+      graph = graph.withLinkStateAdvertisements(changedLsas);
+    }
+    graphVersion = currentSnapshot.getVersion();
+    return graph;
+  }
+
+  /**
+   * Getter of the shortest-path tree rooted at this router over our current values (computed at
+   * most once per graph snapshot, outside of our lock, by repairing the last tree when only a few
+   * LSAs have changed since).
+   */
+  ShortestPathTree getShortestPathTree() {
+    LinkStateGraph currentGraph;
+    ShortestPathTree previousShortestPathTree;
+    int[] changedNodes = null;
+    long currentVersion;
+    synchronized (this) {
+      currentGraph = getGraph();
+      if (shortestPathTree != null && shortestPathTree.getGraph() == currentGraph) {
+        return shortestPathTree;
+      }
+      previousShortestPathTree = shortestPathTree;
+      HashSet<String> changedLinkStateIds = (previousShortestPathTree == null)
+          ? null : getLinkStateIdsChangedSince(shortestPathTreeVersion);
+      if (changedLinkStateIds != null) {
+        changedNodes = new int[changedLinkStateIds.size()];
+        int changedIndex = 0;
+        for (String linkStateId : changedLinkStateIds) {
+          changedNodes[changedIndex++] = currentGraph.getNode(linkStateId);
+        }
+      }
+      currentVersion = graphVersion;
+    }
+    ShortestPathTree currentShortestPathTree = (changedNodes == null)
+        ? LinkStateDatabaseUtils.computeShortestPathTree(
+            currentGraph, currentGraph.getNode(rd.simulatedIpAddress))
+        : LinkStateDatabaseUtils.updateShortestPathTree(
+            previousShortestPathTree, currentGraph, changedNodes);
+    synchronized (this) {
+      // only cache our tree if our graph has not moved on in the meantime
+      if (graphVersion == currentVersion) {
+        shortestPathTree = currentShortestPathTree;
+        shortestPathTreeVersion = currentVersion;
+      }
+    }
+    return currentShortestPathTree;
+  }
+
+  /**
+   * Compute the routing table (along with its loop-free alternates) over our current values, and
+   * install it unless a write has made it stale in the meantime.
+   */
+  RoutingTable computeRoutingTable() {
+    long currentVersion;
+    synchronized (this) {
+      currentVersion = snapshot.get().getVersion();
+    }
+    RoutingTable currentRoutingTable =
+        RoutingTable.fromShortestPathTree(getShortestPathTree());
+    synchronized (this) {
+      if (snapshot.get().getVersion() == currentVersion) {
+        // keep off any neighbor declared dead while we were computing
+        LinkStateGraph currentGraph = currentRoutingTable.getShortestPathTree().getGraph();
+        for (String failedNeighborId : failedNeighborIds) {
+          int failedNeighborNode = currentGraph.getNode(failedNeighborId);
+          if (failedNeighborNode != LinkStateGraph.NO_NODE) {
+            currentRoutingTable = currentRoutingTable.withFailedNeighbor(failedNeighborNode);
+          }
+        }
+        routingTable = currentRoutingTable;
+      }
+    }
+    return currentRoutingTable;
+  }
+
+  /**
+   * Getter of the routing table installed by our last SPF run (computed if there is none yet).
+   */
+  RoutingTable getRoutingTable() {
+    synchronized (this) {
+      if (routingTable != null) {
+        return routingTable;
+      }
+    }
+    return computeRoutingTable();
+  }
+
+  /**
+   * Synchronized switch of every installed route over the neighbor with the input IP address onto
+   * its loop-free alternate (right as the neighbor is declared dead, ie. well before our next SPF
+   * run has accounted for its failure).
+   */
+  synchronized void failOverNeighbor(String neighborIpAddress) {
+    if (CommonUtils.isNullOrEmptyString(neighborIpAddress)) {
+      throw new IllegalArgumentException("Cannot fail over null IP address string.");
+    }
+    failedNeighborIds.add(neighborIpAddress);
+    if (routingTable != null) {
+      int failedNeighborNode =
+          routingTable.getShortestPathTree().getGraph().getNode(neighborIpAddress);
+      if (failedNeighborNode != LinkStateGraph.NO_NODE) {
+        routingTable = routingTable.withFailedNeighbor(failedNeighborNode);
+      }
+    }
+  }
+
+  /**
+   * Boolean helper method to check if the input number of changed LSAs warrants a full rebuild.
+   */
+  private boolean isTooManyChanges(int numChanges) {
+    return numChanges > Math.max(1, snapshot.get().size() / INCREMENTAL_UPDATE_MAX_CHANGE_RATIO);
   }
 
   /**
@@ -117,11 +613,21 @@ public class LinkStateDatabase {
    * <p><br></p> Attribution: <p><br></p> Derived from pseudocode described at
    * https://en.wikipedia.org/wiki/Dijkstra%27s_algorithm
    */
-  synchronized String getShortestPath(String destinationIp) throws Exception {
+  String getShortestPath(String destinationIp) {
 
-    LinkStateAdvertisement lastLsaOfDestination = dataStore.get(destinationIp);
+    // ** we work off an immutable tree: writers need not wait on our query (nor vice versa) **
+    ShortestPathTree currentShortestPathTree = getShortestPathTree();
+    LinkStateGraph currentGraph = currentShortestPathTree.getGraph();
+    int destinationNode = currentGraph.getNode(destinationIp);
 
-    if (lastLsaOfDestination == null || lastLsaOfDestination.hasShutdown) {
+    int[] shortestPath = null;
+    if (destinationNode != LinkStateGraph.NO_NODE
+        && currentGraph.hasLinkStateAdvertisement(destinationNode)
+        && !currentGraph.hasShutdown(destinationNode)) {
+      shortestPath = currentShortestPathTree.getPathTo(destinationNode);
+    }
+
+    if (shortestPath == null) {
       System.out.println(
           "\n\nCannot detect shortest path to IP '" + destinationIp
               + "' because there is no path to it in our network.\n\n"
@@ -129,25 +635,112 @@ public class LinkStateDatabase {
       return null;
     }
 
-    // lock the data store so no one touches it while we're reading from it
-    synchronized (dataStore) {
-      // first, let's prepare our data structures
-      Map<String, Integer> dist = new HashMap<>();
-      Map<String, String> prev = new HashMap<>();
+    // and return our shortest path in the expected string format
+    return LinkStateDatabaseUtils.getFormattedStringFromRouterPath(currentGraph, shortestPath);
+  }
 
-      // and, of course, make note of our source node id
-      String sourceNodeId = rd.simulatedIpAddress;
+  /**
+   * Output every shortest path (ie. of equal cost) from this router to the destination with the
+   * given IP address, one per line after a line listing their distinct next hops.
+   */
+  String getEqualCostPaths(String destinationIp) {
 
-      // from which, we will apply dijkstra's algorithm to compute the shortest path
-      List<String> shortestPath = LinkStateDatabaseUtils.computeShortestPathByDijkstra(
-          this, new HashSet<>(), dist, prev, sourceNodeId, destinationIp
-      );
+    // ** we work off an immutable tree: writers need not wait on our query (nor vice versa) **
+    ShortestPathTree currentShortestPathTree = getShortestPathTree();
+    LinkStateGraph currentGraph = currentShortestPathTree.getGraph();
+    int destinationNode = currentGraph.getNode(destinationIp);
 
-      // and return our shortest path in the expected string format
-      return LinkStateDatabaseUtils.getFormattedStringFromRouterIpPath(
-          this, shortestPath
+    List<int[]> equalCostPaths = Collections.emptyList();
+    if (destinationNode != LinkStateGraph.NO_NODE
+        && currentGraph.hasLinkStateAdvertisement(destinationNode)
+        && !currentGraph.hasShutdown(destinationNode)) {
+      equalCostPaths =
+          currentShortestPathTree.getEqualCostPathsTo(destinationNode, MAX_EQUAL_COST_PATHS);
+    }
+
+    if (equalCostPaths.isEmpty()) {
+      System.out.println(
+          "\n\nCannot detect shortest paths to IP '" + destinationIp
+              + "' because there is no path to it in our network.\n\n"
       );
+      return null;
+    }
+
+    // list the next hops we may spread traffic over, then each path in the expected format
+    StringBuilder sb = new StringBuilder("next hops:");
+    for (int firstHop : currentShortestPathTree.getEqualCostFirstHops(destinationNode)) {
+      sb.append(" ").append(currentGraph.getNodeId(firstHop));
+    }
+    for (int[] equalCostPath : equalCostPaths) {
+      sb.append("\n").append(
+          LinkStateDatabaseUtils.getFormattedStringFromRouterPath(currentGraph, equalCostPath));
+    }
+    if (equalCostPaths.size() == MAX_EQUAL_COST_PATHS) {
+      sb.append("\n(only the first ").append(MAX_EQUAL_COST_PATHS).append(" paths are listed)");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Output the k shortest loopless paths from this router to the destination with the given IP
+   * address, one per line by order of increasing cost (served from our cache until the database
+   * changes), or null if there is no path to it.
+   */
+  String getKShortestPaths(String destinationIp, int k) {
+    if (k <= 0 || k > MAX_K_SHORTEST_PATHS) {
+      throw new IllegalArgumentException(
+          "Cannot detect ( k = " + k + " ) shortest paths (expected 1 to " + MAX_K_SHORTEST_PATHS
+              + ").");
+    }
+    String cacheKey = destinationIp + "/" + k;
+    long currentVersion;
+    synchronized (this) {
+      currentVersion = snapshot.get().getVersion();
+      if (kShortestPathsCacheVersion != currentVersion) {
+        kShortestPathsCache.clear();
+        kShortestPathsCacheVersion = currentVersion;
+      }
+      String cachedPaths = kShortestPathsCache.get(cacheKey);
+      if (cachedPaths != null) {
+        return cachedPaths;
+      }
+    }
+
+    // ** we work off an immutable tree: writers need not wait on our query (nor vice versa) **
+    ShortestPathTree currentShortestPathTree = getShortestPathTree();
+    LinkStateGraph currentGraph = currentShortestPathTree.getGraph();
+    int destinationNode = currentGraph.getNode(destinationIp);
+
+    List<int[]> kShortestPaths = Collections.emptyList();
+    if (destinationNode != LinkStateGraph.NO_NODE
+        && currentGraph.hasLinkStateAdvertisement(destinationNode)
+        && !currentGraph.hasShutdown(destinationNode)) {
+      kShortestPaths = LinkStateDatabaseUtils.computeKShortestPaths(
+          currentShortestPathTree, destinationNode, k);
+    }
+
+    if (kShortestPaths.isEmpty()) {
+      // left to our caller to report
+      return null;
+    }
+
+    // list each path (along with its cost) in the expected format
+    StringBuilder sb = new StringBuilder();
+    for (int pathIndex = 0; pathIndex < kShortestPaths.size(); pathIndex++) {
+      int[] path = kShortestPaths.get(pathIndex);
+      sb.append((pathIndex == 0) ? "" : "\n").append(pathIndex + 1).append(") cost ")
+          .append(LinkStateDatabaseUtils.getCostOfPath(currentGraph, path)).append(": ")
+          .append(LinkStateDatabaseUtils.getFormattedStringFromRouterPath(currentGraph, path));
+    }
+    String kShortestPathsString = sb.toString();
+    synchronized (this) {
+      // only cache our result if no write has made it stale in the meantime
+      if (snapshot.get().getVersion() == currentVersion
+          && kShortestPathsCacheVersion == currentVersion) {
+        kShortestPathsCache.put(cacheKey, kShortestPathsString);
+      }
     }
+    return kShortestPathsString;
   }
 
   /**
@@ -155,7 +748,7 @@ public class LinkStateDatabase {
    */
   public String toString() {
     StringBuilder sb = new StringBuilder();
-    for (LinkStateAdvertisement lsa : dataStore.values()) {
+    for (LinkStateAdvertisement lsa : snapshot.get().values()) {
       sb.append(lsa.linkStateId).append("(").append(lsa.lsaSeqNumber).append(")").append(":\t");
       for (LinkDescription ld : lsa.links) {
         sb.append(ld.linkId).append(",").append(ld.processPortNum).append(",")
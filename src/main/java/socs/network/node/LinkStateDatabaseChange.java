@@ -0,0 +1,92 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+/**
+ * Immutable entry of the change log of a Link State Database, recording a single write.
+ */
+final class LinkStateDatabaseChange {
+
+  /**
+   * Version of the database resulting from this write.
+   */
+  private final long version;
+
+  /**
+   * Link state id (ie. simulated IP) of the LSA written.
+   */
+  private final String linkStateId;
+
+  /**
+   * Sequence number of the LSA replaced by this write (or NO_PREVIOUS_ADVERTISEMENTS_FLAG if there
+   * was none).
+   */
+  private final int previousSeqNumber;
+
+  /**
+   * Sequence number of the LSA written (or NO_PREVIOUS_ADVERTISEMENTS_FLAG if it was removed).
+   */
+  private final int newSeqNumber;
+
+  /**
+   * Instantiate LinkStateDatabaseChange with required input parameters.
+   */
+  LinkStateDatabaseChange(long version, String linkStateId, int previousSeqNumber,
+      int newSeqNumber) {
+    this.version = version;
+    this.linkStateId = linkStateId;
+    this.previousSeqNumber = previousSeqNumber;
+    this.newSeqNumber = newSeqNumber;
+  }
+
+  /**
+   * Getter of the version of the database resulting from this write.
+   */
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * Getter of the link state id of the LSA written.
+   */
+  String getLinkStateId() {
+    return linkStateId;
+  }
+
+  /**
+   * Getter of the sequence number of the LSA replaced by this write.
+   */
+  int getPreviousSeqNumber() {
+    return previousSeqNumber;
+  }
+
+  /**
+   * Getter of the sequence number of the LSA written.
+   */
+  int getNewSeqNumber() {
+    return newSeqNumber;
+  }
+
+  /**
+   * Convey string representation of Link State Database Change instance.
+   */
+  @Override
+  public String toString() {
+    return version + ":" + linkStateId + "(" + previousSeqNumber + " -> " + newSeqNumber + ")";
+  }
+}
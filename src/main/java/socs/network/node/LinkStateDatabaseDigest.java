@@ -0,0 +1,217 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.ArrayList;
+import socs.network.message.LinkDescription;
+import socs.network.message.LinkStateAdvertisement;
+
+/**
+ * Immutable Merkle tree summarizing the LSA's of a Link State Database snapshot, so that two
+ * routers may tell whether (and where) their databases differ by exchanging a few digests rather
+ * than every header.
+ *
+ * <p> Each LSA is hashed into a 64-bit checksum of its contents (but not of its age, which differs
+ * from router to router) and falls into one of a fixed number of buckets by its linkID. The digest
+ * of a bucket is the sum of the checksums of its LSA's: it is thus independent of their order, and
+ * rolled forward by a write in O(1) (subtracting the checksum of the LSA replaced and adding that
+ * of the LSA written), after which only the log2(NUM_BUCKETS) digests up to the root are redone.
+ * A purge (ie. MaxAge LSA) counts as no LSA at all, being on its way out of every database. </p>
+ *
+ * <p> Nodes are laid out as a heap: the root is node 1, the children of node i are nodes 2i and
+ * 2i + 1, and the buckets are the leaves (ie. nodes NUM_BUCKETS to 2 * NUM_BUCKETS - 1). </p>
+ */
+final class LinkStateDatabaseDigest {
+
+  /**
+   * Int constant of the number of buckets (ie. leaves) of our tree (a power of two).
+   */
+  static final int NUM_BUCKETS = 256;
+
+  /**
+   * Int constant of the index of the root node of our tree.
+   */
+  static final int ROOT_NODE = 1;
+
+  /**
+   * Long constant of the digest of an empty subtree.
+   */
+  private static final long EMPTY_DIGEST = 0L;
+
+  /**
+   * Long constant of the (odd) multiplier with which we fold values into a checksum.
+   */
+  private static final long CHECKSUM_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  /**
+   * Digest of each node of our tree (by index, with index 0 unused).
+   */
+  private final long[] nodeDigests;
+
+  /**
+   * Instantiate LinkStateDatabaseDigest from its (never to be mutated) node digests.
+   */
+  private LinkStateDatabaseDigest(long[] nodeDigests) {
+    this.nodeDigests = nodeDigests;
+  }
+
+  /**
+   * Instantiate the digest of a database holding the input LSA alone.
+   */
+  static LinkStateDatabaseDigest of(LinkStateAdvertisement initialLsa) {
+    return new LinkStateDatabaseDigest(new long[2 * NUM_BUCKETS])
+        .withWrite(initialLsa.linkStateId, null, initialLsa);
+  }
+
+  /**
+   * Derive the digest following the write of the input LSA (or null, for a removal) in place of
+   * the previous one (or null, if there was none) for the input linkID.
+   */
+  LinkStateDatabaseDigest withWrite(String linkStateId, LinkStateAdvertisement previousLsa,
+      LinkStateAdvertisement lsa) {
+    long checksumDelta = getChecksumOf(lsa) - getChecksumOf(previousLsa);
+    if (checksumDelta == 0) {
+      return this;
+    }
+    long[] newNodeDigests = nodeDigests.clone();
+    int node = NUM_BUCKETS + getBucketOf(linkStateId);
+    newNodeDigests[node] += checksumDelta;
+    for (node /= 2; node >= ROOT_NODE; node /= 2) {
+      newNodeDigests[node] = combine(newNodeDigests[2 * node], newNodeDigests[2 * node + 1]);
+    }
+    return new LinkStateDatabaseDigest(newNodeDigests);
+  }
+
+  /**
+   * Getter of the digest of the root of our tree (ie. of the whole database).
+   */
+  long getRootDigest() {
+    return nodeDigests[ROOT_NODE];
+  }
+
+  /**
+   * Getter of the digest of the input node of our tree.
+   */
+  long getNodeDigest(int node) {
+    if (!isNode(node)) {
+      throw new IllegalArgumentException("Cannot get digest of invalid ( node = " + node + " ).");
+    }
+    return nodeDigests[node];
+  }
+
+  /**
+   * Getter of those of the input nodes whose (parallel) input digests differ from ours.
+   */
+  ArrayList<Integer> getNodesDifferingFrom(int[] nodes, long[] digests) {
+    ArrayList<Integer> differingNodes = new ArrayList<>();
+    for (int digestIndex = 0; digestIndex < nodes.length; digestIndex++) {
+      if (getNodeDigest(nodes[digestIndex]) != digests[digestIndex]) {
+        differingNodes.add(nodes[digestIndex]);
+      }
+    }
+    return differingNodes;
+  }
+
+  /**
+   * Static boolean helper method to check if the input index is that of a node of our tree.
+   */
+  static boolean isNode(int node) {
+    return node >= ROOT_NODE && node < 2 * NUM_BUCKETS;
+  }
+
+  /**
+   * Static boolean helper method to check if the input node is a bucket (ie. a leaf).
+   */
+  static boolean isBucketNode(int node) {
+    return node >= NUM_BUCKETS && node < 2 * NUM_BUCKETS;
+  }
+
+  /**
+   * Static getter of the bucket (ie. leaf node) into which the LSA of the input linkID falls.
+   */
+  static int getBucketNodeOf(String linkStateId) {
+    return NUM_BUCKETS + getBucketOf(linkStateId);
+  }
+
+  /**
+   * Static helper method to get the index of the bucket into which the LSA of the input linkID
+   * falls (as per String.hashCode, which is specified, so that every router agrees on it).
+   */
+  private static int getBucketOf(String linkStateId) {
+    return (int) mix(linkStateId.hashCode()) & (NUM_BUCKETS - 1);
+  }
+
+  /**
+   * Static helper method to compute the checksum of the input LSA (or the empty digest, for no
+   * LSA or a purge), over its linkID, sequence number, shutdown flag & links.
+   */
+  static long getChecksumOf(LinkStateAdvertisement lsa) {
+    // only a copy written as a purge is skipped (ie. not one merely expiring as we speak)
+    if (lsa == null || lsa.lsaAge >= LinkStateAdvertisement.MAX_AGE) {
+      return EMPTY_DIGEST;
+    }
+    long checksum = fold(lsa.linkStateId.hashCode(), lsa.linkStateId.length());
+    checksum = fold(checksum, lsa.lsaSeqNumber);
+    checksum = fold(checksum, lsa.hasShutdown ? 1 : 0);
+    checksum = fold(checksum, lsa.links.size());
+    for (LinkDescription ld : lsa.links) {
+      checksum = fold(checksum, ld.linkId.hashCode());
+      checksum = fold(checksum, ld.processPortNum);
+      checksum = fold(checksum, ld.tosMetrics);
+    }
+    checksum = mix(checksum);
+    // keep the empty digest for no LSA at all
+    return (checksum == EMPTY_DIGEST) ? 1L : checksum;
+  }
+
+  /**
+   * Static helper method to fold the input value into the input (partial) checksum.
+   */
+  private static long fold(long checksum, long value) {
+    return (checksum + value) * CHECKSUM_MULTIPLIER;
+  }
+
+  /**
+   * Static helper method to digest an inner node from the digests of its children (such that two
+   * empty subtrees make an empty one).
+   */
+  private static long combine(long leftDigest, long rightDigest) {
+    return mix(leftDigest * CHECKSUM_MULTIPLIER + Long.rotateLeft(rightDigest, 31));
+  }
+
+  /**
+   * Static helper method to scramble the bits of the input value (as per the 64-bit finalizer of
+   * MurmurHash3, which maps 0 onto itself).
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xFF51AFD7ED558CCDL;
+    value ^= value >>> 33;
+    value *= 0xC4CEB93FE1A85B53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  /**
+   * Convey string representation of Link State Database Digest instance.
+   */
+  @Override
+  public String toString() {
+    return "LinkStateDatabaseDigest[root=" + Long.toHexString(getRootDigest()) + "]";
+  }
+}
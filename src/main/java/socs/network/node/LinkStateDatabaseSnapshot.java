@@ -0,0 +1,215 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import socs.network.message.LinkStateAdvertisement;
+
+/**
+ * Immutable snapshot of the LSA's of a Link State Database at a given version, which any number of
+ * readers may hold on to (without any lock) while writers publish newer snapshots.
+ *
+ * <p> Copying a whole map on every write would cost us O(V) per LSA flooded, so a snapshot rather
+ * shares a base map with its predecessors, and only copies the (small) map of the LSA's written
+ * over that base since. Once those outgrow the square root of our size, they are merged into a
+ * new base: a write thus costs O(sqrt(V)) amortized. Neither map is ever mutated once published,
+ * and neither are the LSA's they hold (a writer replaces an LSA by a new instance). An LSA
+ * removed from the base is written over it as null. </p>
+ *
+ * <p> Each snapshot also carries the digest of its LSA's, rolled forward from that of its
+ * predecessor by each write. </p>
+ */
+final class LinkStateDatabaseSnapshot {
+
+  /**
+   * Int constant of the number of LSA's written over a base below which they are never merged.
+   */
+  private static final int MIN_WRITES_BEFORE_MERGE = 16;
+
+  /**
+   * Base map of linkID (ie. simulated IP) => LSA, shared with our predecessors.
+   */
+  private final HashMap<String, LinkStateAdvertisement> baseLsas;
+
+  /**
+   * Map of linkID => LSA written over our base (superseding its entries, or removing them if
+   * null).
+   */
+  private final HashMap<String, LinkStateAdvertisement> writtenLsas;
+
+  /**
+   * Number of distinct linkID's in this snapshot.
+   */
+  private final int size;
+
+  /**
+   * Running count of writes which led to this snapshot.
+   */
+  private final long version;
+
+  /**
+   * Digest of the LSA's of this snapshot.
+   */
+  private final LinkStateDatabaseDigest digest;
+
+  /**
+   * Instantiate LinkStateDatabaseSnapshot from its (never to be mutated) maps.
+   */
+  private LinkStateDatabaseSnapshot(HashMap<String, LinkStateAdvertisement> baseLsas,
+      HashMap<String, LinkStateAdvertisement> writtenLsas, int size, long version,
+      LinkStateDatabaseDigest digest) {
+    this.baseLsas = baseLsas;
+    this.writtenLsas = writtenLsas;
+    this.size = size;
+    this.version = version;
+    this.digest = digest;
+  }
+
+  /**
+   * Instantiate the initial snapshot, holding the input LSA alone.
+   */
+  static LinkStateDatabaseSnapshot of(LinkStateAdvertisement initialLsa) {
+    HashMap<String, LinkStateAdvertisement> baseLsas = new HashMap<>();
+    baseLsas.put(initialLsa.linkStateId, initialLsa);
+    return new LinkStateDatabaseSnapshot(baseLsas, new HashMap<>(), 1, 0,
+        LinkStateDatabaseDigest.of(initialLsa));
+  }
+
+  /**
+   * Derive the snapshot following the write of the input LSA over this one.
+   */
+  LinkStateDatabaseSnapshot withLinkStateAdvertisement(LinkStateAdvertisement lsa) {
+    LinkStateAdvertisement previousLsa = get(lsa.linkStateId);
+    int newSize = (previousLsa == null) ? size + 1 : size;
+    return withWrite(lsa.linkStateId, previousLsa, lsa, newSize);
+  }
+
+  /**
+   * Derive the snapshot following the removal of the LSA of the input linkID from this one.
+   */
+  LinkStateDatabaseSnapshot withoutLinkStateAdvertisement(String linkStateId) {
+    LinkStateAdvertisement previousLsa = get(linkStateId);
+    if (previousLsa == null) {
+      return this;
+    }
+    return withWrite(linkStateId, previousLsa, null, size - 1);
+  }
+
+  /**
+   * Helper method to derive the snapshot following the write of the input LSA (or null, for a
+   * removal) in place of the previous one for the input linkID over this one.
+   */
+  private LinkStateDatabaseSnapshot withWrite(String linkStateId,
+      LinkStateAdvertisement previousLsa, LinkStateAdvertisement lsa, int newSize) {
+    LinkStateDatabaseDigest newDigest = digest.withWrite(linkStateId, previousLsa, lsa);
+    if (writtenLsas.size() >= Math.max(MIN_WRITES_BEFORE_MERGE, (int) Math.sqrt(newSize))) {
+      // merge our writes into a new base
+      HashMap<String, LinkStateAdvertisement> newBaseLsas = new HashMap<>(baseLsas);
+      for (Map.Entry<String, LinkStateAdvertisement> writtenEntry : writtenLsas.entrySet()) {
+        mergeWrite(newBaseLsas, writtenEntry.getKey(), writtenEntry.getValue());
+      }
+      mergeWrite(newBaseLsas, linkStateId, lsa);
+      return new LinkStateDatabaseSnapshot(newBaseLsas, new HashMap<>(), newSize, version + 1,
+          newDigest);
+    }
+    HashMap<String, LinkStateAdvertisement> newWrittenLsas = new HashMap<>(writtenLsas);
+    if (lsa == null && !baseLsas.containsKey(linkStateId)) {
+      // nothing to hide from our base
+      newWrittenLsas.remove(linkStateId);
+    } else {
+      newWrittenLsas.put(linkStateId, lsa);
+    }
+    return new LinkStateDatabaseSnapshot(baseLsas, newWrittenLsas, newSize, version + 1,
+        newDigest);
+  }
+
+  /**
+   * Static helper method to apply the write of the input LSA (or null, for a removal) for the
+   * input linkID to the input (unpublished) base.
+   */
+  private static void mergeWrite(HashMap<String, LinkStateAdvertisement> newBaseLsas,
+      String linkStateId, LinkStateAdvertisement lsa) {
+    if (lsa == null) {
+      newBaseLsas.remove(linkStateId);
+    } else {
+      newBaseLsas.put(linkStateId, lsa);
+    }
+  }
+
+  /**
+   * Getter of the LSA stored for the input linkID (or null if there is none).
+   */
+  LinkStateAdvertisement get(String linkStateId) {
+    LinkStateAdvertisement lsa = writtenLsas.get(linkStateId);
+    if (lsa != null || writtenLsas.containsKey(linkStateId)) {
+      return lsa;
+    }
+    return baseLsas.get(linkStateId);
+  }
+
+  /**
+   * Getter of every LSA of this snapshot (as a new list).
+   */
+  List<LinkStateAdvertisement> values() {
+    ArrayList<LinkStateAdvertisement> lsas = new ArrayList<>(size);
+    for (Map.Entry<String, LinkStateAdvertisement> baseEntry : baseLsas.entrySet()) {
+      if (!writtenLsas.containsKey(baseEntry.getKey())) {
+        lsas.add(baseEntry.getValue());
+      }
+    }
+    for (LinkStateAdvertisement writtenLsa : writtenLsas.values()) {
+      if (writtenLsa != null) {
+        lsas.add(writtenLsa);
+      }
+    }
+    return lsas;
+  }
+
+  /**
+   * Getter of the number of distinct linkID's in this snapshot.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Getter of the running count of writes which led to this snapshot.
+   */
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * Getter of the digest of the LSA's of this snapshot.
+   */
+  LinkStateDatabaseDigest getDigest() {
+    return digest;
+  }
+
+  /**
+   * Convey string representation of Link State Database Snapshot instance.
+   */
+  @Override
+  public String toString() {
+    return "LinkStateDatabaseSnapshot[version=" + version + ",size=" + size + ",written="
+        + writtenLsas.size() + "]";
+  }
+}
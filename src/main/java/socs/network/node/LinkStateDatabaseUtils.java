@@ -18,14 +18,10 @@
 package socs.network.node;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.Map;
-import java.util.Set;
-import socs.network.message.LinkDescription;
-import socs.network.message.LinkStateAdvertisement;
+import java.util.PriorityQueue;
 
 /**
  * Static utilities class to assist LinkStateDatabase instances.
@@ -44,218 +40,514 @@ final class LinkStateDatabaseUtils {
   }
 
   /**
-   * Private helper method to initialize state required for Dijkstra's algorithm.
+   * Static method to compute the complete tree of dijkstra's shortest paths from the source node
+   * over the input graph snapshot.
+   *
+   * <p> Distances live in primitive arrays (indexed per node) and the frontier in an indexed
+   * binary heap supporting decrease-key, for O((V + E) log V) rather than O(V^2) time. </p>
    */
-  private static void initializeDijkstraStructures(
-      LinkStateDatabase linkStateDatabase,
-      Set<String> ipAddressQueue, Map<String, Integer> dist,
-      Map<String, String> prev, String sourceNodeId) {
-
-    // we'll start by iterating over each LSA record in our database
-    Collection<LinkStateAdvertisement> lsaRecords = linkStateDatabase.getValuesVector();
-    String curNodeId;
-    for (LinkStateAdvertisement curLsa : lsaRecords) {
-      // for each LSA record, we need to also consider each of its link descriptions
-      LinkedList<LinkDescription> linkDescriptionsOfCurLsa = curLsa.links;
-      for (LinkDescription curLinkDescription : linkDescriptionsOfCurLsa) {
-        // our "node" is given by the link id of this link description
-        curNodeId = curLinkDescription.linkId;
-        // skip nodes that are either already seen or equal to the source
-        if (curNodeId.equals(sourceNodeId) || ipAddressQueue.contains(curNodeId)) {
-          continue;
-        }
-        // otherwise, we'll add this nodeId to each of our data structures
-        dist.put(curNodeId, Integer.MAX_VALUE);
-        prev.put(curNodeId, null);
-      }
-      // be sure that we've also included the lsa node itself
-      curNodeId = curLsa.linkStateId;
-      // skip nodes that are either already seen or equal to the source
-      if (curNodeId.equals(sourceNodeId) || ipAddressQueue.contains(curNodeId)) {
-        continue;
-      }
-      // otherwise, we'll add this nodeId to each of our data structures
-      dist.put(curNodeId, Integer.MAX_VALUE);
-      prev.put(curNodeId, null);
-    }
+  static ShortestPathTree computeShortestPathTree(LinkStateGraph graph, int sourceNode) {
 
-    // ** at this stage, all nodes except the source should be setup as required **
+    // first, let's initialize our data structures
+    int numNodes = graph.getNumNodes();
+    int[] dist = new int[numNodes];
+    int[] prev = new int[numNodes];
+    int[] firstHop = new int[numNodes];
+    Arrays.fill(dist, Integer.MAX_VALUE);
+    Arrays.fill(prev, ShortestPathTree.NO_PREVIOUS_NODE);
+    Arrays.fill(firstHop, ShortestPathTree.NO_PREVIOUS_NODE);
+    IndexedMinHeap nodeQueue = new IndexedMinHeap(numNodes);
 
     // let's setup our source node
-    dist.put(sourceNodeId, RouterDescription.TRANSMISSION_WEIGHT_TO_SELF);
-    prev.put(sourceNodeId, null);
-    ipAddressQueue.add(sourceNodeId);
-  }
-
-  private static List<LinkDescription> getNeighboringLinkDescriptionsOfNodeId(
-      LinkStateDatabase linkStateDatabase, String nodeId
-  ) {
-    // attempt to get the latest stored lsa of this node
-    LinkStateAdvertisement lastLsaOfCurNode =
-        linkStateDatabase.getLastLinkStateAdvertisement(nodeId);
-
-    // get the latest link description neighbors of this node
-    return lastLsaOfCurNode.links;
-  }
-
-  /**
-   * Static method to compute dijkstra's shortest path on input setup.
-   */
-  static List<String> computeShortestPathByDijkstra(
-      LinkStateDatabase linkStateDatabase,
-      Set<String> ipAddressQueue, Map<String, Integer> dist,
-      Map<String, String> prev, String sourceNodeId, String destinationNodeId) throws Exception {
-
-    // first, let's initialize our data structures
-    LinkStateDatabaseUtils.initializeDijkstraStructures(
-        linkStateDatabase, ipAddressQueue, dist, prev, sourceNodeId
-    );
+    dist[sourceNode] = RouterDescription.TRANSMISSION_WEIGHT_TO_SELF;
+    nodeQueue.insertOrDecreaseKey(sourceNode, dist[sourceNode]);
 
     // prepare some reusable variables
-    String curNodeId;
-    String neighborNodeId;
-    int weightOfLink;
+    int curNode;
+    int neighborNode;
     int weightOfAltPathToNeighbor;
 
     // and iterate over each node in our graph
-    while (!ipAddressQueue.isEmpty()) {
+    while (!nodeQueue.isEmpty()) {
 
       // get & remove the node with minimum distance in our queue
-      int minDistSoFar = Integer.MAX_VALUE;
-      String minNodeIdSoFar = (String) ipAddressQueue.toArray()[0];
-      int nodeDistance;
-      for (String nodeId : ipAddressQueue) {
-        nodeDistance = dist.get(nodeId);
-        if (nodeDistance < minDistSoFar) {
-          minDistSoFar = nodeDistance;
-          minNodeIdSoFar = nodeId;
-        }
-      }
-      // pop the minimum node from our queue
-      ipAddressQueue.remove(minNodeIdSoFar);
-      curNodeId = minNodeIdSoFar;
+      curNode = nodeQueue.pollMin();
 
-      // break iff we found the node we are looking for!
-      if (curNodeId.equals(destinationNodeId)) {
-        break;
+      // its path is now final: so is the first hop on it (ie. that of its predecessor, if any)
+      if (prev[curNode] != ShortestPathTree.NO_PREVIOUS_NODE) {
+        firstHop[curNode] = (prev[curNode] == sourceNode) ? curNode : firstHop[prev[curNode]];
       }
 
-      // otherwise, get the latest link description neighbors of this node
-      List<LinkDescription> neighborLinkDescriptions =
-          getNeighboringLinkDescriptionsOfNodeId(linkStateDatabase, curNodeId);
-
-      // and, for each neighbor, update the state of our shortest paths
-      for (LinkDescription neighborLinkDescription : neighborLinkDescriptions) {
-        // caching the link description fields
-        neighborNodeId = neighborLinkDescription.linkId;
-        weightOfLink = neighborLinkDescription.tosMetrics;
+      // for each neighbor, update the state of our shortest paths
+      for (int edge = graph.getFirstEdge(curNode); edge < graph.getEndEdge(curNode); edge++) {
+        neighborNode = graph.getEdgeTarget(edge);
         // from which we can compute a path to this node
-        weightOfAltPathToNeighbor = dist.get(curNodeId) + weightOfLink;
+        weightOfAltPathToNeighbor = dist[curNode] + graph.getEdgeWeight(edge);
         // comparing this path with the best path we've found so far
-        if (weightOfAltPathToNeighbor < dist.get(neighborNodeId)) {
+        if (weightOfAltPathToNeighbor < dist[neighborNode]) {
           // and updating our shortest path if we found a better alternative
-          dist.put(neighborNodeId, weightOfAltPathToNeighbor);
-          prev.put(neighborNodeId, curNodeId);
-          // add the neighbor to our queue if not yet seen
-          if (!ipAddressQueue.contains(neighborNodeId)) {
-            ipAddressQueue.add(neighborNodeId);
+          dist[neighborNode] = weightOfAltPathToNeighbor;
+          prev[neighborNode] = curNode;
+          // queueing the neighbor (or moving it up the queue if already there)
+          nodeQueue.insertOrDecreaseKey(neighborNode, weightOfAltPathToNeighbor);
+        }
+      }
+    }
+
+    return new ShortestPathTree(graph, sourceNode, dist, prev, firstHop);
+  }
+
+  /**
+   * Static method to repair the input shortest-path tree (computed over a previous graph) into
+   * that of the input graph, derived from the previous one by changing the edges of the input
+   * nodes only.
+   *
+   * <p> Derived from the dynamic algorithm of Ramalingam & Reps: only the subtrees hanging off a
+   * tree edge which was dropped (or made heavier) lose their distances, which are then settled
+   * again, from their incoming edges, by a dijkstra's run that also pushes any improvement brought
+   * by the new (or lighter) edges. Nodes whose paths are left alone are never visited. </p>
+   *
+   * <p> When no changed LSA alters the transit topology (see LinkStateChange), the tree's internal
+   * structure stands as is: only the routes to the leaves behind the changed links are patched,
+   * each from its own incoming edges. </p>
+   */
+  static ShortestPathTree updateShortestPathTree(ShortestPathTree previousTree,
+      LinkStateGraph graph, int[] changedNodes) {
+
+    // first, carry our previous results over (to the ids they keep in the derived graph)
+    LinkStateGraph previousGraph = previousTree.getGraph();
+    int sourceNode = previousTree.getSourceNode();
+    int numPreviousNodes = previousGraph.getNumNodes();
+    int numNodes = graph.getNumNodes();
+    int[] dist = new int[numNodes];
+    int[] prev = new int[numNodes];
+    int[] firstHop = new int[numNodes];
+    for (int node = 0; node < numPreviousNodes; node++) {
+      dist[node] = previousTree.getDistance(node);
+      prev[node] = previousTree.getPreviousNode(node);
+      firstHop[node] = previousTree.getFirstHop(node);
+    }
+    Arrays.fill(dist, numPreviousNodes, numNodes, Integer.MAX_VALUE);
+    Arrays.fill(prev, numPreviousNodes, numNodes, ShortestPathTree.NO_PREVIOUS_NODE);
+    Arrays.fill(firstHop, numPreviousNodes, numNodes, ShortestPathTree.NO_PREVIOUS_NODE);
+
+    // unless a changed LSA alters the transit topology, only the routes to leaves need patching
+    LinkStateChange change = LinkStateChange.NONE;
+    for (int changedNode : changedNodes) {
+      change = max(change, classifyChange(previousGraph, graph, changedNode));
+    }
+    if (change != LinkStateChange.TOPOLOGY) {
+      for (int changedNode : changedNodes) {
+        patchRouteToLeaf(graph, sourceNode, changedNode, dist, prev, firstHop);
+        if (changedNode < numPreviousNodes) {
+          for (int edge = previousGraph.getFirstEdge(changedNode);
+              edge < previousGraph.getEndEdge(changedNode); edge++) {
+            patchRouteToLeaf(graph, sourceNode, previousGraph.getEdgeTarget(edge), dist, prev,
+                firstHop);
           }
         }
+        for (int edge = graph.getFirstEdge(changedNode); edge < graph.getEndEdge(changedNode);
+            edge++) {
+          patchRouteToLeaf(graph, sourceNode, graph.getEdgeTarget(edge), dist, prev, firstHop);
+        }
       }
+      return new ShortestPathTree(graph, sourceNode, dist, prev, firstHop);
     }
 
-    // we'll use an arrayList to guarantee O(1) prepend
-    List<String> shortestPath = new ArrayList<String>();
-
-    // working our way back from the destination
-    curNodeId = destinationNodeId;
-    String prevNodeId = prev.get(curNodeId);
-    // we'll iterate until there are no predecessor nodes
-    while (prevNodeId != null) {
-      // prepending each new node at the start of our path
-      shortestPath.add(0, curNodeId);
-      // setting its predecessor as our next node
-      curNodeId = prevNodeId;
-      // and updating our predecessor node accordingly
-      prevNodeId = prev.get(curNodeId);
+    // otherwise, invalidate the subtree below any tree edge of a changed node which no longer holds
+    int[] affectedNodes = new int[changedNodes.length];
+    int numAffectedNodes = 0;
+    for (int changedNode : changedNodes) {
+      if (changedNode >= numPreviousNodes || !previousTree.isReachable(changedNode)) {
+        continue;
+      }
+      for (int edge = previousGraph.getFirstEdge(changedNode);
+          edge < previousGraph.getEndEdge(changedNode); edge++) {
+        int childNode = previousGraph.getEdgeTarget(edge);
+        if (childNode == changedNode || previousTree.getPreviousNode(childNode) != changedNode
+            || dist[childNode] == Integer.MAX_VALUE
+            || hasEdgeOfWeight(graph, changedNode, childNode,
+                previousTree.getDistance(childNode) - previousTree.getDistance(changedNode))) {
+          continue;
+        }
+        // walking the subtree (through the tree edges of the previous graph)
+        int firstAffectedNode = numAffectedNodes;
+        affectedNodes = appendNode(affectedNodes, numAffectedNodes++, childNode);
+        dist[childNode] = Integer.MAX_VALUE;
+        for (int affectedIndex = firstAffectedNode; affectedIndex < numAffectedNodes;
+            affectedIndex++) {
+          int affectedNode = affectedNodes[affectedIndex];
+          for (int subtreeEdge = previousGraph.getFirstEdge(affectedNode);
+              subtreeEdge < previousGraph.getEndEdge(affectedNode); subtreeEdge++) {
+            int descendantNode = previousGraph.getEdgeTarget(subtreeEdge);
+            if (previousTree.getPreviousNode(descendantNode) == affectedNode
+                && dist[descendantNode] != Integer.MAX_VALUE) {
+              affectedNodes = appendNode(affectedNodes, numAffectedNodes++, descendantNode);
+              dist[descendantNode] = Integer.MAX_VALUE;
+            }
+          }
+        }
+      }
+    }
+    IndexedMinHeap nodeQueue = new IndexedMinHeap(numNodes);
+    for (int affectedIndex = 0; affectedIndex < numAffectedNodes; affectedIndex++) {
+      int affectedNode = affectedNodes[affectedIndex];
+      prev[affectedNode] = ShortestPathTree.NO_PREVIOUS_NODE;
+      firstHop[affectedNode] = ShortestPathTree.NO_PREVIOUS_NODE;
+    }
+
+    // each invalidated node is queued with its best distance through a node left untouched
+    for (int affectedIndex = 0; affectedIndex < numAffectedNodes; affectedIndex++) {
+      int affectedNode = affectedNodes[affectedIndex];
+      for (int inEdge = graph.getFirstInEdge(affectedNode);
+          inEdge < graph.getEndInEdge(affectedNode); inEdge++) {
+        int neighborNode = graph.getInEdgeSource(inEdge);
+        if (dist[neighborNode] == Integer.MAX_VALUE) {
+          continue;
+        }
+        int weightOfAltPath = dist[neighborNode] + graph.getInEdgeWeight(inEdge);
+        if (weightOfAltPath < dist[affectedNode]) {
+          dist[affectedNode] = weightOfAltPath;
+          prev[affectedNode] = neighborNode;
+          nodeQueue.insertOrDecreaseKey(affectedNode, weightOfAltPath);
+        }
+      }
     }
 
-    // the last node we encountered should definitely be the source!
-    if (!curNodeId.equals(sourceNodeId)) {
-      throw new Exception(
-          "Dijikstra's algorithm failed: \n"
-              + "(path root id = '" + curNodeId + "') does not equal "
-              + "expected (source IP address = '" + sourceNodeId + "')."
-      );
+    // as is any node to which the edges of a (still reachable) changed node offer a better path
+    for (int changedNode : changedNodes) {
+      if (dist[changedNode] == Integer.MAX_VALUE || nodeQueue.contains(changedNode)) {
+        continue;
+      }
+      for (int edge = graph.getFirstEdge(changedNode); edge < graph.getEndEdge(changedNode);
+          edge++) {
+        int neighborNode = graph.getEdgeTarget(edge);
+        int weightOfAltPath = dist[changedNode] + graph.getEdgeWeight(edge);
+        if (weightOfAltPath < dist[neighborNode]) {
+          dist[neighborNode] = weightOfAltPath;
+          prev[neighborNode] = changedNode;
+          nodeQueue.insertOrDecreaseKey(neighborNode, weightOfAltPath);
+        }
+      }
     }
 
-    // surviving the above, prepend the source node to our path
-    shortestPath.add(0, curNodeId);
+    // finally, settle the queued nodes (and whichever nodes they improve) as dijkstra's would
+    while (!nodeQueue.isEmpty()) {
+      int curNode = nodeQueue.pollMin();
+      firstHop[curNode] = (prev[curNode] == sourceNode) ? curNode : firstHop[prev[curNode]];
+      for (int edge = graph.getFirstEdge(curNode); edge < graph.getEndEdge(curNode); edge++) {
+        int neighborNode = graph.getEdgeTarget(edge);
+        int weightOfAltPath = dist[curNode] + graph.getEdgeWeight(edge);
+        if (weightOfAltPath < dist[neighborNode]) {
+          dist[neighborNode] = weightOfAltPath;
+          prev[neighborNode] = curNode;
+          nodeQueue.insertOrDecreaseKey(neighborNode, weightOfAltPath);
+        }
+      }
+    }
 
-    // and return this path
-    return shortestPath;
+    return new ShortestPathTree(graph, sourceNode, dist, prev, firstHop);
   }
 
   /**
-   * Static method to format an input path to the conventional string format.
+   * Static method to compute the (up to) k shortest loopless paths from the root of the input tree
+   * to the destination node, by order of increasing cost.
+   *
+   * <p> Derived from Yen's algorithm: the (i+1)-th path is the cheapest of the candidates obtained
+   * by branching off each node (the spur) of the i-th one, following its prefix (the root) then
+   * the shortest path from the spur which avoids both the nodes of the root and the links through
+   * which the paths found so far leave that same root. </p>
    */
-  static String getFormattedStringFromRouterIpPath(
-      LinkStateDatabase linkStateDatabase, List<String> path
-  ) {
+  static List<int[]> computeKShortestPaths(ShortestPathTree shortestPathTree, int destinationNode,
+      int k) {
+    LinkStateGraph graph = shortestPathTree.getGraph();
+    List<int[]> shortestPaths = new ArrayList<>();
+    int[] firstShortestPath = shortestPathTree.getPathTo(destinationNode);
+    if (firstShortestPath == null) {
+      return shortestPaths;
+    }
+    shortestPaths.add(firstShortestPath);
+
+    // candidates are ordered by cost (then by their first differing node, for a stable output)
+    PriorityQueue<int[]> candidatePaths = new PriorityQueue<>((path, otherPath) -> {
+      int comparison = Long.compare(getCostOfPath(graph, path), getCostOfPath(graph, otherPath));
+      for (int pathIndex = 0; comparison == 0 && pathIndex < path.length
+          && pathIndex < otherPath.length; pathIndex++) {
+        comparison = Integer.compare(path[pathIndex], otherPath[pathIndex]);
+      }
+      return (comparison != 0) ? comparison : Integer.compare(path.length, otherPath.length);
+    });
+    HashSet<String> knownPaths = new HashSet<>();
+    knownPaths.add(Arrays.toString(firstShortestPath));
+
+    boolean[] bannedNodes = new boolean[graph.getNumNodes()];
+    HashSet<Long> bannedLinks = new HashSet<>();
+    while (shortestPaths.size() < k) {
+      int[] lastShortestPath = shortestPaths.get(shortestPaths.size() - 1);
+      for (int spurIndex = 0; spurIndex + 1 < lastShortestPath.length; spurIndex++) {
+        int spurNode = lastShortestPath[spurIndex];
+
+        // ban the links leaving our root along any path found so far
+        bannedLinks.clear();
+        for (int[] shortestPath : shortestPaths) {
+          if (shortestPath.length > spurIndex + 1
+              && hasSamePrefix(shortestPath, lastShortestPath, spurIndex + 1)) {
+            bannedLinks.add(getKeyOfLink(shortestPath[spurIndex], shortestPath[spurIndex + 1]));
+          }
+        }
+        // as well as the nodes of our root (but the spur), so that our paths stay loopless
+        for (int rootIndex = 0; rootIndex < spurIndex; rootIndex++) {
+          bannedNodes[lastShortestPath[rootIndex]] = true;
+        }
+        int[] spurPath = computeShortestPathAvoiding(
+            graph, spurNode, destinationNode, bannedNodes, bannedLinks);
+        for (int rootIndex = 0; rootIndex < spurIndex; rootIndex++) {
+          bannedNodes[lastShortestPath[rootIndex]] = false;
+        }
 
-    // ready a list iterator to iterate over the nodes in our path
-    ListIterator<String> pathIterator = path.listIterator();
+        if (spurPath != null) {
+          int[] candidatePath = Arrays.copyOf(lastShortestPath, spurIndex + spurPath.length);
+          System.arraycopy(spurPath, 0, candidatePath, spurIndex, spurPath.length);
+          if (knownPaths.add(Arrays.toString(candidatePath))) {
+            candidatePaths.add(candidatePath);
+          }
+        }
+      }
+      if (candidatePaths.isEmpty()) {
+        // there are fewer than k loopless paths to our destination
+        break;
+      }
+      shortestPaths.add(candidatePaths.poll());
+    }
+    return shortestPaths;
+  }
 
-    // ready a string builder to efficiently construct our path string
-    StringBuilder sb = new StringBuilder();
+  /**
+   * Static method to compute the cost of the input path (over the cheapest link between each pair
+   * of consecutive nodes).
+   */
+  static long getCostOfPath(LinkStateGraph graph, int[] path) {
+    long costOfPath = 0;
+    for (int pathIndex = 0; pathIndex + 1 < path.length; pathIndex++) {
+      int weightOfCheapestLink = Integer.MAX_VALUE;
+      for (int edge = graph.getFirstEdge(path[pathIndex]);
+          edge < graph.getEndEdge(path[pathIndex]); edge++) {
+        if (graph.getEdgeTarget(edge) == path[pathIndex + 1]) {
+          weightOfCheapestLink = Math.min(weightOfCheapestLink, graph.getEdgeWeight(edge));
+        }
+      }
+      costOfPath += weightOfCheapestLink;
+    }
+    return costOfPath;
+  }
 
-    // prepare some reusable variables
-    String curNodeId;
-    String nextNodeId;
-    String currentEdgeWeightString;
-    int weightOfCurrentEdge = Integer.MIN_VALUE;
+  /**
+   * Helper method to compute dijkstra's shortest path from one node to another, avoiding the input
+   * nodes & links (or null if there is no such path).
+   */
+  private static int[] computeShortestPathAvoiding(LinkStateGraph graph, int sourceNode,
+      int destinationNode, boolean[] bannedNodes, HashSet<Long> bannedLinks) {
+    int numNodes = graph.getNumNodes();
+    int[] dist = new int[numNodes];
+    int[] prev = new int[numNodes];
+    Arrays.fill(dist, Integer.MAX_VALUE);
+    Arrays.fill(prev, ShortestPathTree.NO_PREVIOUS_NODE);
+    IndexedMinHeap nodeQueue = new IndexedMinHeap(numNodes);
+    dist[sourceNode] = RouterDescription.TRANSMISSION_WEIGHT_TO_SELF;
+    nodeQueue.insertOrDecreaseKey(sourceNode, dist[sourceNode]);
+    while (!nodeQueue.isEmpty()) {
+      int curNode = nodeQueue.pollMin();
+      if (curNode == destinationNode) {
+        break;
+      }
+      for (int edge = graph.getFirstEdge(curNode); edge < graph.getEndEdge(curNode); edge++) {
+        int neighborNode = graph.getEdgeTarget(edge);
+        if (bannedNodes[neighborNode] || (!bannedLinks.isEmpty()
+            && bannedLinks.contains(getKeyOfLink(curNode, neighborNode)))) {
+          continue;
+        }
+        int weightOfAltPathToNeighbor = dist[curNode] + graph.getEdgeWeight(edge);
+        if (weightOfAltPathToNeighbor < dist[neighborNode]) {
+          dist[neighborNode] = weightOfAltPathToNeighbor;
+          prev[neighborNode] = curNode;
+          nodeQueue.insertOrDecreaseKey(neighborNode, weightOfAltPathToNeighbor);
+        }
+      }
+    }
+    if (dist[destinationNode] == Integer.MAX_VALUE) {
+      return null;
+    }
+    // working our way back from the destination, we count then fill in our path
+    int pathLength = 1;
+    for (int curNode = destinationNode; curNode != sourceNode; curNode = prev[curNode]) {
+      pathLength++;
+    }
+    int[] path = new int[pathLength];
+    int curNode = destinationNode;
+    for (int pathIndex = pathLength - 1; pathIndex >= 0; pathIndex--) {
+      path[pathIndex] = curNode;
+      curNode = prev[curNode];
+    }
+    return path;
+  }
 
-    // and iterate over each node in our path
-    while (pathIterator.hasNext()) {
+  /**
+   * Boolean helper method to check if two paths share the same first nodes.
+   */
+  private static boolean hasSamePrefix(int[] path, int[] otherPath, int prefixLength) {
+    for (int pathIndex = 0; pathIndex < prefixLength; pathIndex++) {
+      if (path[pathIndex] != otherPath[pathIndex]) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-      // taking one node at a time
-      curNodeId = pathIterator.next();
+  /**
+   * Helper method to key the link from one node to another.
+   */
+  private static long getKeyOfLink(int fromNode, int toNode) {
+    return ((long) fromNode << Integer.SIZE) | (toNode & 0xFFFFFFFFL);
+  }
 
-      // break iff we've reached the destination
-      if (!pathIterator.hasNext()) {
-        // appending the destination node to our path string
-        sb.append(curNodeId);
-        break;
+  /**
+   * Static method to classify the effect on our shortest-path tree of the change of the input
+   * node's links from one graph to the other (derived from it).
+   */
+  static LinkStateChange classifyChange(LinkStateGraph previousGraph, LinkStateGraph graph,
+      int changedNode) {
+    LinkStateChange change = LinkStateChange.NONE;
+    // each previous link which is gone (or was reweighted)
+    if (changedNode < previousGraph.getNumNodes()) {
+      for (int edge = previousGraph.getFirstEdge(changedNode);
+          edge < previousGraph.getEndEdge(changedNode); edge++) {
+        int targetNode = previousGraph.getEdgeTarget(edge);
+        if (!hasEdgeOfWeight(graph, changedNode, targetNode, previousGraph.getEdgeWeight(edge))) {
+          change = max(change, classifyChangedLink(previousGraph, graph, changedNode, targetNode));
+        }
+      }
+    }
+    // and each current link which is new (or was reweighted)
+    for (int edge = graph.getFirstEdge(changedNode); edge < graph.getEndEdge(changedNode);
+        edge++) {
+      int targetNode = graph.getEdgeTarget(edge);
+      if (changedNode >= previousGraph.getNumNodes()
+          || !hasEdgeOfWeight(previousGraph, changedNode, targetNode, graph.getEdgeWeight(edge))) {
+        change = max(change, classifyChangedLink(previousGraph, graph, changedNode, targetNode));
       }
+    }
+    return change;
+  }
 
-      // otherwise, we'll get the latest link description neighbors of this node
-      List<LinkDescription> neighborLinkDescriptions =
-          getNeighboringLinkDescriptionsOfNodeId(linkStateDatabase, curNodeId);
+  /**
+   * Helper method to classify the effect of a single changed link on our shortest-path tree.
+   */
+  private static LinkStateChange classifyChangedLink(LinkStateGraph previousGraph,
+      LinkStateGraph graph, int changedNode, int targetNode) {
+    if (targetNode == changedNode
+        || (isLeaf(previousGraph, targetNode) && isLeaf(graph, targetNode))) {
+      return LinkStateChange.STUB;
+    }
+    return LinkStateChange.TOPOLOGY;
+  }
 
-      // get the next node temporarily to seek it in the current node's neighbors
-      nextNodeId = pathIterator.next();
+  /**
+   * Boolean helper method to check if the input node is a leaf of the input graph (ie. it has no
+   * link other than its sentinel, so that no path may go through it).
+   */
+  private static boolean isLeaf(LinkStateGraph graph, int node) {
+    if (node >= graph.getNumNodes()) {
+      return true;
+    }
+    for (int edge = graph.getFirstEdge(node); edge < graph.getEndEdge(node); edge++) {
+      if (graph.getEdgeTarget(edge) != node) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-      // iterating over each neighboring link descriptions to seek the next node
-      for (LinkDescription ld : neighborLinkDescriptions) {
-        // breaking iff we find the next node
-        if (ld.linkId.equals(nextNodeId)) {
-          // and setting our edge weight when we do
-          weightOfCurrentEdge = ld.tosMetrics;
-          break;
-        }
+  /**
+   * Helper method to recompute the route to the input node (if it is a leaf other than the
+   * source) from its incoming edges, whose sources' routes are assumed final.
+   */
+  private static void patchRouteToLeaf(LinkStateGraph graph, int sourceNode, int leafNode,
+      int[] dist, int[] prev, int[] firstHop) {
+    if (leafNode == sourceNode || !isLeaf(graph, leafNode)) {
+      return;
+    }
+    dist[leafNode] = Integer.MAX_VALUE;
+    prev[leafNode] = ShortestPathTree.NO_PREVIOUS_NODE;
+    firstHop[leafNode] = ShortestPathTree.NO_PREVIOUS_NODE;
+    for (int inEdge = graph.getFirstInEdge(leafNode); inEdge < graph.getEndInEdge(leafNode);
+        inEdge++) {
+      int neighborNode = graph.getInEdgeSource(inEdge);
+      if (neighborNode == leafNode || dist[neighborNode] == Integer.MAX_VALUE) {
+        continue;
+      }
+      int weightOfAltPath = dist[neighborNode] + graph.getInEdgeWeight(inEdge);
+      if (weightOfAltPath < dist[leafNode]) {
+        dist[leafNode] = weightOfAltPath;
+        prev[leafNode] = neighborNode;
+        firstHop[leafNode] = (neighborNode == sourceNode) ? leafNode : firstHop[neighborNode];
       }
+    }
+  }
 
-      // from which, we can format an edge weight string
-      currentEdgeWeightString = "(" + weightOfCurrentEdge + ") ";
+  /**
+   * Helper method to return the more disruptive of two changes.
+   */
+  private static LinkStateChange max(LinkStateChange change, LinkStateChange otherChange) {
+    return (otherChange.compareTo(change) > 0) ? otherChange : change;
+  }
 
-      // and append this information to the path string we are building
-      sb.append(curNodeId).append(ARROW_STRING).append(currentEdgeWeightString);
+  /**
+   * Boolean helper method to check if the input graph has an edge of the given weight from one
+   * node to another.
+   */
+  private static boolean hasEdgeOfWeight(LinkStateGraph graph, int fromNode, int toNode,
+      int weight) {
+    for (int edge = graph.getFirstEdge(fromNode); edge < graph.getEndEdge(fromNode); edge++) {
+      if (graph.getEdgeTarget(edge) == toNode && graph.getEdgeWeight(edge) == weight) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-      // ** ESSENTIAL STATE UPDATE **
-      // importantly, resetting the iterator state
-      // so our neighbor is handled next
-      pathIterator.previous();
+  /**
+   * Helper method to append a node to the input array (growing it, if full).
+   */
+  private static int[] appendNode(int[] nodes, int numNodes, int node) {
+    if (numNodes == nodes.length) {
+      nodes = Arrays.copyOf(nodes, Math.max(2 * nodes.length, 1));
     }
+    nodes[numNodes] = node;
+    return nodes;
+  }
+
+  /**
+   * Static method to format an input path (of nodes of the input graph) to the conventional
+   * string format.
+   */
+  static String getFormattedStringFromRouterPath(LinkStateGraph graph, int[] path) {
+
+    // ready a string builder to efficiently construct our path string
+    StringBuilder sb = new StringBuilder();
+
+    // iterate over each edge of our path
+    for (int pathIndex = 0; pathIndex + 1 < path.length; pathIndex++) {
+      // formatting its weight as an edge weight string
+      String currentEdgeWeightString =
+          "(" + graph.getWeightOfEdge(path[pathIndex], path[pathIndex + 1]) + ") ";
+
+      // and appending this information to the path string we are building
+      sb.append(graph.getNodeId(path[pathIndex])).append(ARROW_STRING)
+          .append(currentEdgeWeightString);
+    }
+
+    // appending the destination node to our path string
+    sb.append(graph.getNodeId(path[path.length - 1]));
 
     // and, finally, returning the path string we've constructed
     return sb.toString();
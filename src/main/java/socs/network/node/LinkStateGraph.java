@@ -0,0 +1,459 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import socs.network.message.LinkDescription;
+import socs.network.message.LinkStateAdvertisement;
+
+/**
+ * Immutable snapshot of the graph described by a Link State Database, on which path algorithms
+ * run (without locking the database or hashing a single IP string per edge).
+ *
+ * <p> Each node (ie. router) is given a dense int id, and the links advertised by its LSA are laid
+ * out in compressed sparse row form: the edges of node u are those from edgeOffsets[u] (inclusive)
+ * to edgeOffsets[u + 1] (exclusive) of the edgeTargets & edgeWeights arrays, in the order of the
+ * LSA's links. Nodes only known through the links of others have no edges of their own. The same
+ * edges are also laid out by target (inEdgeOffsets, inEdgeSources & inEdgeWeights), so that the
+ * incoming edges of a node may be walked without a scan of the whole graph. </p>
+ *
+ * <p> A graph may be derived from a previous one by replacing the rows of the few LSAs which have
+ * changed: existing nodes then keep their ids (new ones are appended), which is what lets the
+ * shortest-path tree computed over the previous graph be repaired rather than recomputed. </p>
+ */
+final class LinkStateGraph {
+
+  /**
+   * Int constant flagging an IP address absent from the graph.
+   */
+  static final int NO_NODE = -1;
+
+  /**
+   * Simulated IP address of each node (by id).
+   */
+  private final String[] nodeIds;
+
+  /**
+   * Id of each node (by simulated IP address).
+   */
+  private final HashMap<String, Integer> indexOfNodeId;
+
+  /**
+   * Flags of the nodes which advertised an LSA of their own (by id).
+   */
+  private final boolean[] hasLsa;
+
+  /**
+   * Flags of the nodes whose LSA reports them as shutdown (by id).
+   */
+  private final boolean[] hasShutdown;
+
+  /**
+   * Offset of the first edge of each node (by id, with a final entry for the total edge count).
+   */
+  private final int[] edgeOffsets;
+
+  /**
+   * Target node id of each edge.
+   */
+  private final int[] edgeTargets;
+
+  /**
+   * Weight of each edge.
+   */
+  private final short[] edgeWeights;
+
+  /**
+   * Offset of the first incoming edge of each node (by id, with a final entry for the total edge
+   * count).
+   */
+  private final int[] inEdgeOffsets;
+
+  /**
+   * Source node id of each incoming edge.
+   */
+  private final int[] inEdgeSources;
+
+  /**
+   * Weight of each incoming edge.
+   */
+  private final short[] inEdgeWeights;
+
+  /**
+   * Private constructor (instances are built from LSAs).
+   */
+  private LinkStateGraph(String[] nodeIds, HashMap<String, Integer> indexOfNodeId,
+      boolean[] hasLsa, boolean[] hasShutdown, int[] edgeOffsets, int[] edgeTargets,
+      short[] edgeWeights, int[] inEdgeOffsets, int[] inEdgeSources, short[] inEdgeWeights) {
+    this.nodeIds = nodeIds;
+    this.indexOfNodeId = indexOfNodeId;
+    this.hasLsa = hasLsa;
+    this.hasShutdown = hasShutdown;
+    this.edgeOffsets = edgeOffsets;
+    this.edgeTargets = edgeTargets;
+    this.edgeWeights = edgeWeights;
+    this.inEdgeOffsets = inEdgeOffsets;
+    this.inEdgeSources = inEdgeSources;
+    this.inEdgeWeights = inEdgeWeights;
+  }
+
+  /**
+   * Static method to build the graph described by the input LSAs (one per router).
+   */
+  static LinkStateGraph fromLinkStateAdvertisements(Collection<LinkStateAdvertisement> lsas) {
+    // first, give an id to every router advertising an LSA (so that they come first)
+    HashMap<String, Integer> indexOfNodeId = new HashMap<>();
+    LinkStateAdvertisement[] lsaOfNode = lsas.toArray(new LinkStateAdvertisement[0]);
+    int numEdges = 0;
+    for (int node = 0; node < lsaOfNode.length; node++) {
+      indexOfNodeId.put(lsaOfNode[node].linkStateId, node);
+      numEdges += lsaOfNode[node].links.size();
+    }
+
+    // then, to any router only known through the links of others
+    int numNodes = lsaOfNode.length;
+    for (LinkStateAdvertisement lsa : lsaOfNode) {
+      for (LinkDescription ld : lsa.links) {
+        if (indexOfNodeId.putIfAbsent(ld.linkId, numNodes) == null) {
+          numNodes++;
+        }
+      }
+    }
+    String[] nodeIds = new String[numNodes];
+    for (Map.Entry<String, Integer> entry : indexOfNodeId.entrySet()) {
+      nodeIds[entry.getValue()] = entry.getKey();
+    }
+
+    // lay out the edges of each node in a row of their own
+    boolean[] hasLsa = new boolean[numNodes];
+    boolean[] hasShutdown = new boolean[numNodes];
+    int[] edgeOffsets = new int[numNodes + 1];
+    int[] edgeTargets = new int[numEdges];
+    short[] edgeWeights = new short[numEdges];
+    int edge = 0;
+    for (int node = 0; node < lsaOfNode.length; node++) {
+      hasLsa[node] = true;
+      hasShutdown[node] = lsaOfNode[node].hasShutdown;
+      edgeOffsets[node] = edge;
+      for (LinkDescription ld : lsaOfNode[node].links) {
+        edgeTargets[edge] = indexOfNodeId.get(ld.linkId);
+        edgeWeights[edge] = ld.tosMetrics;
+        edge++;
+      }
+    }
+    for (int node = lsaOfNode.length; node <= numNodes; node++) {
+      edgeOffsets[node] = edge;
+    }
+
+    // count the incoming edges of each node (shifted by one, to then accumulate offsets in place)
+    int[] inEdgeOffsets = new int[numNodes + 1];
+    for (edge = 0; edge < numEdges; edge++) {
+      inEdgeOffsets[edgeTargets[edge] + 1]++;
+    }
+    for (int node = 0; node < numNodes; node++) {
+      inEdgeOffsets[node + 1] += inEdgeOffsets[node];
+    }
+    // and finally, lay out each edge in the row of its target
+    int[] inEdgeSources = new int[numEdges];
+    short[] inEdgeWeights = new short[numEdges];
+    int[] nextInEdge = Arrays.copyOf(inEdgeOffsets, numNodes);
+    for (int node = 0; node < numNodes; node++) {
+      for (edge = edgeOffsets[node]; edge < edgeOffsets[node + 1]; edge++) {
+        int inEdge = nextInEdge[edgeTargets[edge]]++;
+        inEdgeSources[inEdge] = node;
+        inEdgeWeights[inEdge] = edgeWeights[edge];
+      }
+    }
+    return new LinkStateGraph(nodeIds, indexOfNodeId, hasLsa, hasShutdown, edgeOffsets,
+        edgeTargets, edgeWeights, inEdgeOffsets, inEdgeSources, inEdgeWeights);
+  }
+
+  /**
+   * Derive the graph resulting from replacing the LSAs of the input routers (mapped to null if
+   * their LSA was dropped) in this graph, keeping the id of every node of this graph.
+   *
+   * <p> Runs of rows left untouched are block-copied over, so that only the rows of the changed
+   * nodes (and the incoming rows of their former & current neighbors) are actually rebuilt. </p>
+   */
+  LinkStateGraph withLinkStateAdvertisements(Map<String, LinkStateAdvertisement> changedLsas) {
+    // first, append any router we have not seen before (only copying our ids if there is one)
+    String[] derivedNodeIds = nodeIds;
+    HashMap<String, Integer> derivedIndexOfNodeId = indexOfNodeId;
+    for (Map.Entry<String, LinkStateAdvertisement> entry : changedLsas.entrySet()) {
+      derivedIndexOfNodeId = withNode(entry.getKey(), derivedIndexOfNodeId);
+      if (entry.getValue() != null) {
+        for (LinkDescription ld : entry.getValue().links) {
+          derivedIndexOfNodeId = withNode(ld.linkId, derivedIndexOfNodeId);
+        }
+      }
+    }
+    int numPreviousNodes = nodeIds.length;
+    int numNodes = derivedIndexOfNodeId.size();
+    if (numNodes != numPreviousNodes) {
+      derivedNodeIds = Arrays.copyOf(nodeIds, numNodes);
+      for (Map.Entry<String, Integer> entry : derivedIndexOfNodeId.entrySet()) {
+        if (entry.getValue() >= numPreviousNodes) {
+          derivedNodeIds[entry.getValue()] = entry.getKey();
+        }
+      }
+    }
+
+    // then, flag each changed node (along with the nodes whose incoming edges it affects)
+    int[] changedNodes = new int[changedLsas.size()];
+    LinkStateAdvertisement[] changedLsaOfNode = new LinkStateAdvertisement[numNodes];
+    boolean[] isChangedNode = new boolean[numNodes];
+    boolean[] isChangedInRow = new boolean[numNodes];
+    boolean[] derivedHasLsa = Arrays.copyOf(hasLsa, numNodes);
+    boolean[] derivedHasShutdown = Arrays.copyOf(hasShutdown, numNodes);
+    int changedIndex = 0;
+    for (Map.Entry<String, LinkStateAdvertisement> entry : changedLsas.entrySet()) {
+      int node = derivedIndexOfNodeId.get(entry.getKey());
+      changedNodes[changedIndex++] = node;
+      changedLsaOfNode[node] = entry.getValue();
+      isChangedNode[node] = true;
+      derivedHasLsa[node] = entry.getValue() != null;
+      derivedHasShutdown[node] = entry.getValue() != null && entry.getValue().hasShutdown;
+      if (node < numPreviousNodes) {
+        for (int edge = edgeOffsets[node]; edge < edgeOffsets[node + 1]; edge++) {
+          isChangedInRow[edgeTargets[edge]] = true;
+        }
+      }
+    }
+
+    // lay out our rows again (copying over those which have not changed)
+    int[] derivedEdgeOffsets = new int[numNodes + 1];
+    for (int node = 0; node < numNodes; node++) {
+      int rowLength;
+      if (isChangedNode[node]) {
+        rowLength = (changedLsaOfNode[node] == null) ? 0 : changedLsaOfNode[node].links.size();
+      } else {
+        rowLength = (node < numPreviousNodes) ? edgeOffsets[node + 1] - edgeOffsets[node] : 0;
+      }
+      derivedEdgeOffsets[node + 1] = derivedEdgeOffsets[node] + rowLength;
+    }
+    int numEdges = derivedEdgeOffsets[numNodes];
+    int[] derivedEdgeTargets = new int[numEdges];
+    short[] derivedEdgeWeights = new short[numEdges];
+    copyUnchangedRows(isChangedNode, numPreviousNodes, edgeOffsets, edgeTargets, edgeWeights,
+        derivedEdgeOffsets, derivedEdgeTargets, derivedEdgeWeights);
+    int[] derivedInEdgeOffsets = new int[numNodes + 1];
+    for (int changedNode : changedNodes) {
+      if (changedLsaOfNode[changedNode] == null) {
+        continue;
+      }
+      int edge = derivedEdgeOffsets[changedNode];
+      for (LinkDescription ld : changedLsaOfNode[changedNode].links) {
+        derivedEdgeTargets[edge] = derivedIndexOfNodeId.get(ld.linkId);
+        derivedEdgeWeights[edge] = ld.tosMetrics;
+        // counting this new incoming edge (shifted by one, as we'll accumulate offsets in place)
+        isChangedInRow[derivedEdgeTargets[edge]] = true;
+        derivedInEdgeOffsets[derivedEdgeTargets[edge] + 1]++;
+        edge++;
+      }
+    }
+
+    // likewise for the incoming rows: keeping the edges of unchanged nodes from changed rows
+    int[] derivedInEdgeSources = new int[numEdges];
+    short[] derivedInEdgeWeights = new short[numEdges];
+    int[] nextInEdge = new int[numNodes];
+    for (int node = 0; node < numNodes; node++) {
+      int inEdge = derivedInEdgeOffsets[node];
+      if (node < numPreviousNodes && !isChangedInRow[node]) {
+        inEdge += inEdgeOffsets[node + 1] - inEdgeOffsets[node];
+      } else if (node < numPreviousNodes) {
+        for (int previousInEdge = inEdgeOffsets[node]; previousInEdge < inEdgeOffsets[node + 1];
+            previousInEdge++) {
+          if (!isChangedNode[inEdgeSources[previousInEdge]]) {
+            derivedInEdgeSources[inEdge] = inEdgeSources[previousInEdge];
+            derivedInEdgeWeights[inEdge] = inEdgeWeights[previousInEdge];
+            inEdge++;
+          }
+        }
+      }
+      nextInEdge[node] = inEdge;
+      derivedInEdgeOffsets[node + 1] += inEdge;
+    }
+    copyUnchangedRows(isChangedInRow, numPreviousNodes, inEdgeOffsets, inEdgeSources,
+        inEdgeWeights, derivedInEdgeOffsets, derivedInEdgeSources, derivedInEdgeWeights);
+    // and finally, append the new edges of each changed node to the rows of their targets
+    for (int changedNode : changedNodes) {
+      for (int edge = derivedEdgeOffsets[changedNode]; edge < derivedEdgeOffsets[changedNode + 1];
+          edge++) {
+        int inEdge = nextInEdge[derivedEdgeTargets[edge]]++;
+        derivedInEdgeSources[inEdge] = changedNode;
+        derivedInEdgeWeights[inEdge] = derivedEdgeWeights[edge];
+      }
+    }
+    return new LinkStateGraph(derivedNodeIds, derivedIndexOfNodeId, derivedHasLsa,
+        derivedHasShutdown, derivedEdgeOffsets, derivedEdgeTargets, derivedEdgeWeights,
+        derivedInEdgeOffsets, derivedInEdgeSources, derivedInEdgeWeights);
+  }
+
+  /**
+   * Helper method to block-copy each run of unflagged rows (among those of the first input nodes)
+   * from one edge layout to another.
+   */
+  private static void copyUnchangedRows(boolean[] isChangedRow, int numRows, int[] offsets,
+      int[] targets, short[] weights, int[] derivedOffsets, int[] derivedTargets,
+      short[] derivedWeights) {
+    int runStart = 0;
+    for (int node = 0; node <= numRows; node++) {
+      if (node < numRows && !isChangedRow[node]) {
+        continue;
+      }
+      int runLength = offsets[node] - offsets[runStart];
+      System.arraycopy(targets, offsets[runStart], derivedTargets, derivedOffsets[runStart],
+          runLength);
+      System.arraycopy(weights, offsets[runStart], derivedWeights, derivedOffsets[runStart],
+          runLength);
+      runStart = node + 1;
+    }
+  }
+
+  /**
+   * Helper method to give an id to the input node if it has none (copying the input ids rather
+   * than modifying them, if they are still shared with this graph).
+   */
+  private HashMap<String, Integer> withNode(String nodeId,
+      HashMap<String, Integer> derivedIndexOfNodeId) {
+    if (derivedIndexOfNodeId.containsKey(nodeId)) {
+      return derivedIndexOfNodeId;
+    }
+    if (derivedIndexOfNodeId == indexOfNodeId) {
+      derivedIndexOfNodeId = new HashMap<>(indexOfNodeId);
+    }
+    derivedIndexOfNodeId.put(nodeId, derivedIndexOfNodeId.size());
+    return derivedIndexOfNodeId;
+  }
+
+  /**
+   * Getter of the number of nodes in the graph.
+   */
+  int getNumNodes() {
+    return nodeIds.length;
+  }
+
+  /**
+   * Getter of the id of the node with the input simulated IP address (or NO_NODE).
+   */
+  int getNode(String nodeId) {
+    Integer node = indexOfNodeId.get(nodeId);
+    return (node == null) ? NO_NODE : node;
+  }
+
+  /**
+   * Getter of the simulated IP address of the input node.
+   */
+  String getNodeId(int node) {
+    return nodeIds[node];
+  }
+
+  /**
+   * Boolean helper method to check if the input node advertised an LSA of its own.
+   */
+  boolean hasLinkStateAdvertisement(int node) {
+    return hasLsa[node];
+  }
+
+  /**
+   * Boolean helper method to check if the LSA of the input node reports it as shutdown.
+   */
+  boolean hasShutdown(int node) {
+    return hasShutdown[node];
+  }
+
+  /**
+   * Getter of the index of the first edge of the input node.
+   */
+  int getFirstEdge(int node) {
+    return edgeOffsets[node];
+  }
+
+  /**
+   * Getter of the index past the last edge of the input node.
+   */
+  int getEndEdge(int node) {
+    return edgeOffsets[node + 1];
+  }
+
+  /**
+   * Getter of the target node of the input edge.
+   */
+  int getEdgeTarget(int edge) {
+    return edgeTargets[edge];
+  }
+
+  /**
+   * Getter of the weight of the input edge.
+   */
+  short getEdgeWeight(int edge) {
+    return edgeWeights[edge];
+  }
+
+  /**
+   * Getter of the index of the first incoming edge of the input node.
+   */
+  int getFirstInEdge(int node) {
+    return inEdgeOffsets[node];
+  }
+
+  /**
+   * Getter of the index past the last incoming edge of the input node.
+   */
+  int getEndInEdge(int node) {
+    return inEdgeOffsets[node + 1];
+  }
+
+  /**
+   * Getter of the source node of the input incoming edge.
+   */
+  int getInEdgeSource(int inEdge) {
+    return inEdgeSources[inEdge];
+  }
+
+  /**
+   * Getter of the weight of the input incoming edge.
+   */
+  short getInEdgeWeight(int inEdge) {
+    return inEdgeWeights[inEdge];
+  }
+
+  /**
+   * Getter of the weight of the (first) edge from one node to another (or Integer.MIN_VALUE if
+   * there is no such edge).
+   */
+  int getWeightOfEdge(int fromNode, int toNode) {
+    for (int edge = edgeOffsets[fromNode]; edge < edgeOffsets[fromNode + 1]; edge++) {
+      if (edgeTargets[edge] == toNode) {
+        return edgeWeights[edge];
+      }
+    }
+    return Integer.MIN_VALUE;
+  }
+
+  /**
+   * Convey string representation of Link State Graph instance.
+   */
+  @Override
+  public String toString() {
+    return "LinkStateGraph[nodes=" + nodeIds.length + ",edges=" + edgeTargets.length + "]";
+  }
+}
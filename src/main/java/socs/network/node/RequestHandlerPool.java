@@ -0,0 +1,129 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of worker threads running the RequestHandlerJobs of a Router.
+ *
+ * <p> At most poolSize jobs run at once and at most queueDepth more wait for a worker. Past that,
+ * a job is rejected on the spot: its conversation is answered as BUSY without being read (so the
+ * client fails fast and retries later) rather than costing us another thread. </p>
+ */
+class RequestHandlerPool {
+
+  /**
+   * Int constant for duration (in seconds) after which an idle worker thread is retired.
+   */
+  private static final int WORKER_KEEP_ALIVE_TIME = 60;
+
+  /**
+   * Underlying executor (with a bounded queue) running our jobs.
+   */
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Running count of jobs rejected since this pool was started.
+   */
+  private final AtomicLong numRejectedJobs = new AtomicLong(0);
+
+  /**
+   * Instantiate RequestHandlerPool with the input number of workers and waiting slots.
+   */
+  RequestHandlerPool(int poolSize, int queueDepth) {
+    if (poolSize <= 0 || queueDepth <= 0) {
+      throw new IllegalArgumentException(
+          "Cannot instantiate a worker pool with (pool size = " + poolSize
+              + ", queue depth = " + queueDepth + " ).");
+    }
+    AtomicInteger numWorkerThreads = new AtomicInteger(0);
+    executor = new ThreadPoolExecutor(poolSize, poolSize,
+        WORKER_KEEP_ALIVE_TIME, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueDepth),
+        job -> {
+          Thread workerThread =
+              new Thread(job, "sospf-worker-" + numWorkerThreads.getAndIncrement());
+          // workers should never hold the router process open on quit
+          workerThread.setDaemon(true);
+          return workerThread;
+        },
+        new RejectJobPolicy());
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Submit a job for execution (rejecting it immediately if the pool is saturated).
+   */
+  void execute(Router.RequestHandlerJob job) {
+    executor.execute(job);
+  }
+
+  /**
+   * Getter of the number of jobs waiting on a worker.
+   */
+  int getQueuedJobCount() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Getter of the number of jobs currently running.
+   */
+  int getActiveJobCount() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * Getter of the number of jobs rejected so far.
+   */
+  long getRejectedJobCount() {
+    return numRejectedJobs.get();
+  }
+
+  /**
+   * Convey string representation of Request Handler Pool instance.
+   */
+  @Override
+  public String toString() {
+    return "RequestHandlerPool[poolSize=" + executor.getMaximumPoolSize()
+        + ",queued=" + getQueuedJobCount() + "/"
+        + (getQueuedJobCount() + executor.getQueue().remainingCapacity())
+        + ",active=" + getActiveJobCount() + ",rejected=" + getRejectedJobCount() + "]";
+  }
+
+  /**
+   * Rejection policy answering the conversation of a job that the pool cannot take on as BUSY.
+   */
+  private class RejectJobPolicy implements RejectedExecutionHandler {
+
+    /**
+     * Count the rejection and answer the job's conversation (without handling its request).
+     */
+    @Override
+    public void rejectedExecution(Runnable job, ThreadPoolExecutor executor) {
+      numRejectedJobs.incrementAndGet();
+      if (job instanceof Router.RequestHandlerJob) {
+        ((Router.RequestHandlerJob) job).reject();
+      }
+    }
+  }
+}
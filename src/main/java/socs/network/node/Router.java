@@ -18,16 +18,32 @@
 package socs.network.node;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
 import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import socs.network.message.LinkDescription;
 import socs.network.message.LinkStateAdvertisement;
+import socs.network.message.LinkStateAdvertisementHeader;
 import socs.network.message.SospfPacket;
 import socs.network.utils.CommonUtils;
 import socs.network.utils.RouterConfiguration;
@@ -47,6 +63,44 @@ public class Router {
    */
   static final int HEARTBEAT_MAX_RETRY = 5;
 
+  /**
+   * Int constant of the period (in milliseconds) at which we age the LSA's of our LSD.
+   */
+  public static final int LSA_AGING_PERIOD = 1000;
+
+  /**
+   * Int constant for timeout (in milliseconds) to establish a channel with a neighbor.
+   */
+  static final int CHANNEL_CONNECT_TIMEOUT = HEARTBEAT_WAIT_TIME;
+
+  /**
+   * Int constant for timeout (in milliseconds) to await a reply over a channel.
+   */
+  static final int CHANNEL_READ_TIMEOUT = HEARTBEAT_WAIT_TIME;
+
+  /**
+   * Int constant for duration (in milliseconds) after which an unused channel is reaped.
+   */
+  static final int CHANNEL_IDLE_TIMEOUT = 6 * HEARTBEAT_WAIT_TIME;
+
+  /**
+   * Int constant for duration (in milliseconds) after which we drop an idle inbound connection
+   * (twice the CHANNEL_IDLE_TIMEOUT, so that clients always reap their end of it first).
+   */
+  static final int SERVER_CONNECTION_IDLE_TIMEOUT = 2 * CHANNEL_IDLE_TIMEOUT;
+
+  /**
+   * Int constant for timeout (in milliseconds) to await the next packet of an inbound conversation
+   * (twice the CHANNEL_READ_TIMEOUT, so that clients always give up on a conversation first).
+   */
+  static final int SERVER_CONVERSATION_TIMEOUT = 2 * CHANNEL_READ_TIMEOUT;
+
+  /**
+   * Int constant for the deadline (in milliseconds) of each send of a flood (enough to reconnect
+   * the channel and write to it): a neighbor missing it has its channel closed under it.
+   */
+  static final int FLOOD_SEND_TIMEOUT = CHANNEL_CONNECT_TIMEOUT + CHANNEL_READ_TIMEOUT;
+
   /**
    * Int constant for fixed-size of ports array.
    */
@@ -72,6 +126,56 @@ public class Router {
    */
   final RouterDescription rd;
 
+  /**
+   * Bounded pool of workers running the RequestHandlerJobs of our inbound connections.
+   */
+  private final RequestHandlerPool requestHandlerPool;
+
+  /**
+   * Permits bounding the number of inbound connections we serve at once (one held per connection).
+   */
+  private final Semaphore inboundConnectionPermits;
+
+  /**
+   * Maximum number of inbound connections we serve at once.
+   */
+  private final int maxInboundConnections;
+
+  /**
+   * Number of inbound connections refused since startup for lack of a permit.
+   */
+  private final AtomicInteger numRefusedInboundConnections = new AtomicInteger(0);
+
+  /**
+   * Pool of threads fanning out each flood of LSAUPDATEs to all of our neighbors at once.
+   */
+  private final ExecutorService floodExecutor;
+
+  /**
+   * Scheduler coalescing bursts of floods requested by our router.
+   */
+  private final FloodScheduler floodScheduler;
+
+  /**
+   * Scheduler throttling the shortest-path computations triggered by changes to our LSD.
+   */
+  private final SpfScheduler spfScheduler;
+
+  /**
+   * Bitmask of the optional features our router advertises to its neighbors during HELLO.
+   */
+  private final byte localCapabilities;
+
+  /**
+   * Settings with which our router encodes the packets it sends (and decodes those it receives).
+   */
+  private final WireEncoding wireEncoding;
+
+  /**
+   * Age (in seconds) past which our router refreshes its own LSA.
+   */
+  private final int lsaRefreshInterval;
+
   /**
    * Fixed-size array maintaining state of ports exposed to link with other routers in our network.
    */
@@ -94,22 +198,80 @@ public class Router {
     // assign simulated IP address from config file
     String simulatedIpAddress = config.getSimulatedIpAddress();
 
+    // our own LSA must be refreshed well before it expires
+    lsaRefreshInterval = config.getLsaRefreshInterval();
+    if (lsaRefreshInterval <= 0 || lsaRefreshInterval >= LinkStateAdvertisement.MAX_AGE) {
+      throw new IllegalArgumentException("Invalid LSA refresh interval in router configuration: "
+          + lsaRefreshInterval + " (expected 1 to " + (LinkStateAdvertisement.MAX_AGE - 1)
+          + " seconds).");
+    }
+
     // attempt to set process IP address to localhost (fail fast if unsuccessful)
     String processIpAddress = InetAddress.getLocalHost().getHostAddress();
 
-    ServerSocket serverSocket = null;
+    // pick the wire format of our outgoing packets (we decode either format regardless), and the
+    // dictionary against which we deflate them
+    wireEncoding = new WireEncoding(
+        RouterConfiguration.SERIALIZED_WIRE_FORMAT.equals(config.getWireFormat())
+            ? FramingUtils.JAVA_SERIALIZATION_WIRE_FORMAT
+            : FramingUtils.BINARY_CODEC_WIRE_FORMAT,
+        config.getWireCompressionThreshold(), config.getWireCompressionDictionaryPrefixes());
+
+    // offer compression to our neighbors (it only applies to links on which both ends offer it)
+    localCapabilities =
+        RouterConfiguration.DEFLATE_WIRE_COMPRESSION.equals(config.getWireCompression())
+            ? SospfPacket.DEFLATE_CAPABILITY : SospfPacket.NO_CAPABILITIES;
+
+    // bound the workers handling incoming requests (whichever server ends up feeding them)
+    requestHandlerPool = new RequestHandlerPool(
+        config.getWorkerPoolSize(), config.getWorkerQueueDepth());
+
+    // bound the connections feeding them too (each one costs a reader thread in blocking mode)
+    maxInboundConnections = config.getServerMaxConnections();
+    inboundConnectionPermits = new Semaphore(maxInboundConnections);
+
+    // give each of our ports its own flooding thread (kept apart from our request handlers, which
+    // wait on the floods they trigger)
+    AtomicInteger numFloodThreads = new AtomicInteger(0);
+    floodExecutor = Executors.newFixedThreadPool(NUM_PORTS_PER_ROUTER, job -> {
+      Thread floodThread = new Thread(job, "sospf-flood-" + numFloodThreads.getAndIncrement());
+      // flooding threads should never hold the router process open on quit
+      floodThread.setDaemon(true);
+      return floodThread;
+    });
+
+    // merge bursts of LSA changes into a single flood per neighbor
+    floodScheduler = new FloodScheduler(
+        this, config.getFloodCoalescingDelay(), config.getFloodMaxBatchSize());
+
+    // serve incoming connections either with a worker each or multiplexed over a few selectors
+    boolean useSelectorServer =
+        RouterConfiguration.SELECTOR_SERVER_MODE.equals(config.getServerMode());
+
+    boolean hasBoundServer = false;
     short processPortNumber = RouterDescription.INVALID_PORT_NUMBER;
     short curPortNumber = MIN_PROCESS_PORT_NUMBER;
-    // seek available port at which to assign a ServerSocket
-    while (serverSocket == null) {
+    // seek available port at which to expose our server
+    while (!hasBoundServer) {
       try {
-        // attempt setting socket at this port number
-        serverSocket = new ServerSocket(curPortNumber);
+        // attempt binding our server at this port number
+        if (useSelectorServer) {
+          SelectorServer selectorServer =
+              new SelectorServer(this, curPortNumber, config.getServerIoThreads());
+          // on success, let's start the background I/O loops of our router
+          selectorServer.start();
+        } else {
+          ServerSocket serverSocket = new ServerSocket(curPortNumber);
+          // on success, let's start a background listener for our router
+          RouterServerJob serverJob = new RouterServerJob(serverSocket);
+          Thread serverJobThread = new Thread(serverJob);
+          serverJobThread.start();
+        }
         processPortNumber = curPortNumber;
-        // on success, let's start a background listener for our router
-        RouterServerJob serverJob = new RouterServerJob(serverSocket);
-        Thread serverJobThread = new Thread(serverJob);
-        serverJobThread.start();
+        hasBoundServer = true;
+      } catch (IllegalArgumentException e) {
+        // misconfigured server: no point in trying other ports
+        throw e;
       } catch (Exception e) {
         if (curPortNumber < MAX_PROCESS_PORT_NUMBER) {
           curPortNumber += 1;
@@ -128,6 +290,10 @@ public class Router {
     // surviving the above, let's instantiate an LSD for our Router
     lsd = new LinkStateDatabase(rd);
 
+    // and throttle the shortest-path computations its changes trigger
+    spfScheduler = new SpfScheduler(
+        lsd, config.getSpfInitialDelay(), config.getSpfHoldTime(), config.getSpfMaxWait());
+
     // notify details of our router instance
     System.out.println("\nSuccessfully started router instance at:\n");
     System.out.println("Simulated IP = " + rd.simulatedIpAddress);
@@ -165,6 +331,108 @@ public class Router {
     }
   }
 
+  /**
+   * Output every shortest path (of equal cost) from this router to the destination, along with
+   * the distinct next hops over which its traffic may be spread.
+   */
+  private void processDetectAll(String destinationIp) {
+    try {
+      if (CommonUtils.isNullOrEmptyString(destinationIp)) {
+        throw new IllegalArgumentException(
+            "Cannot detect paths to empty or null remote simulated IP.");
+      }
+      String pathsString = this.lsd.getEqualCostPaths(destinationIp);
+      if (pathsString == null) {
+        System.out.println("\n\nNo shortest path to destination found.\n\n");
+      } else {
+        System.out.println("\n\n");
+        System.out.println(pathsString);
+        System.out.println("\n\n");
+      }
+    } catch (Exception e) {
+      String alertMessageOfFailedShortestPathsDetection =
+          "\n\nError: Failed to find shortest paths to destination.\n\n";
+      RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedShortestPathsDetection);
+    }
+  }
+
+  /**
+   * Output the k shortest loopless paths from this router to the destination (by order of
+   * increasing cost), eg. to plan capacity or pick backup paths.
+   */
+  private void processKShortestPaths(String destinationIp, int k) {
+    try {
+      if (CommonUtils.isNullOrEmptyString(destinationIp)) {
+        throw new IllegalArgumentException(
+            "Cannot detect paths to empty or null remote simulated IP.");
+      }
+      String pathsString = this.lsd.getKShortestPaths(destinationIp, k);
+      if (pathsString == null) {
+        System.out.println(
+            "\n\nCannot detect shortest paths to IP '" + destinationIp
+                + "' because there is no path to it in our network.\n\n"
+        );
+      } else {
+        System.out.println("\n\n");
+        System.out.println(pathsString);
+        System.out.println("\n\n");
+      }
+    } catch (Exception e) {
+      String alertMessageOfFailedKShortestPathsDetection =
+          "\n\nError: Failed to find k shortest paths to destination.\n\n";
+      RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedKShortestPathsDetection);
+    }
+  }
+
+  /**
+   * Output our routing table, ie. the cost & next hop towards each destination along with the
+   * loop-free alternate next hop its traffic switches onto should the former fail.
+   */
+  private void processRoutes() {
+    try {
+      String routesString = this.lsd.getRoutingTable().toString();
+      System.out.println("\n\n");
+      System.out.println(routesString);
+      System.out.println("\n\n");
+    } catch (Exception e) {
+      String alertMessageOfFailedRoutes =
+          "\n\nError: Failed to output routing table.\n\n";
+      RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedRoutes);
+    }
+  }
+
+  /**
+   * Output the distance & next hop between every pair of routers in our network (to the given
+   * file, if any), computing one SPF per router in parallel over a single snapshot of our LSD.
+   */
+  private void processAllPairs(String outputFilePath) {
+    // the common pool spans every processor already: no need for one of our own per command
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    try {
+      long startTimeMillis = System.currentTimeMillis();
+      AllPairsShortestPaths allPairsShortestPaths = new AllPairsShortestPaths(lsd.getGraph());
+      if (outputFilePath == null) {
+        System.out.println("\n\n");
+        // (we leave the console's stream open)
+        allPairsShortestPaths.writeTo(new OutputStreamWriter(System.out), pool);
+      } else {
+        try (Writer fileWriter = new BufferedWriter(new FileWriter(outputFilePath))) {
+          allPairsShortestPaths.writeTo(fileWriter, pool);
+        }
+      }
+      System.out.println("\n\nComputed shortest paths between "
+          + allPairsShortestPaths.getNumRouters() + " routers in "
+          + (System.currentTimeMillis() - startTimeMillis) + " ms"
+          + ((outputFilePath == null) ? "" : " (written to '" + outputFilePath + "')")
+          + ".\n\n");
+    } catch (Exception e) {
+      String alertMessageOfFailedAllPairsShortestPaths =
+          "\n\nError: Failed to compute all-pairs shortest paths.\n\n";
+      RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedAllPairsShortestPaths);
+    }
+  }
+
+
   /**
    * Helper method to remove an attachment from the Link[] ports array.
    */
@@ -207,32 +475,25 @@ public class Router {
     }
 
     // declare local variables reused over iterations
-    Socket clientSocket = null;
-    ObjectInputStream inFromRemoteServer = null;
-    ObjectOutputStream outToRemoteServer = null;
     String remoteSimulatedIp = remoteRouterDescription.simulatedIpAddress;
-    String remoteProcessIp = remoteRouterDescription.processIpAddress;
-    short remoteProcessPort = remoteRouterDescription.processPortNumber;
+
+    // our long-lived channel to the remote (shared with any other conversation over the link)
+    LinkChannel channel = attachedLink.getChannel();
+    LinkChannel.Conversation conversation = null;
 
     SospfPacket disConnectBroadcastPacket = null;
 
     try {
       try {
-        // let's attempt a connection
-        clientSocket = new Socket(remoteProcessIp, remoteProcessPort);
-        // IMPORTANT: must establish output stream first to enable input stream setup
-        outToRemoteServer = new ObjectOutputStream(clientSocket.getOutputStream());
-        inFromRemoteServer = new ObjectInputStream(clientSocket.getInputStream());
-
-        // successfully connected, let's get our SospfPacket ready
-
+        // let's get our SospfPacket ready
         disConnectBroadcastPacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
             this.rd, remoteRouterDescription,
             SospfPacket.SOSPF_DISCONNECT, null, SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
         );
 
-        // time to send our DISCONNECT packet!
-        outToRemoteServer.writeObject(disConnectBroadcastPacket);
+        // open our conversation with the remote, then send our DISCONNECT packet!
+        conversation = channel.openConversation();
+        conversation.send(disConnectBroadcastPacket);
 
       } catch (Exception e) {
         String failedToConnectMessage =
@@ -245,9 +506,7 @@ public class Router {
       // having made it this far, we now proceed to wait for a reply
 
       // blocking wait to deserialize SospfPacket response
-      SospfPacket responseFromRemote =
-          RouterUtils.deserializeSospfPacketFromInputStream(inFromRemoteServer,
-              clientSocket, false);
+      SospfPacket responseFromRemote = conversation.receive(false);
 
       try {
         if (responseFromRemote == null) {
@@ -265,8 +524,8 @@ public class Router {
         }
       } catch (Exception e) {
         String alertMessageOfFailedHelloResponseHandling =
-            "\n\nError: Failed to handle final CONNECT packet over client connection at socket "
-                + clientSocket + " \n\n";
+            "\n\nError: Failed to handle final CONNECT packet over client connection at "
+                + conversation + " \n\n";
         RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedHelloResponseHandling);
         // important to raise exception here to defer control flow
         throw e;
@@ -276,31 +535,23 @@ public class Router {
       writeLinkStateOfThisRouterToDatabase();
 
       if (isRouterShutdown) {
-        // get the latest lsa we just committed
-        LinkStateAdvertisement lastLsa =
-            getLastLinkStateAdvertisement();
-
-        // flag that we are shutting down
-        lastLsa.hasShutdown = true;
-
-        // increment the lsa seq number
-        lastLsa.lsaSeqNumber = lastLsa.lsaSeqNumber + 1;
-
-        // write this to our lsd
-        lsd.putLinkStateAdvertisement(rd.simulatedIpAddress, lastLsa);
+        // flag that we are shutting down (over the latest lsa we just committed)
+        writeShutdownOfRouterToDatabase(rd.simulatedIpAddress);
       }
 
       // then synchronize our LSD with the remote
-      synchronizeLsaUpdateOverActiveConnection(
-          clientSocket, inFromRemoteServer, outToRemoteServer, remoteRouterDescription
-      );
+      synchronizeLsaUpdateOverActiveConnection(conversation, remoteRouterDescription);
 
     } catch (Exception e) {
       String alertMessageOfFailedHelloBroadcast =
           "\n\nError: Failed to broadcast CONNECT for ( link = " + attachedLink + " ) \n\n";
       RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedHelloBroadcast);
     } finally {
-      RouterUtils.closeIoSocketConnection(clientSocket, inFromRemoteServer, outToRemoteServer);
+      // whatever the outcome, we are done with this link's channel
+      if (conversation != null) {
+        conversation.close();
+      }
+      channel.close();
     }
 
     // having synchronously resolved our client connection,
@@ -408,7 +659,7 @@ public class Router {
         remoteProcessPort, remoteSimulatedIp, RouterStatus.UNKNOWN, linkWeight);
 
     // attach the link to the free port of our array
-    ports[indexOfFreePort] = new Link(this.rd, remoteRouterDescription);
+    ports[indexOfFreePort] = new Link(this.rd, remoteRouterDescription, wireEncoding);
 
     // notify details of successful attachment
     System.out.println("\n\nSuccessfully attached to remote router at:\n");
@@ -425,13 +676,13 @@ public class Router {
   private boolean handleSingleLsa(
       String linkId, LinkStateAdvertisement linkStateAdvertisement) {
     boolean changedLsdState = false;
-    // synchronously retrieve the last lsa stored for this linkId
-    LinkStateAdvertisement prevLsa =
-        lsd.getLastLinkStateAdvertisement(linkId);
-    // write the lsa we are handling iff it is either the first, or has the latest seqNumber
-    if (prevLsa == null || prevLsa.lsaSeqNumber < linkStateAdvertisement.lsaSeqNumber
-        || (prevLsa.hasShutdown && !linkStateAdvertisement.hasShutdown)) {
-      lsd.putLinkStateAdvertisement(linkId, linkStateAdvertisement);
+    if (!linkId.equals(linkStateAdvertisement.linkStateId)) {
+      throw new IllegalArgumentException("Input linkId key must equal LSA's linkId.");
+    }
+    // atomically write the lsa we are handling iff it is either the first, or supersedes the last
+    // one (even as other handlers install lsa's of the same router)
+    if (lsd.putLinkStateAdvertisementIfNewer(linkStateAdvertisement)) {
+      spfScheduler.requestRun();
       changedLsdState = true;
     }
     return changedLsdState;
@@ -467,9 +718,17 @@ public class Router {
 
     // and verify that we are indeed attached to the client at all
     if (indexOfAttachmentToClient != RouterUtils.NO_PORT_AVAILABLE_FLAG) {
-      // if so, get the lsa persisted by our database update
-      LinkStateAdvertisement currentLinkStateAdvertisementOfClient =
-          lsd.getLastLinkStateAdvertisement(clientSimulatedIpAddress);
+      // the client obviously holds whatever it just sent us: no need to flood it back
+      ports[indexOfAttachmentToClient].markLsasKnownToTarget(latestLsaArrayOfClient);
+    }
+
+    // if so, get the lsa persisted by our database update
+    // (a delta update need not carry the client's own lsa, which we may have yet to see)
+    LinkStateAdvertisement currentLinkStateAdvertisementOfClient =
+        lsd.getLastLinkStateAdvertisement(clientSimulatedIpAddress);
+
+    if (indexOfAttachmentToClient != RouterUtils.NO_PORT_AVAILABLE_FLAG
+        && currentLinkStateAdvertisementOfClient != null) {
 
       // specifically, we care about the updated links advertised by this lsa
       LinkedList<LinkDescription> advertisedLinks = currentLinkStateAdvertisementOfClient.links;
@@ -499,6 +758,29 @@ public class Router {
     return changedLsdState;
   }
 
+  /**
+   * Helper method to find the link attached to the neighbor with the input simulated IP (if any).
+   */
+  private Link findLinkAttachedTo(String neighborSimulatedIp) {
+    int indexOfPort = RouterUtils.findIndexOfPortAttachedTo(ports, neighborSimulatedIp);
+    return (indexOfPort == RouterUtils.NO_PORT_AVAILABLE_FLAG) ? null : ports[indexOfPort];
+  }
+
+  /**
+   * Helper method to record what a neighbor holds after a DBD exchange (ie. the LSAs summarized by
+   * its DBD, before the LSAs we then send it are acknowledged).
+   */
+  private void recordDbdExchangeWithNeighbor(String neighborSimulatedIp,
+      Vector<LinkStateAdvertisementHeader> lsaHeadersOfNeighbor) {
+    Link linkToNeighbor = findLinkAttachedTo(neighborSimulatedIp);
+    if (linkToNeighbor == null) {
+      // no longer attached (eg. after a DISCONNECT): nothing left to flood to this neighbor
+      return;
+    }
+    linkToNeighbor.forgetLsasKnownToTarget();
+    linkToNeighbor.markLsaHeadersKnownToTarget(lsaHeadersOfNeighbor);
+  }
+
   /**
    * Helper method to broadcast an LSAUPDATE to all neighbors in our Link[] ports array.
    */
@@ -510,106 +792,287 @@ public class Router {
   /**
    * Helper method to broadcast an LSAUPDATE to all neighbors in our Link[] ports array (save
    * perhaps for an excluded, non-null, input IP address).
+   *
+   * <p> The flood itself is left to our FloodScheduler, which merges it with any others requested
+   * within its coalescing window. </p>
    */
   private void broadcastLsaUpdateWithExcludedRemote(String excludedRemoteIp) {
+    floodScheduler.requestFlood(excludedRemoteIp);
+  }
+
+  /**
+   * Send an LSAUPDATE to all neighbors in our Link[] ports array at once (save perhaps for an
+   * excluded, non-null, input IP address), waiting for each send to complete or time out.
+   */
+  void fanOutLsaUpdateWithExcludedRemote(String excludedRemoteIp) {
 
     // declare local variables reused over iterations
     RouterDescription remoteRouterDescription;
     String remoteSimulatedIp;
-    String remoteProcessIp;
-    short remoteProcessPortNumber;
     LinkStateAdvertisement lastLsaOfRemoteNeighbor;
-    Socket clientSocket = null;
-    ObjectOutputStream outToRemoteServer = null;
-    SospfPacket lsaUpdatePacket;
+
+    // ** we send to all of our neighbors at once, so that none waits on a slow one before it **
+    LinkedHashMap<Link, Future<Void>> pendingSends = new LinkedHashMap<>();
 
     for (Link curLink : ports) {
-      try {
-        if (curLink == null) {
-          // skip this port
-          continue;
-        }
+      if (curLink == null) {
+        // skip this port
+        continue;
+      }
+
+      // let's prepare what we need to reach the neighbor
+      remoteRouterDescription = curLink.targetRouter;
+      remoteSimulatedIp = remoteRouterDescription.simulatedIpAddress;
 
-        // let's prepare what we need to request a connection
-        remoteRouterDescription = curLink.targetRouter;
-        remoteSimulatedIp = remoteRouterDescription.simulatedIpAddress;
-        remoteProcessIp = remoteRouterDescription.processIpAddress;
-        remoteProcessPortNumber = remoteRouterDescription.processPortNumber;
+      // skip this link if we've already been informed that the neighbor has shutdown
+      lastLsaOfRemoteNeighbor = getLastLinkStateAdvertisement(remoteSimulatedIp);
 
-        // skip this link if we've already been informed that the neighbor has shutdown
-        lastLsaOfRemoteNeighbor = getLastLinkStateAdvertisement(remoteSimulatedIp);
+      if (lastLsaOfRemoteNeighbor != null && lastLsaOfRemoteNeighbor.hasShutdown) {
+        continue;
+      }
 
-        if (lastLsaOfRemoteNeighbor != null && lastLsaOfRemoteNeighbor.hasShutdown) {
-          continue;
-        }
+      // skip this link if it is equal to a provided exclusion IP
+      if (excludedRemoteIp != null
+          && remoteSimulatedIp.equals(excludedRemoteIp)) {
+        continue;
+      }
 
-        // skip this link if it is equal to a provided exclusion IP
-        if (excludedRemoteIp != null
-            && remoteSimulatedIp.equals(excludedRemoteIp)) {
-          continue;
-        }
+      // also skip any uninitialized neighbors
+      if (remoteRouterDescription.status != RouterStatus.TWO_WAY) {
+        continue;
+      }
 
-        // also skip any uninitialized neighbors
-        if (remoteRouterDescription.status != RouterStatus.TWO_WAY) {
-          continue;
-        }
+      pendingSends.put(curLink, floodExecutor.submit(() -> {
+        sendLsaUpdateOverLink(curLink);
+        return null;
+      }));
+    }
 
-        try {
-          // let's attempt a connection
-          clientSocket = new Socket(remoteProcessIp, remoteProcessPortNumber);
-          outToRemoteServer = new ObjectOutputStream(clientSocket.getOutputStream());
+    // every send shares the same deadline (they were all started at once)
+    long deadlineTimeMillis = System.currentTimeMillis() + FLOOD_SEND_TIMEOUT;
 
-          // ** successful connection **
-          // ** time to prepare our lsaUpdatePacket **
+    for (Map.Entry<Link, Future<Void>> pendingSend : pendingSends.entrySet()) {
+      Link curLink = pendingSend.getKey();
+      try {
+        pendingSend.getValue().get(
+            Math.max(0, deadlineTimeMillis - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // the neighbor is stuck: closing its channel under the send unblocks it (failing it)
+        curLink.forgetLsasKnownToTarget();
+        curLink.getChannel().close();
+        String alertMessageOfTimedOutLsaUpdate =
+            "\n\nError: Timed out broadcasting LsaUpdate for ( link = " + curLink + " ) \n\n";
+        RouterUtils.alertExceptionToConsole(e, alertMessageOfTimedOutLsaUpdate);
+      } catch (ExecutionException e) {
+        String alertMessageOfFailedHelloBroadcast =
+            "\n\nError: Failed to broadcast LsaUpdate for ( link = " + curLink + " ) \n\n";
+        RouterUtils.alertExceptionToConsole(
+            (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e,
+            alertMessageOfFailedHelloBroadcast);
+      } catch (InterruptedException e) {
+        // the remaining sends carry on regardless: we just stop waiting on them
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
 
-          // first, get the state of our lsd as a vector of the database values
-          Vector<LinkStateAdvertisement> lsaArray = lsd.getValuesVector();
+  /**
+   * Helper method to send an LSAUPDATE (of whatever the neighbor has yet to see) over a link.
+   */
+  private void sendLsaUpdateOverLink(Link curLink) throws Exception {
+    RouterDescription remoteRouterDescription = curLink.targetRouter;
+    try {
+      // ** time to prepare our lsaUpdatePacket **
 
-          // from this, we can construct our lsaUpdatePacket
-          lsaUpdatePacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
-              this.rd, remoteRouterDescription,
-              SospfPacket.SOSPF_LSAUPDATE, lsaArray, SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
-          );
+      // first, get the LSAs of our lsd which the neighbor has yet to see (if any)
+      Vector<LinkStateAdvertisement> lsaArray =
+          curLink.getLsasUnknownToTarget(lsd.getValuesVector());
+      if (lsaArray.isEmpty()) {
+        return;
+      }
 
-          // time to send our LSAUPDATE packet!
-          outToRemoteServer.writeObject(lsaUpdatePacket);
+      // from this, we can construct our lsaUpdatePacket
+      SospfPacket lsaUpdatePacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
+          this.rd, remoteRouterDescription,
+          SospfPacket.SOSPF_LSAUPDATE, lsaArray, SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
+      );
 
-        } catch (Exception e) {
-          String failedToConnectMessage =
-              "\n\nError: Failed to send data to remote IP "
-                  + remoteRouterDescription.simulatedIpAddress;
-          RouterUtils.alertExceptionToConsole(e, failedToConnectMessage);
-          // important to raise exception here to defer control flow & close connections
-          throw e;
+      // time to send our LSAUPDATE packet (over our long-lived channel to the neighbor)!
+      sendLsaUpdateAwaitingAck(curLink, lsaUpdatePacket);
+
+    } catch (Exception e) {
+      String failedToConnectMessage =
+          "\n\nError: Failed to send data to remote IP "
+              + remoteRouterDescription.simulatedIpAddress;
+      RouterUtils.alertExceptionToConsole(e, failedToConnectMessage);
+      // important to raise exception here to defer control flow & close connections
+      throw e;
+    }
+  }
+
+  /**
+   * Helper method to send an LSAUPDATE over a link and wait on the neighbor to acknowledge it,
+   * only then recording its LSAs as known to the neighbor.
+   */
+  private void sendLsaUpdateAwaitingAck(Link curLink, SospfPacket lsaUpdatePacket)
+      throws Exception {
+    LinkChannel.Conversation conversation = curLink.getChannel().openConversation();
+    try {
+      conversation.send(lsaUpdatePacket);
+      // a BUSY (or any other) reply means the neighbor may well have dropped our LSAs
+      RouterUtils.verifyLsaUpdateAck(conversation.receive(true));
+    } catch (Exception e) {
+      // we cannot tell what the neighbor got: our next flood to it will carry everything
+      curLink.forgetLsasKnownToTarget();
+      throw e;
+    } finally {
+      conversation.close();
+    }
+    curLink.markLsasKnownToTarget(lsaUpdatePacket.lsaArray);
+  }
+
+  /**
+   * Compare the digest of our lsd against that of the neighbor at the input link (as carried by
+   * its reply to our heartbeat) and, should they differ, send the neighbor only those of our LSAs
+   * which it is missing (or holds stale) out of the digest buckets in which they differ.
+   *
+   * <p> Starting from the root, we descend the Merkle trees of both our lsd's one level per
+   * DIGEST conversation, and only into the children of those nodes whose digests differ: a single
+   * diverging LSA is thus located in log2(NUM_BUCKETS) round trips of two digests each, after
+   * which the neighbor sends us the headers of the differing buckets alone. What the neighbor
+   * holds that we are missing is left to its own heartbeat to us. </p>
+   */
+  void synchronizeLsdDigestWithNeighbor(Link curLink, SospfPacket heartbeatReply) {
+    RouterDescription remoteRouterDescription = curLink.targetRouter;
+    try {
+      if (heartbeatReply.digestNodes == null) {
+        // nothing to compare against
+        return;
+      }
+      // compare against the same digest of ours throughout the descent
+      LinkStateDatabaseDigest digest = lsd.getDigest();
+      ArrayList<Integer> differingNodes =
+          digest.getNodesDifferingFrom(heartbeatReply.digestNodes, heartbeatReply.digests);
+      HashSet<Integer> differingBucketNodes = new HashSet<>();
+      Vector<LinkStateAdvertisementHeader> lsaHeadersOfBuckets = new Vector<>();
+      while (!differingNodes.isEmpty()) {
+        // ask for the children of each node we differ at (or the headers of each bucket)
+        int[] digestNodes = new int[differingNodes.size()];
+        long[] digests = new long[differingNodes.size()];
+        for (int digestIndex = 0; digestIndex < digestNodes.length; digestIndex++) {
+          digestNodes[digestIndex] = differingNodes.get(digestIndex);
+          digests[digestIndex] = digest.getNodeDigest(digestNodes[digestIndex]);
         }
+        SospfPacket digestPacket = new SospfPacket(
+            rd.processIpAddress, rd.processPortNumber, rd.simulatedIpAddress,
+            remoteRouterDescription.simulatedIpAddress, SospfPacket.SOSPF_DIGEST,
+            rd.simulatedIpAddress, rd.simulatedIpAddress, null, null,
+            SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT, SospfPacket.NO_CAPABILITIES,
+            SospfPacket.NO_COMPRESSION_DICTIONARY, digestNodes, digests
+        );
 
-      } catch (Exception e) {
-        String alertMessageOfFailedHelloBroadcast =
-            "\n\nError: Failed to broadcast LsaUpdate for ( link = " + curLink + " ) \n\n";
-        RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedHelloBroadcast);
+        // time to send our DIGEST packet (alongside any other ongoing conversation)!
+        SospfPacket digestReply;
+        LinkChannel.Conversation conversation = curLink.getChannel().openConversation();
+        try {
+          conversation.send(digestPacket);
+          digestReply = conversation.receive(true);
+        } finally {
+          conversation.close();
+        }
+        RouterUtils.verifyDigestPacket(digestReply);
+
+        // every node in the reply must descend from (or be) one which we asked for
+        HashSet<Integer> requestedNodes = new HashSet<>(differingNodes);
+        boolean isBucketLevel = LinkStateDatabaseDigest.isBucketNode(differingNodes.get(0));
+        for (int node : digestReply.digestNodes) {
+          if (!requestedNodes.contains(isBucketLevel ? node : node / 2)) {
+            throw new Exception("Received DIGEST reply of unrequested (node = " + node + " ).");
+          }
+        }
+        if (isBucketLevel) {
+          // the neighbor listed each bucket still differing, alongside its headers
+          for (int node : digestReply.digestNodes) {
+            differingBucketNodes.add(node);
+          }
+          if (digestReply.lsaHeaderArray != null) {
+            lsaHeadersOfBuckets.addAll(digestReply.lsaHeaderArray);
+          }
+          break;
+        }
+        differingNodes = digest.getNodesDifferingFrom(digestReply.digestNodes, digestReply.digests);
+      }
+      if (differingBucketNodes.isEmpty()) {
+        // our lsd's have converged in the meantime
+        return;
       }
 
-      // TODO: rather than leaving client to close connection, maybe close after ACK?
-      //      finally {
-//        RouterUtils.closeIoSocketConnection(clientSocket, null, outToRemoteServer);
-//      }
+      // only the LSAs of the differing buckets which the neighbor is missing need to be sent
+      Vector<LinkStateAdvertisement> lsaArray =
+          lsd.getValuesOfBucketsSupersedingHeaders(differingBucketNodes, lsaHeadersOfBuckets);
+      if (lsaArray.isEmpty()) {
+        return;
+      }
+      SospfPacket lsaUpdatePacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
+          this.rd, remoteRouterDescription,
+          SospfPacket.SOSPF_LSAUPDATE, lsaArray, SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
+      );
+
+      // time to send our LSAUPDATE packet (over our long-lived channel to the neighbor)!
+      sendLsaUpdateAwaitingAck(curLink, lsaUpdatePacket);
+    } catch (Exception e) {
+      // our next heartbeat to the neighbor will compare our digests again
+      String alertMessageOfFailedDigestSynchronization =
+          "\n\nError: Failed to synchronize LSD digests with remote IP "
+              + remoteRouterDescription.simulatedIpAddress;
+      RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedDigestSynchronization);
     }
   }
 
+
   /**
    * Helper method to synchronously broadcast an LSAUPDATE over an active connection.
    */
   private void synchronizeLsaUpdateOverActiveConnection(
-      Socket clientSocket, ObjectInputStream inFromRemoteServer,
-      ObjectOutputStream outToRemoteServer, RouterDescription remoteRouterDescription)
+      LinkChannel.Conversation conversation, RouterDescription remoteRouterDescription)
       throws Exception {
 
     /* NOTE: By design, the client will synchronously wait for our initial LSAUPDATE before
     *  attempting to send its own (as a means to avoid stepping over each other's socket setup).
+    *
+    *  Rather than swapping our whole databases, we first swap DBDs (ie. the headers of our LSAs)
+    *  so that each of us then only sends the LSAs which the other is missing or holds stale.
     */
     try {
-      // first, get the state of our lsd as a vector of the database values
-      Vector<LinkStateAdvertisement> lsaArray = lsd.getValuesVector();
+      // first, summarize the state of our lsd as a vector of headers
+      Vector<LinkStateAdvertisementHeader> lsaHeaderArray = lsd.getHeadersVector();
+
+      // from this, we can construct our dbdPacket
+      SospfPacket dbdPacket = RouterUtils.buildSospfDbdPacketFromRouterDescriptions(
+          this.rd, remoteRouterDescription, lsaHeaderArray
+      );
+
+      // time to send our DBD packet!
+      conversation.send(dbdPacket);
+    } catch (Exception e) {
+      String alertMessageOfFailedSendDbd =
+          "\n\nError: Failed to send DBD over client connection at "
+              + conversation + " \n\n";
+      RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedSendDbd);
+      // important to raise exception here to defer control flow
+      throw e;
+    }
+
+    // blocking wait to deserialize the remote's DBD
+    SospfPacket dbdFromRemote = conversation.receive(false);
+    Vector<LinkStateAdvertisement> lsaArray;
+
+    try {
+      RouterUtils.verifyDbdPacket(dbdFromRemote);
+
+      // only the LSAs of our lsd which the remote is missing (or holds stale) need to be sent
+      lsaArray = lsd.getValuesSupersedingHeaders(dbdFromRemote.lsaHeaderArray);
 
       // from this, we can construct our lsaUpdatePacket
       SospfPacket lsaUpdatePacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
@@ -618,11 +1081,15 @@ public class Router {
       );
 
       // time to send our LSAUPDATE packet!
-      outToRemoteServer.writeObject(lsaUpdatePacket);
+      conversation.send(lsaUpdatePacket);
+
+      // from now on, floods to the remote only need to carry what changed since
+      recordDbdExchangeWithNeighbor(
+          remoteRouterDescription.simulatedIpAddress, dbdFromRemote.lsaHeaderArray);
     } catch (Exception e) {
       String alertMessageOfFailedSendLsaUpdate =
-          "\n\nError: Failed to send LSAUPDATE over client connection at socket "
-              + clientSocket + " \n\n";
+          "\n\nError: Failed to send LSAUPDATE over client connection at "
+              + conversation + " \n\n";
       RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedSendLsaUpdate);
       // important to raise exception here to defer control flow
       throw e;
@@ -630,17 +1097,27 @@ public class Router {
 
     // ** analogous to our writing to the remote, we now wait on the remote's response **
     // blocking wait to deserialize another SospfPacket response
-    SospfPacket responseFromRemote =
-        RouterUtils.deserializeSospfPacketFromInputStream(inFromRemoteServer,
-            clientSocket, false);
+    SospfPacket responseFromRemote = conversation.receive(false);
 
     try {
+      // the remote only sends its LSAUPDATE once done with ours: it thus acknowledges ours too
+      Link linkToRemote = findLinkAttachedTo(remoteRouterDescription.simulatedIpAddress);
+      if (linkToRemote != null) {
+        linkToRemote.markLsasKnownToTarget(lsaArray);
+      }
+
       // now, let's actually process the state changes
       processStateChangesOfLsaUpdate(responseFromRemote);
+
+      // and acknowledge the remote's LSAUPDATE in turn (with an empty one)
+      conversation.send(RouterUtils.buildSospfPacketFromRouterDescriptions(
+          this.rd, remoteRouterDescription,
+          SospfPacket.SOSPF_LSAUPDATE, null, SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
+      ));
     } catch (Exception e) {
       String alertMessageOfFailedLsaUpdateResponseHandling =
           "\n\nError: Failed to handle remote's initial LSAUPDATE over active connection "
-              + "at socket " + clientSocket + " \n\n";
+              + "at " + conversation + " \n\n";
       RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedLsaUpdateResponseHandling);
       // important to raise exception here to defer control flow
       throw e;
@@ -662,12 +1139,8 @@ public class Router {
     // declare local variables reused over iterations
     RouterDescription remoteRouterDescription;
     String remoteSimulatedIp;
-    String remoteProcessIp;
-    short remoteProcessPortNumber;
     short curLinkWeight;
-    Socket clientSocket = null;
-    ObjectInputStream inFromRemoteServer = null;
-    ObjectOutputStream outToRemoteServer = null;
+    LinkChannel channel;
 
     // iterate over each link in our ports array
     for (Link curLink : ports) {
@@ -680,32 +1153,29 @@ public class Router {
       // found a link!
       attemptedHelloBroadcast = true;
 
-      // let's prepare what we need to request a connection
+      // let's prepare what we need to converse with the remote
       remoteRouterDescription = curLink.targetRouter;
       remoteSimulatedIp = remoteRouterDescription.simulatedIpAddress;
-      remoteProcessIp = remoteRouterDescription.processIpAddress;
-      remoteProcessPortNumber = remoteRouterDescription.processPortNumber;
       curLinkWeight = curLink.weight;
 
+      // our long-lived channel to the remote (shared with any other conversation over the link)
+      channel = curLink.getChannel();
+      LinkChannel.Conversation conversation = null;
+
       SospfPacket helloBroadcastPacket = null;
 
       try {
         try {
-          // let's attempt a connection
-          clientSocket = new Socket(remoteProcessIp, remoteProcessPortNumber);
-          // IMPORTANT: must establish output stream first to enable input stream setup
-          outToRemoteServer = new ObjectOutputStream(clientSocket.getOutputStream());
-          inFromRemoteServer = new ObjectInputStream(clientSocket.getInputStream());
-
-          // successfully connected, let's get our SospfPacket ready
-
+          // let's get our SospfPacket ready
           helloBroadcastPacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
               this.rd, remoteRouterDescription,
-              SospfPacket.SOSPF_HELLO, null, curLinkWeight
+              SospfPacket.SOSPF_HELLO, null, curLinkWeight, localCapabilities,
+              wireEncoding.compressionDictionaryId
           );
 
-          // time to send our HELLO packet!
-          outToRemoteServer.writeObject(helloBroadcastPacket);
+          // open our conversation with the remote, then send our HELLO packet!
+          conversation = channel.openConversation();
+          conversation.send(helloBroadcastPacket);
 
         } catch (Exception e) {
           String failedToConnectMessage =
@@ -718,20 +1188,23 @@ public class Router {
         // having made it this far, we now proceed to wait for a reply
 
         // blocking wait to deserialize SospfPacket response
-        SospfPacket responseFromRemote =
-            RouterUtils.deserializeSospfPacketFromInputStream(inFromRemoteServer,
-                clientSocket, false);
+        SospfPacket responseFromRemote = conversation.receive(false);
 
         try {
           // the moment of truth: handle the reply to our HELLO broadcast!
           RouterUtils.handleHelloReplyAtClient(this, curLink, responseFromRemote);
+          // stop here if the remote refused our attachment (it will not expect another packet)
+          RouterUtils.verifyHelloReplyAcceptedAttachment(responseFromRemote);
+          // settle what both ends of the link support
+          curLink.negotiateCapabilities(localCapabilities, wireEncoding.compressionDictionaryId,
+              responseFromRemote.capabilities, responseFromRemote.compressionDictionaryId);
           // time to send the final HELLO packet at this link!
-          outToRemoteServer.writeObject(helloBroadcastPacket);
+          conversation.send(helloBroadcastPacket);
 
         } catch (Exception e) {
           String alertMessageOfFailedHelloResponseHandling =
-              "\n\nError: Failed to handle final HELLO over client connection at socket "
-                  + clientSocket + " \n\n";
+              "\n\nError: Failed to handle final HELLO over client connection at "
+                  + conversation + " \n\n";
           RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedHelloResponseHandling);
           // important to raise exception here to defer control flow
           throw e;
@@ -741,16 +1214,17 @@ public class Router {
         writeLinkStateOfThisRouterToDatabase();
 
         // then synchronize our LSD with the remote
-        synchronizeLsaUpdateOverActiveConnection(
-            clientSocket, inFromRemoteServer, outToRemoteServer, remoteRouterDescription
-        );
+        synchronizeLsaUpdateOverActiveConnection(conversation, remoteRouterDescription);
 
       } catch (Exception e) {
         String alertMessageOfFailedHelloBroadcast =
             "\n\nError: Failed to broadcast hello for ( link = " + curLink + " ) \n\n";
         RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedHelloBroadcast);
       } finally {
-        RouterUtils.closeIoSocketConnection(clientSocket, inFromRemoteServer, outToRemoteServer);
+        // any late reply to a conversation that broke off midway will simply be dropped
+        if (conversation != null) {
+          conversation.close();
+        }
       }
 
       // having synchronously resolved our client connection,
@@ -797,29 +1271,25 @@ public class Router {
 
     // declare local variables reused over iterations
     RouterDescription remoteRouterDescription = curLink.targetRouter;
-    Socket clientSocket = null;
-    ObjectInputStream inFromRemoteServer = null;
-    ObjectOutputStream outToRemoteServer = null;
+
+    // our long-lived channel to the remote (shared with any other conversation over the link)
+    LinkChannel channel = curLink.getChannel();
+    LinkChannel.Conversation conversation = null;
 
     SospfPacket connectBroadcastPacket = null;
 
     try {
       try {
-        // let's attempt a connection
-        clientSocket = new Socket(remoteProcessIp, remoteProcessPort);
-        // IMPORTANT: must establish output stream first to enable input stream setup
-        outToRemoteServer = new ObjectOutputStream(clientSocket.getOutputStream());
-        inFromRemoteServer = new ObjectInputStream(clientSocket.getInputStream());
-
-        // successfully connected, let's get our SospfPacket ready
-
+        // let's get our SospfPacket ready
         connectBroadcastPacket = RouterUtils.buildSospfPacketFromRouterDescriptions(
             this.rd, remoteRouterDescription,
-            SospfPacket.SOSPF_CONNECT, null, linkWeight
+            SospfPacket.SOSPF_CONNECT, null, linkWeight, localCapabilities,
+            wireEncoding.compressionDictionaryId
         );
 
-        // time to send our CONNECT packet!
-        outToRemoteServer.writeObject(connectBroadcastPacket);
+        // open our conversation with the remote, then send our CONNECT packet!
+        conversation = channel.openConversation();
+        conversation.send(connectBroadcastPacket);
 
       } catch (Exception e) {
         String failedToConnectMessage =
@@ -832,20 +1302,23 @@ public class Router {
       // having made it this far, we now proceed to wait for a reply
 
       // blocking wait to deserialize SospfPacket response
-      SospfPacket responseFromRemote =
-          RouterUtils.deserializeSospfPacketFromInputStream(inFromRemoteServer,
-              clientSocket, false);
+      SospfPacket responseFromRemote = conversation.receive(false);
 
       try {
         // the moment of truth: handle the reply to our HELLO broadcast!
         RouterUtils.handleHelloReplyAtClient(this, curLink, responseFromRemote);
+        // stop here if the remote refused our attachment (it will not expect another packet)
+        RouterUtils.verifyHelloReplyAcceptedAttachment(responseFromRemote);
+        // settle what both ends of the link support
+        curLink.negotiateCapabilities(localCapabilities, wireEncoding.compressionDictionaryId,
+            responseFromRemote.capabilities, responseFromRemote.compressionDictionaryId);
         // time to send the final CONNECT packet at this link!
-        outToRemoteServer.writeObject(connectBroadcastPacket);
+        conversation.send(connectBroadcastPacket);
 
       } catch (Exception e) {
         String alertMessageOfFailedHelloResponseHandling =
-            "\n\nError: Failed to handle final CONNECT packet over client connection at socket "
-                + clientSocket + " \n\n";
+            "\n\nError: Failed to handle final CONNECT packet over client connection at "
+                + conversation + " \n\n";
         RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedHelloResponseHandling);
         // important to raise exception here to defer control flow
         throw e;
@@ -855,16 +1328,17 @@ public class Router {
       writeLinkStateOfThisRouterToDatabase();
 
       // then synchronize our LSD with the remote
-      synchronizeLsaUpdateOverActiveConnection(
-          clientSocket, inFromRemoteServer, outToRemoteServer, remoteRouterDescription
-      );
+      synchronizeLsaUpdateOverActiveConnection(conversation, remoteRouterDescription);
 
     } catch (Exception e) {
       String alertMessageOfFailedHelloBroadcast =
           "\n\nError: Failed to broadcast CONNECT for ( link = " + curLink + " ) \n\n";
       RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedHelloBroadcast);
     } finally {
-      RouterUtils.closeIoSocketConnection(clientSocket, inFromRemoteServer, outToRemoteServer);
+      // any late reply to a conversation that broke off midway will simply be dropped
+      if (conversation != null) {
+        conversation.close();
+      }
     }
 
     // having synchronously resolved our client connection,
@@ -915,11 +1389,16 @@ public class Router {
    */
 
   private void processQuit() {
+    // make sure our neighbors hear of any flood still pending while our links are all up
+    floodScheduler.flush();
+
     int portIndex;
     for (portIndex = 0; portIndex < NUM_PORTS_PER_ROUTER; portIndex++) {
       Link curLink = ports[portIndex];
       if (curLink != null && curLink.targetRouter.status == RouterStatus.TWO_WAY) {
         processDisconnect((short) portIndex, true);
+        // then, that our remaining neighbors hear of this disconnect before we tear them down too
+        floodScheduler.flush();
       }
     }
 
@@ -930,6 +1409,57 @@ public class Router {
     System.exit(0);
   }
 
+  /**
+   * Output the load of the workers handling our inbound requests.
+   */
+  private void processWorkers() {
+    System.out.println("\n\n");
+    System.out.println("Queued request handler jobs = "
+        + requestHandlerPool.getQueuedJobCount());
+    System.out.println("Active request handler jobs = "
+        + requestHandlerPool.getActiveJobCount());
+    System.out.println("Rejected request handler jobs = "
+        + requestHandlerPool.getRejectedJobCount());
+    System.out.println("Open inbound connections = "
+        + (maxInboundConnections - inboundConnectionPermits.availablePermits())
+        + " (max " + maxInboundConnections + ")");
+    System.out.println("Refused inbound connections = " + numRefusedInboundConnections.get());
+    System.out.println("\n");
+  }
+
+  /**
+   * Getter of the settings with which our router encodes (and decodes) its packets.
+   */
+  WireEncoding getWireEncoding() {
+    return wireEncoding;
+  }
+
+  /**
+   * Boolean method to admit a newly accepted inbound connection, unless we already serve as many
+   * as we are configured to (in which case the caller should close it right away).
+   */
+  boolean tryAdmitInboundConnection() {
+    if (inboundConnectionPermits.tryAcquire()) {
+      return true;
+    }
+    numRefusedInboundConnections.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Give back the permit of an admitted inbound connection once it has been closed.
+   */
+  void releaseInboundConnection() {
+    inboundConnectionPermits.release();
+  }
+
+  /**
+   * Hand a new inbound conversation over to our worker pool (which may reject it when saturated).
+   */
+  void dispatchRequestHandlerJob(InboundConversation conversation) {
+    requestHandlerPool.execute(new RequestHandlerJob(conversation));
+  }
+
   /**
    * Getter of the simulated IP address for this router.
    */
@@ -938,16 +1468,16 @@ public class Router {
   }
 
   /**
-   * Synchronized reader of last stored LSA for this router.
+   * Lock-free reader of last stored LSA for this router.
    */
-  synchronized LinkStateAdvertisement getLastLinkStateAdvertisement() {
+  LinkStateAdvertisement getLastLinkStateAdvertisement() {
     return this.lsd.getLastLinkStateAdvertisement(this.rd.simulatedIpAddress);
   }
 
   /**
-   * Synchronized reader of last stored LSA for a neighboring router.
+   * Lock-free reader of last stored LSA for a neighboring router.
    */
-  synchronized LinkStateAdvertisement getLastLinkStateAdvertisement(
+  LinkStateAdvertisement getLastLinkStateAdvertisement(
       String neighborSimulatedIpAddress) {
     return this.lsd.getLastLinkStateAdvertisement(neighborSimulatedIpAddress);
   }
@@ -958,14 +1488,44 @@ public class Router {
   private synchronized void putLinkStateAdvertisement(
       LinkStateAdvertisement linkStateAdvertisement) {
     lsd.putLinkStateAdvertisement(this.rd.simulatedIpAddress, linkStateAdvertisement);
+    spfScheduler.requestRun();
   }
 
   /**
-   * Synchronized writer of an input LSA for this writer.
+   * Synchronized writer flagging the shutdown of the router with the input IP address, atomically
+   * over the last LSA stored for it (so that no newer LSA handled meanwhile is lost).
    */
-  synchronized void putLinkStateAdvertisement(
-      String neighborSimulatedIpAddress, LinkStateAdvertisement linkStateAdvertisement) {
-    lsd.putLinkStateAdvertisement(neighborSimulatedIpAddress, linkStateAdvertisement);
+  synchronized void writeShutdownOfRouterToDatabase(String simulatedIpAddress) {
+    lsd.computeLinkStateAdvertisement(simulatedIpAddress, lastLsa -> (lastLsa == null)
+        ? null : RouterUtils.createShutdownLinkStateAdvertisement(lastLsa));
+    spfScheduler.requestRun();
+  }
+
+  /**
+   * Getter of the age (in seconds) past which our router refreshes its own LSA.
+   */
+  int getLsaRefreshInterval() {
+    return lsaRefreshInterval;
+  }
+
+  /**
+   * Age the LSA's of other routers in our LSD (purging the expired ones), returning whether our
+   * neighbors must be updated.
+   */
+  boolean ageLinkStateDatabase() {
+    boolean hasExpiredLsa = lsd.ageLinkStateAdvertisements();
+    if (hasExpiredLsa) {
+      // the expired LSA's drop out of our graph
+      spfScheduler.requestRun();
+    }
+    return hasExpiredLsa;
+  }
+
+  /**
+   * Switch the routes over a neighbor declared dead onto their loop-free alternates.
+   */
+  void failOverNeighbor(String neighborSimulatedIpAddress) {
+    lsd.failOverNeighbor(neighborSimulatedIpAddress);
   }
 
   /**
@@ -991,9 +1551,20 @@ public class Router {
       try {
         while (true) {
           try {
-            if (command.startsWith("detect")) {
+            if (command.startsWith("detectall")) {
+              String[] cmdLine = command.split(" ");
+              processDetectAll(cmdLine[1]);
+            } else if (command.startsWith("detect")) {
               String[] cmdLine = command.split(" ");
               processDetect(cmdLine[1]);
+            } else if (command.startsWith("allpairs")) {
+              String[] cmdLine = command.split(" ");
+              processAllPairs((cmdLine.length > 1) ? cmdLine[1] : null);
+            } else if (command.equals("routes")) {
+              processRoutes();
+            } else if (command.startsWith("kpaths")) {
+              String[] cmdLine = command.split(" ");
+              processKShortestPaths(cmdLine[1], Integer.parseInt(cmdLine[2]));
             } else if (command.startsWith("disconnect")) {
               String[] cmdLine = command.split(" ");
               processDisconnect(Short.parseShort(cmdLine[1]), false);
@@ -1020,6 +1591,9 @@ public class Router {
             } else if (command.equals("neighbors")) {
               // output neighbors
               processNeighbors();
+            } else if (command.equals("workers")) {
+              // output load of our request handler workers
+              processWorkers();
             } else {
               // invalid command
               System.out.println("\n\nCommand '" + command + "' was not recognized.");
@@ -1048,24 +1622,19 @@ public class Router {
   }
 
   /**
-   * Job to manage lifecycle of an active connection with client router.
+   * Job to handle a single conversation opened by a client router.
    */
   public class RequestHandlerJob implements Runnable {
 
     /**
-     * Active socket for client-server connection handled by this job.
-     */
-    private final Socket activeSocket;
-
-    /**
-     * Input stream over active socket connection.
+     * Conversation (opened by a client request) handled by this job.
      */
-    private ObjectInputStream inFromRemoteServer;
+    private final InboundConversation conversation;
 
     /**
-     * Output stream over active socket connection.
+     * Boolean to track whether the connection should remain open for other conversations.
      */
-    private ObjectOutputStream outToRemoteServer;
+    private boolean keepConnectionAlive = true;
 
     /**
      * Helper method to route inputRequestPacket to appropriate sub-handler.
@@ -1097,6 +1666,9 @@ public class Router {
           case SospfPacket.SOSPF_HEARTBEAT:
             handleHeartbeatRequest(inputRequestPacket);
             break;
+          case SospfPacket.SOSPF_DIGEST:
+            handleDigestRequest(inputRequestPacket);
+            break;
           default:
             String exceptionMessageOfFailedSospfPacketRouting =
                 "Received packet with unknown (SospfPacketType = " + packetType + " ) ";
@@ -1115,18 +1687,46 @@ public class Router {
     /**
      * Helper method to synchronously broadcast an LSAUPDATE over an active connection.
      */
-    private void handleLsdSynchronizationWithClient(
-        ObjectInputStream inFromRemoteServer, ObjectOutputStream outToRemoteServer,
-        String clientSimulatedIpAddress) throws Exception {
+    private void handleLsdSynchronizationWithClient(String clientSimulatedIpAddress)
+        throws Exception {
 
       /* NOTE: By design, we will synchronously wait for the client's initial LSAUPDATE before
       * attempting to send our own (as a means to avoid stepping over each other's socket setup).
+      *
+      * Rather than swapping our whole databases, we first swap DBDs (ie. the headers of our LSAs)
+      * so that each of us then only sends the LSAs which the other is missing or holds stale.
       */
 
+      // blocking wait to deserialize the client's DBD
+      SospfPacket dbdFromClient = conversation.receive(false);
+      RouterUtils.verifyDbdPacket(dbdFromClient);
+      Vector<LinkStateAdvertisementHeader> lsaHeadersOfClient = dbdFromClient.lsaHeaderArray;
+
+      try {
+        // summarize the state of our lsd as a vector of headers
+        SospfPacket dbdPacket = new SospfPacket(
+            rd.processIpAddress, rd.processPortNumber, rd.simulatedIpAddress,
+            clientSimulatedIpAddress, SospfPacket.SOSPF_DBD,
+            rd.simulatedIpAddress, rd.simulatedIpAddress, null, lsd.getHeadersVector(),
+            SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
+        );
+
+        // time to send our DBD packet!
+        conversation.send(dbdPacket);
+
+        // record what the client holds (before its LSAUPDATE tells us what it holds beyond that)
+        recordDbdExchangeWithNeighbor(clientSimulatedIpAddress, lsaHeadersOfClient);
+      } catch (Exception e) {
+        String alertMessageOfFailedSendDbd =
+            "\n\nError: Failed to send DBD over client connection at "
+                + conversation + " \n\n";
+        RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedSendDbd);
+        // important to raise exception here to defer control flow
+        throw e;
+      }
+
       // blocking wait to deserialize another SospfPacket response
-      SospfPacket responseFromClient =
-          RouterUtils.deserializeSospfPacketFromInputStream(inFromRemoteServer,
-              activeSocket, false);
+      SospfPacket responseFromClient = conversation.receive(false);
 
       try {
         // now, let's actually process the state changes
@@ -1134,7 +1734,7 @@ public class Router {
       } catch (Exception e) {
         String alertMessageOfFailedLsaUpdateResponseHandling =
             "\n\nError: Failed to handle client's initial LSAUPDATE over active connection "
-                + "at socket " + activeSocket + " \n\n";
+                + "at " + conversation + " \n\n";
         RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedLsaUpdateResponseHandling);
         // important to raise exception here to defer control flow
         throw e;
@@ -1148,8 +1748,9 @@ public class Router {
       // ** analogous to our waiting on the client, the client now waits on our LSAUPDATE **
 
       try {
-        // first, get the state of our lsd as a vector of the database values
-        Vector<LinkStateAdvertisement> lsaArray = lsd.getValuesVector();
+        // only the LSAs of our lsd which the client is missing (or holds stale) need to be sent
+        Vector<LinkStateAdvertisement> lsaArray =
+            lsd.getValuesSupersedingHeaders(lsaHeadersOfClient);
 
         // from this, we can construct our lsaUpdatePacket
         SospfPacket lsaUpdatePacket = new SospfPacket(
@@ -1160,11 +1761,20 @@ public class Router {
         );
 
         // time to send our LSAUPDATE packet!
-        outToRemoteServer.writeObject(lsaUpdatePacket);
+        conversation.send(lsaUpdatePacket);
+
+        // blocking wait on the client to acknowledge it
+        RouterUtils.verifyLsaUpdateAck(conversation.receive(false));
+
+        // from now on, floods to the client only need to carry what changed since
+        Link linkWithClient = findLinkAttachedTo(clientSimulatedIpAddress);
+        if (linkWithClient != null) {
+          linkWithClient.markLsasKnownToTarget(lsaArray);
+        }
       } catch (Exception e) {
         String alertMessageOfFailedSendLsaUpdate =
-            "\n\nError: Failed to send LSAUPDATE over client connection at socket "
-                + activeSocket + " \n\n";
+            "\n\nError: Failed to send LSAUPDATE over client connection at "
+                + conversation + " \n\n";
         RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedSendLsaUpdate);
         // important to raise exception here to defer control flow
         throw e;
@@ -1207,8 +1817,12 @@ public class Router {
         }
 
         // otherwise, let's indeed detach the client
+        Link detachedLink = ports[indexOfPort];
         detachLinkAtPortIndex(indexOfPort);
 
+        // we will no longer need our own channel to the client
+        detachedLink.closeChannel();
+
         // add back the prompt
         System.out.print(">> ");
 
@@ -1223,12 +1837,10 @@ public class Router {
         );
 
         // send response packet to client
-        outToRemoteServer.writeObject(replyToClient);
+        conversation.send(replyToClient);
 
         // now, finally, we can synchronize our lsd with the client
-        handleLsdSynchronizationWithClient(
-            inFromRemoteServer, outToRemoteServer, clientSimulatedIpAddress
-        );
+        handleLsdSynchronizationWithClient(clientSimulatedIpAddress);
 
         // having synchronized the client, we now asynchronously update other neighbors
         broadcastLsaUpdateWithExcludedRemote(clientSimulatedIpAddress);
@@ -1258,21 +1870,25 @@ public class Router {
         // ensure that we are indeed attached to the client router
         if (indexOfPort == RouterUtils.NO_PORT_AVAILABLE_FLAG) {
           // we are not currently attached to the client router...fail silently
+          // (dropping the connection so that the client does not wait on a reply)
+          keepConnectionAlive = false;
           return;
         }
 
         // ** surviving all the above, we'll send an ACK to the client **
 
-        // construct response packet (first HEARTBEAT reply)
+        // construct response packet (first HEARTBEAT reply, carrying the digest of our lsd)
         SospfPacket replyToClient = new SospfPacket(
             rd.processIpAddress, rd.processPortNumber, rd.simulatedIpAddress,
             clientSimulatedIpAddress, SospfPacket.SOSPF_HEARTBEAT,
-            rd.simulatedIpAddress, rd.simulatedIpAddress, null,
-            SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
+            rd.simulatedIpAddress, rd.simulatedIpAddress, null, null,
+            SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT, SospfPacket.NO_CAPABILITIES,
+            SospfPacket.NO_COMPRESSION_DICTIONARY, new int[] {LinkStateDatabaseDigest.ROOT_NODE},
+            new long[] {lsd.getDigest().getRootDigest()}
         );
 
         // send response packet to client
-        outToRemoteServer.writeObject(replyToClient);
+        conversation.send(replyToClient);
 
       } catch (Exception e) {
         String alertMessageOfFailedDisconnectHandling =
@@ -1282,6 +1898,70 @@ public class Router {
       }
     }
 
+    /**
+     * Helper method to wrap logic of handling DIGEST request (ie. one level of the client's
+     * descent of the Merkle trees of our lsd's).
+     */
+    private void handleDigestRequest(SospfPacket inputRequestPacket) {
+      try {
+        RouterUtils.verifyDigestPacket(inputRequestPacket);
+
+        // ready client router properties
+        String clientSimulatedIpAddress = inputRequestPacket.srcIp;
+
+        // ensure that we are indeed attached to the client router
+        if (RouterUtils.findIndexOfPortAttachedTo(ports, clientSimulatedIpAddress)
+            == RouterUtils.NO_PORT_AVAILABLE_FLAG) {
+          // we are not currently attached to the client router...fail silently
+          // (dropping the connection so that the client does not wait on a reply)
+          keepConnectionAlive = false;
+          return;
+        }
+
+        // expand each requested node at which we (still) differ from the client
+        LinkStateDatabaseDigest digest = lsd.getDigest();
+        ArrayList<Integer> replyNodes = new ArrayList<>();
+        HashSet<Integer> bucketNodes = new HashSet<>();
+        for (int node : digest.getNodesDifferingFrom(
+            inputRequestPacket.digestNodes, inputRequestPacket.digests)) {
+          if (LinkStateDatabaseDigest.isBucketNode(node)) {
+            // a bucket is listed itself, alongside its headers
+            replyNodes.add(node);
+            bucketNodes.add(node);
+          } else {
+            replyNodes.add(2 * node);
+            replyNodes.add(2 * node + 1);
+          }
+        }
+        int[] digestNodes = new int[replyNodes.size()];
+        long[] digests = new long[replyNodes.size()];
+        for (int digestIndex = 0; digestIndex < digestNodes.length; digestIndex++) {
+          digestNodes[digestIndex] = replyNodes.get(digestIndex);
+          digests[digestIndex] = digest.getNodeDigest(digestNodes[digestIndex]);
+        }
+        Vector<LinkStateAdvertisementHeader> lsaHeaderArray = bucketNodes.isEmpty()
+            ? new Vector<>() : lsd.getHeadersVectorOfBuckets(bucketNodes);
+
+        // construct response packet (DIGEST reply)
+        SospfPacket replyToClient = new SospfPacket(
+            rd.processIpAddress, rd.processPortNumber, rd.simulatedIpAddress,
+            clientSimulatedIpAddress, SospfPacket.SOSPF_DIGEST,
+            rd.simulatedIpAddress, rd.simulatedIpAddress, null, lsaHeaderArray,
+            SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT, SospfPacket.NO_CAPABILITIES,
+            SospfPacket.NO_COMPRESSION_DICTIONARY, digestNodes, digests
+        );
+
+        // send response packet to client
+        conversation.send(replyToClient);
+
+      } catch (Exception e) {
+        String alertMessageOfFailedDigestHandling =
+            "\n\nError: Failed to handle DIGEST request for packet '"
+                + inputRequestPacket + "' \n\n";
+        RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedDigestHandling);
+      }
+    }
+
     /**
      * Helper method to wrap logic of processing HELLO conversation.
      */
@@ -1319,8 +1999,9 @@ public class Router {
                 clientSimulatedIpAddress, SospfPacket.SOSPF_NO_PORTS_AVAILABLE,
                 rd.simulatedIpAddress, rd.simulatedIpAddress, null, weightOfTransmission
             );
-            outToRemoteServer.writeObject(responsePacket);
-            // ** terminate here! **
+            conversation.send(responsePacket);
+            // ** terminate here (and drop the connection since the client will not reuse it)! **
+            keepConnectionAlive = false;
             return;
           case RouterUtils.DUPLICATE_ATTACHMENT_ATTEMPT_FLAG:
             // ** critical assumption **
@@ -1343,7 +2024,7 @@ public class Router {
                     weightOfTransmission
                 );
             // finally: we attach (for the first time) to the client here
-            ports[indexOfPort] = new Link(rd, clientDescription);
+            ports[indexOfPort] = new Link(rd, clientDescription, wireEncoding);
         }
 
         Link linkWithClient = ports[indexOfPort];
@@ -1358,20 +2039,26 @@ public class Router {
         // ** ESSENTIAL PRINT STATEMENT FOR PA1 DELIVERABLE **
         System.out.println("\nset " + clientSimulatedIpAddress + " state to INIT;");
 
-        // construct response packet (first HELLO reply)
+        // construct response packet (first HELLO reply, advertising what our router supports)
         SospfPacket replyToClient = new SospfPacket(
             rd.processIpAddress, rd.processPortNumber, rd.simulatedIpAddress,
             clientSimulatedIpAddress, responseType,
-            rd.simulatedIpAddress, rd.simulatedIpAddress, null, weightOfTransmission
+            rd.simulatedIpAddress, rd.simulatedIpAddress, null, null, weightOfTransmission,
+            localCapabilities, wireEncoding.compressionDictionaryId
         );
 
         // send response packet to client
-        outToRemoteServer.writeObject(replyToClient);
+        conversation.send(replyToClient);
+
+        // settle what both ends of the link support (for both our channel and this connection)
+        linkWithClient.negotiateCapabilities(
+            localCapabilities, wireEncoding.compressionDictionaryId,
+            inputRequestPacket.capabilities, inputRequestPacket.compressionDictionaryId);
+        conversation.setCompressionNegotiated(
+            linkWithClient.getChannel().isCompressionNegotiated());
 
         // blocking wait to deserialize SospfPacket response
-        SospfPacket responseFromClient =
-            RouterUtils.deserializeSospfPacketFromInputStream(inFromRemoteServer,
-                activeSocket, false);
+        SospfPacket responseFromClient = conversation.receive(false);
 
         try {
           // the moment of truth: handle the HELLO packet!
@@ -1379,16 +2066,14 @@ public class Router {
         } catch (Exception e) {
           String alertMessageOfFailedHelloResponseHandling =
               "\n\nError: Failed to handle client's final HELLO over active connection "
-                  + "at socket " + activeSocket + " \n\n";
+                  + "at " + conversation + " \n\n";
           RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedHelloResponseHandling);
           // important to raise exception here to defer control flow
           throw e;
         }
 
         // let's synchronize our lsd with the client
-        handleLsdSynchronizationWithClient(
-            inFromRemoteServer, outToRemoteServer, clientSimulatedIpAddress
-        );
+        handleLsdSynchronizationWithClient(clientSimulatedIpAddress);
 
         // having synchronized the client, we now asynchronously update other neighbors
         broadcastLsaUpdateWithExcludedRemote(clientSimulatedIpAddress);
@@ -1423,6 +2108,15 @@ public class Router {
 
         // ** by this point, we should have covered any case requiring updates to our LSD **
 
+        // acknowledge the LSAUPDATE (with an empty one), so the client can stop flooding its LSAs
+        SospfPacket ackToClient = new SospfPacket(
+            rd.processIpAddress, rd.processPortNumber, rd.simulatedIpAddress,
+            clientSimulatedIpAddress, SospfPacket.SOSPF_LSAUPDATE,
+            rd.simulatedIpAddress, rd.simulatedIpAddress, null,
+            SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
+        );
+        conversation.send(ackToClient);
+
         // broadcast any changes of the LSD to our neighbors
         if (firstTimeClientSeen) {
           // including the client
@@ -1458,6 +2152,8 @@ public class Router {
         }
 
       } catch (Exception e) {
+        // dropping the connection so that the client does not wait on an ack
+        keepConnectionAlive = false;
         String alertMessageOfFailedLsaUpdateHandling =
             "\n\nError: Failed to handle LSAUPDATE request for packet '"
                 + inputRequestPacket + "' \n\n";
@@ -1466,54 +2162,65 @@ public class Router {
     }
 
     /**
-     * Instantiate RequestHandlerJob to handle a single request on behalf of our input Router.
+     * Instantiate RequestHandlerJob to handle a conversation opened by a client of our Router.
+     */
+    RequestHandlerJob(InboundConversation conversation) {
+      this.conversation = conversation;
+    }
+
+    /**
+     * Answer the conversation of this job as BUSY without handling it (ie. when our workers are
+     * saturated), leaving the client's other conversations over the connection undisturbed.
      */
-    RequestHandlerJob(Socket activeSocket) {
-      this.activeSocket = activeSocket;
+    void reject() {
+      try {
+        // decoding the request would cost us more than the reply itself: lacking the client's
+        // simulated IP, the reply names us at both ends
+        SospfPacket busyReply = new SospfPacket(
+            rd.processIpAddress, rd.processPortNumber, rd.simulatedIpAddress,
+            rd.simulatedIpAddress, SospfPacket.SOSPF_BUSY,
+            rd.simulatedIpAddress, rd.simulatedIpAddress, null,
+            SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
+        );
+        conversation.send(busyReply);
+      } catch (Exception ignored) {
+        // fail silently (the client will time out on this conversation instead)
+      } finally {
+        conversation.close();
+      }
     }
 
     /**
-     * RequestHandlerJob's execution routine to handle a single request.
+     * RequestHandlerJob's execution routine to handle the request opening its conversation.
      */
     public void run() {
       try {
+        // the request opening the conversation is already queued for us
+        SospfPacket inputRequestPacket = conversation.receive(false);
         try {
-          inFromRemoteServer = new ObjectInputStream(activeSocket.getInputStream());
-          outToRemoteServer = new ObjectOutputStream(activeSocket.getOutputStream());
-        } catch (Exception e) {
-          String alertMessageOfFailedConnectionAttempt =
-              "\n\nError: Failed to establish connection to handle request at socket "
-                  + activeSocket + " \n\n";
-          RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedConnectionAttempt);
-          // important to raise exception here to defer control flow & close connections
-          throw e;
-        }
-        // attempt to deserialize packet to expected SospfPacket object
-        SospfPacket inputRequestPacket =
-            RouterUtils.deserializeSospfPacketFromInputStream(inFromRemoteServer,
-                activeSocket, false);
-        try {
-          // fail silently if the deserialized packet was null
-          if (inputRequestPacket != null) {
-            // the moment of truth: handle the packet!
-            handleRequestpacket(inputRequestPacket);
-          }
+          // the moment of truth: handle the packet!
+          handleRequestpacket(inputRequestPacket);
         } catch (Exception e) {
           String alertMessageOfFailedRequestHandling =
-              "\n\nError: Failed to handle request of active connection at socket "
-                  + activeSocket + " \n\n";
+              "\n\nError: Failed to handle request of active connection at "
+                  + conversation + " \n\n";
           RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedRequestHandling);
           // important to raise exception here to defer control flow & close connections
           throw e;
         }
       } catch (Exception e) {
+        keepConnectionAlive = false;
         String alertMessageOfCrashedRequestHandlerJob =
-            "\n\nError: RequestHandlerJob crashed for active connection at socket "
-                + activeSocket + " \n\n";
+            "\n\nError: RequestHandlerJob crashed for active connection at "
+                + conversation + " \n\n";
         RouterUtils.alertExceptionToConsole(e, alertMessageOfCrashedRequestHandlerJob);
         System.out.print(">> ");
       } finally {
-        RouterUtils.closeIoSocketConnection(activeSocket, inFromRemoteServer, outToRemoteServer);
+        if (keepConnectionAlive) {
+          conversation.close();
+        } else {
+          conversation.closeConnection();
+        }
       }
     }
   }
@@ -1550,11 +2257,37 @@ public class Router {
             continue;
           }
 
+          if (!tryAdmitInboundConnection()) {
+            // we already serve as many connections as we can: the client will retry later
+            RouterUtils.closeIoSocketConnection(activeSocket, null, null);
+            continue;
+          }
+
           // reaching here means we have accepted an incoming message
-          // let's create an active connection thread to handle the incoming data
-          RequestHandlerJob requestHandlerJob = new RequestHandlerJob(activeSocket);
-          Thread activeConnectionLifecycle = new Thread(requestHandlerJob);
-          activeConnectionLifecycle.start();
+          SocketInboundConnection connection;
+          try {
+            connection = new SocketInboundConnection(Router.this, activeSocket);
+          } catch (Exception e) {
+            String alertMessageOfFailedConnectionAttempt =
+                "\n\nError: Failed to establish connection to handle request at socket "
+                    + activeSocket + " \n\n";
+            RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedConnectionAttempt);
+            RouterUtils.closeIoSocketConnection(activeSocket, null, null);
+            releaseInboundConnection();
+            continue;
+          }
+          // let's give the active connection its own reader (keeping our workers for its jobs),
+          // which gives back the connection's permit once done with it
+          Thread readerThread = new Thread(() -> {
+            try {
+              connection.run();
+            } finally {
+              releaseInboundConnection();
+            }
+          }, "sospf-connection-reader-" + activeSocket.getRemoteSocketAddress());
+          // readers should never hold the router process open on quit
+          readerThread.setDaemon(true);
+          readerThread.start();
         }
       } catch (Exception e) {
         String jobCrashedMessage =
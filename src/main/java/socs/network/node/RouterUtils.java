@@ -17,14 +17,15 @@
  */
 package socs.network.node;
 
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.net.SocketException;
 import java.util.LinkedList;
 import java.util.Vector;
 import socs.network.message.LinkDescription;
 import socs.network.message.LinkStateAdvertisement;
+import socs.network.message.LinkStateAdvertisementHeader;
 import socs.network.message.SospfPacket;
 
 /**
@@ -54,14 +55,43 @@ final class RouterUtils {
   static SospfPacket buildSospfPacketFromRouterDescriptions(
       RouterDescription srcRouter, RouterDescription destRouter, short sospfType,
       Vector<LinkStateAdvertisement> lsaArray, short weightOfTransmission) {
+    return buildSospfPacketFromRouterDescriptions(srcRouter, destRouter, sospfType, lsaArray,
+        weightOfTransmission, SospfPacket.NO_CAPABILITIES, SospfPacket.NO_COMPRESSION_DICTIONARY);
+  }
+
+  /**
+   * Static method to instantiate Sospf Packet (advertising the source's capabilities and
+   * compression dictionary) via router descriptions.
+   */
+  static SospfPacket buildSospfPacketFromRouterDescriptions(
+      RouterDescription srcRouter, RouterDescription destRouter, short sospfType,
+      Vector<LinkStateAdvertisement> lsaArray, short weightOfTransmission, byte capabilities,
+      int compressionDictionaryId) {
     // FIXME: is below the intended use case of neighbor and router id?
     String srcSimulatedIpAndNeighbourIdAndRouterId = srcRouter.simulatedIpAddress;
     return new SospfPacket(
         srcRouter.processIpAddress, srcRouter.processPortNumber,
         srcSimulatedIpAndNeighbourIdAndRouterId, destRouter.simulatedIpAddress,
         sospfType, srcSimulatedIpAndNeighbourIdAndRouterId, srcSimulatedIpAndNeighbourIdAndRouterId,
-        lsaArray, weightOfTransmission
+        lsaArray, null, weightOfTransmission, capabilities, compressionDictionaryId
+
+    );
+  }
 
+  /**
+   * Static method to instantiate Sospf DBD Packet (summarizing the source's LSD) via router
+   * descriptions.
+   */
+  static SospfPacket buildSospfDbdPacketFromRouterDescriptions(
+      RouterDescription srcRouter, RouterDescription destRouter,
+      Vector<LinkStateAdvertisementHeader> lsaHeaderArray) {
+    String srcSimulatedIpAndNeighbourIdAndRouterId = srcRouter.simulatedIpAddress;
+    return new SospfPacket(
+        srcRouter.processIpAddress, srcRouter.processPortNumber,
+        srcSimulatedIpAndNeighbourIdAndRouterId, destRouter.simulatedIpAddress,
+        SospfPacket.SOSPF_DBD, srcSimulatedIpAndNeighbourIdAndRouterId,
+        srcSimulatedIpAndNeighbourIdAndRouterId, null, lsaHeaderArray,
+        SospfPacket.IRRELEVANT_TRANSMISSION_WEIGHT
     );
   }
 
@@ -143,6 +173,33 @@ final class RouterUtils {
     return new LinkStateAdvertisement(linkStateId, newSeqNumber, newLinks);
   }
 
+  /**
+   * Static method to create the LSA flagging the shutdown of the router which advertised the input
+   * LSA (as a new instance, since stored LSA's must never be mutated). It keeps aging from the age
+   * of the input LSA, since its router will never refresh it.
+   */
+  static LinkStateAdvertisement createShutdownLinkStateAdvertisement(
+      LinkStateAdvertisement lastLsa) {
+    LinkStateAdvertisement shutdownLsa = new LinkStateAdvertisement(
+        lastLsa.linkStateId, lastLsa.lsaSeqNumber + 1, new LinkedList<>(lastLsa.links));
+    shutdownLsa.hasShutdown = true;
+    shutdownLsa.lsaAge = lastLsa.getCurrentAge();
+    return shutdownLsa;
+  }
+
+  /**
+   * Static method to create the expired (ie. MaxAge) copy of the input LSA, which purges it from
+   * every database it is flooded to.
+   */
+  static LinkStateAdvertisement createMaxAgeLinkStateAdvertisement(
+      LinkStateAdvertisement lastLsa) {
+    LinkStateAdvertisement maxAgeLsa = new LinkStateAdvertisement(
+        lastLsa.linkStateId, lastLsa.lsaSeqNumber, new LinkedList<>(lastLsa.links));
+    maxAgeLsa.hasShutdown = lastLsa.hasShutdown;
+    maxAgeLsa.lsaAge = LinkStateAdvertisement.MAX_AGE;
+    return maxAgeLsa;
+  }
+
   /**
    * Static method to verify Link[] ports array and target IP address input combination.
    */
@@ -219,7 +276,7 @@ final class RouterUtils {
    * Close client-server I/O socket connection.
    */
   static void closeIoSocketConnection(
-      Socket ioSocket, ObjectInputStream inFromServer, ObjectOutputStream outToServer) {
+      Socket ioSocket, InputStream inFromServer, OutputStream outToServer) {
     try {
       if (inFromServer != null) {
         inFromServer.close();
@@ -264,6 +321,51 @@ final class RouterUtils {
     System.out.println(alertMessageOfNoPortsAvailableAtTargetRouter);
   }
 
+  /**
+   * Static method to verify that the input packet is a DBD actually carrying LSA headers.
+   */
+  static void verifyDbdPacket(SospfPacket packet) throws Exception {
+    if (packet == null) {
+      throw new Exception("Received null DBD packet!");
+    }
+    if (packet.sospfType != SospfPacket.SOSPF_DBD) {
+      raiseInvalidResponseException(packet.sospfType);
+    }
+    if (packet.lsaHeaderArray == null) {
+      throw new Exception("Received DBD packet without LSA headers!");
+    }
+  }
+
+  /**
+   * Static method to verify that the input packet is a valid DIGEST packet.
+   */
+  static void verifyDigestPacket(SospfPacket packet) throws Exception {
+    if (packet == null) {
+      throw new Exception("Received null DIGEST packet!");
+    }
+    if (packet.sospfType != SospfPacket.SOSPF_DIGEST) {
+      raiseInvalidResponseException(packet.sospfType);
+    }
+    if (packet.digestNodes == null) {
+      throw new Exception("Received DIGEST packet without digests!");
+    }
+  }
+
+  /**
+   * Static method to verify that the input packet acknowledges our LSAUPDATE.
+   */
+  static void verifyLsaUpdateAck(SospfPacket packet) throws Exception {
+    if (packet == null) {
+      throw new Exception("Received null LSAUPDATE ack!");
+    }
+    if (packet.sospfType == SospfPacket.SOSPF_BUSY) {
+      throw new Exception("Remote is too busy to handle our LSAUPDATE: it will be sent again.");
+    }
+    if (packet.sospfType != SospfPacket.SOSPF_LSAUPDATE) {
+      raiseInvalidResponseException(packet.sospfType);
+    }
+  }
+
   /**
    * Static method to raise exception on receiving invalid response packet at client.
    */
@@ -284,42 +386,18 @@ final class RouterUtils {
   }
 
   /**
-   * Static method to deserialize SospfPacket from given input stream.
+   * Static method to serialize SospfPacket (as a single frame of a conversation) to given stream.
    */
-  static SospfPacket deserializeSospfPacketFromInputStream(
-      ObjectInputStream inFromRemoteServer, Socket activeSocket, boolean suppressEofExceptionAlert)
+  static void serializeSospfPacketToOutputStream(DataOutputStream outToRemote,
+      int conversationId, SospfPacket packet, WireEncoding encoding, boolean compressionNegotiated)
       throws Exception {
-    try {
-      if (inFromRemoteServer == null) {
-        throw new IllegalArgumentException("Received null input stream!");
-      }
-      if (activeSocket == null) {
-        throw new IllegalArgumentException("Received null socket connection!");
-      }
-      Object inputRequestRaw = null;
-      try {
-        // attempt to read raw binary of packet as generic object
-        inputRequestRaw = inFromRemoteServer.readObject();
-      } catch (SocketException e) {
-        // FIXME: might be dangerous to fail here but there are so many connection resets...
-        // for socket exceptions, we fail silently
-        return null;
-      }
-      if (inputRequestRaw == null) {
-        throw new Exception("Received empty input packet!");
-      }
-      // attempt to deserialize packet to expected SospfPacket object
-      return (SospfPacket) inputRequestRaw;
-    } catch (Exception e) {
-      if (!suppressEofExceptionAlert) {
-        String alertMessageOfFailedInputStreamParsing =
-            "\n\nError: Failed to parse input stream to SospfPacket at socket '"
-                + activeSocket + "' \n\n";
-        RouterUtils.alertExceptionToConsole(e, alertMessageOfFailedInputStreamParsing);
-      }
-      // important to raise exception here to defer control flow & close connections
-      throw e;
+    if (outToRemote == null) {
+      throw new IllegalArgumentException("Received null output stream!");
     }
+    if (packet == null) {
+      throw new IllegalArgumentException("Trying to send null packet!");
+    }
+    FramingUtils.writeFrame(outToRemote, conversationId, packet, encoding, compressionNegotiated);
   }
 
   /**
@@ -376,6 +454,8 @@ final class RouterUtils {
       case SospfPacket.SOSPF_CONNECT:
         RouterUtils.respondAtClientToHelloReply(curLink, responsePacket);
         break;
+      case SospfPacket.SOSPF_BUSY:
+        throw new Exception("Remote is too busy to handle our HELLO: please try again later.");
       case SospfPacket.SOSPF_LSAUPDATE:
       case SospfPacket.SOSPF_DISCONNECT:
       case SospfPacket.SOSPF_HEARTBEAT:
@@ -386,6 +466,16 @@ final class RouterUtils {
     }
   }
 
+  /**
+   * Static method to raise exception iff the remote refused our attachment in reply to a HELLO.
+   */
+  static void verifyHelloReplyAcceptedAttachment(SospfPacket responsePacket) throws Exception {
+    if (responsePacket.sospfType == SospfPacket.SOSPF_NO_PORTS_AVAILABLE) {
+      throw new Exception(
+          "Remote with (SimulatedIP = " + responsePacket.srcIp + " ) refused our attachment.");
+    }
+  }
+
   /**
    * Static method to respond at remote to HELLO broadcast reply.
    */
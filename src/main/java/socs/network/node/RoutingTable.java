@@ -0,0 +1,294 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.Arrays;
+
+/**
+ * Immutable routing table of our router over a shortest-path tree: a next hop per destination,
+ * along with a precomputed loop-free alternate next hop (in the fashion of RFC 5286) onto which
+ * its traffic may be switched the moment the former fails.
+ *
+ * <p> A neighbor N (other than the next hop) of our router S is a loop-free alternate towards a
+ * destination D if D(N, D) < D(N, S) + D(S, D), ie. if N does not route traffic to D back through
+ * S. It further protects against the failure of the next hop E as a whole (rather than just our
+ * link to it) if D(N, D) < D(N, E) + D(E, D). We thus run one SPF rooted at each of our
+ * neighbors over the same graph snapshot, and pick for each destination a node-protecting
+ * alternate over a link-protecting one, then the cheapest one. </p>
+ */
+final class RoutingTable {
+
+  /**
+   * Byte constant flagging a destination without alternate.
+   */
+  static final byte NO_PROTECTION = 0;
+
+  /**
+   * Byte constant flagging an alternate protecting against the failure of our link to the next
+   * hop only.
+   */
+  static final byte LINK_PROTECTION = 1;
+
+  /**
+   * Byte constant flagging an alternate protecting against the failure of the next hop itself.
+   */
+  static final byte NODE_PROTECTION = 2;
+
+  /**
+   * Shortest-path tree over which this table was computed.
+   */
+  private final ShortestPathTree shortestPathTree;
+
+  /**
+   * Next hop towards each node (or NO_PREVIOUS_NODE).
+   */
+  private final int[] nextHop;
+
+  /**
+   * Cost of the route over the next hop towards each node.
+   */
+  private final long[] cost;
+
+  /**
+   * Loop-free alternate next hop towards each node (or NO_PREVIOUS_NODE).
+   */
+  private final int[] alternateNextHop;
+
+  /**
+   * Cost of the route over the alternate next hop towards each node.
+   */
+  private final long[] alternateCost;
+
+  /**
+   * Protection (ie. NO_PROTECTION, LINK_PROTECTION or NODE_PROTECTION) of each node's alternate.
+   */
+  private final byte[] protection;
+
+  /**
+   * Flags of the nodes whose traffic was switched onto its alternate after a failure.
+   */
+  private final boolean[] isFailedOver;
+
+  /**
+   * Instantiate RoutingTable from its (precomputed) entries.
+   */
+  private RoutingTable(ShortestPathTree shortestPathTree, int[] nextHop, long[] cost,
+      int[] alternateNextHop, long[] alternateCost, byte[] protection, boolean[] isFailedOver) {
+    this.shortestPathTree = shortestPathTree;
+    this.nextHop = nextHop;
+    this.cost = cost;
+    this.alternateNextHop = alternateNextHop;
+    this.alternateCost = alternateCost;
+    this.protection = protection;
+    this.isFailedOver = isFailedOver;
+  }
+
+  /**
+   * Compute the routing table (next hops & their loop-free alternates) over the input tree.
+   */
+  static RoutingTable fromShortestPathTree(ShortestPathTree shortestPathTree) {
+    if (shortestPathTree == null) {
+      throw new IllegalArgumentException("Cannot compute routing table of null tree.");
+    }
+    LinkStateGraph graph = shortestPathTree.getGraph();
+    int sourceNode = shortestPathTree.getSourceNode();
+    int numNodes = graph.getNumNodes();
+
+    // collect our live neighbors (along with the cost of our cheapest link to each)
+    int[] neighborNodes = new int[graph.getEndEdge(sourceNode) - graph.getFirstEdge(sourceNode)];
+    long[] neighborLinkCosts = new long[neighborNodes.length];
+    int numNeighbors = 0;
+    for (int edge = graph.getFirstEdge(sourceNode); edge < graph.getEndEdge(sourceNode); edge++) {
+      int neighborNode = graph.getEdgeTarget(edge);
+      if (neighborNode == sourceNode || !graph.hasLinkStateAdvertisement(neighborNode)
+          || graph.hasShutdown(neighborNode)) {
+        continue;
+      }
+      int neighborIndex = 0;
+      while (neighborIndex < numNeighbors && neighborNodes[neighborIndex] != neighborNode) {
+        neighborIndex++;
+      }
+      if (neighborIndex == numNeighbors) {
+        neighborNodes[numNeighbors] = neighborNode;
+        neighborLinkCosts[numNeighbors++] = graph.getEdgeWeight(edge);
+      } else {
+        neighborLinkCosts[neighborIndex] =
+            Math.min(neighborLinkCosts[neighborIndex], graph.getEdgeWeight(edge));
+      }
+    }
+
+    // one SPF rooted at each neighbor gives us its distances (over the same snapshot)
+    ShortestPathTree[] neighborTrees = new ShortestPathTree[numNeighbors];
+    for (int neighborIndex = 0; neighborIndex < numNeighbors; neighborIndex++) {
+      neighborTrees[neighborIndex] =
+          LinkStateDatabaseUtils.computeShortestPathTree(graph, neighborNodes[neighborIndex]);
+    }
+
+    int[] nextHop = new int[numNodes];
+    long[] cost = new long[numNodes];
+    int[] alternateNextHop = new int[numNodes];
+    long[] alternateCost = new long[numNodes];
+    byte[] protection = new byte[numNodes];
+    Arrays.fill(alternateNextHop, ShortestPathTree.NO_PREVIOUS_NODE);
+    for (int node = 0; node < numNodes; node++) {
+      nextHop[node] = shortestPathTree.getFirstHop(node);
+      cost[node] = shortestPathTree.getDistance(node);
+      if (nextHop[node] == ShortestPathTree.NO_PREVIOUS_NODE) {
+        continue;
+      }
+      ShortestPathTree nextHopTree = null;
+      for (int neighborIndex = 0; neighborIndex < numNeighbors; neighborIndex++) {
+        if (neighborNodes[neighborIndex] == nextHop[node]) {
+          nextHopTree = neighborTrees[neighborIndex];
+        }
+      }
+      for (int neighborIndex = 0; neighborIndex < numNeighbors; neighborIndex++) {
+        int neighborNode = neighborNodes[neighborIndex];
+        ShortestPathTree neighborTree = neighborTrees[neighborIndex];
+        if (neighborNode == nextHop[node] || !neighborTree.isReachable(node)) {
+          continue;
+        }
+        // loop-free: our neighbor's shortest path to the destination does not come back through us
+        long neighborDistance = neighborTree.getDistance(node);
+        if (neighborDistance >= getDistanceOrInfinity(neighborTree, sourceNode) + cost[node]) {
+          continue;
+        }
+        // node-protecting: nor does it go through our next hop (unless it is the destination)
+        byte neighborProtection = LINK_PROTECTION;
+        if (nextHop[node] != node && nextHopTree != null
+            && neighborDistance < getDistanceOrInfinity(neighborTree, nextHop[node])
+                + getDistanceOrInfinity(nextHopTree, node)) {
+          neighborProtection = NODE_PROTECTION;
+        }
+        long neighborCost = neighborLinkCosts[neighborIndex] + neighborDistance;
+        if (neighborProtection > protection[node]
+            || (neighborProtection == protection[node] && neighborCost < alternateCost[node])) {
+          alternateNextHop[node] = neighborNode;
+          alternateCost[node] = neighborCost;
+          protection[node] = neighborProtection;
+        }
+      }
+    }
+    return new RoutingTable(shortestPathTree, nextHop, cost, alternateNextHop, alternateCost,
+        protection, new boolean[numNodes]);
+  }
+
+  /**
+   * Helper method to get the distance of the input node over the input tree (as a long, so that
+   * an unreachable node lies beyond any sum of two reachable distances).
+   */
+  private static long getDistanceOrInfinity(ShortestPathTree tree, int node) {
+    return tree.isReachable(node) ? tree.getDistance(node) : Long.MAX_VALUE / 2;
+  }
+
+  /**
+   * Derive the routing table in which the traffic of every route over the input (failed) neighbor
+   * is switched onto its alternate, pending the next SPF run.
+   */
+  RoutingTable withFailedNeighbor(int failedNeighborNode) {
+    int[] nextHop = this.nextHop.clone();
+    long[] cost = this.cost.clone();
+    int[] alternateNextHop = this.alternateNextHop.clone();
+    long[] alternateCost = this.alternateCost.clone();
+    byte[] protection = this.protection.clone();
+    boolean[] isFailedOver = this.isFailedOver.clone();
+    for (int node = 0; node < nextHop.length; node++) {
+      if (nextHop[node] == failedNeighborNode) {
+        // switch over to our alternate (or lose the route if we have none)
+        nextHop[node] = alternateNextHop[node];
+        cost[node] = alternateCost[node];
+        isFailedOver[node] = true;
+      }
+      if (nextHop[node] == alternateNextHop[node] || alternateNextHop[node] == failedNeighborNode) {
+        alternateNextHop[node] = ShortestPathTree.NO_PREVIOUS_NODE;
+        protection[node] = NO_PROTECTION;
+      }
+    }
+    return new RoutingTable(shortestPathTree, nextHop, cost, alternateNextHop, alternateCost,
+        protection, isFailedOver);
+  }
+
+  /**
+   * Getter of the shortest-path tree over which this table was computed.
+   */
+  ShortestPathTree getShortestPathTree() {
+    return shortestPathTree;
+  }
+
+  /**
+   * Getter of the next hop towards the input node (or NO_PREVIOUS_NODE).
+   */
+  int getNextHop(int node) {
+    return nextHop[node];
+  }
+
+  /**
+   * Getter of the loop-free alternate next hop towards the input node (or NO_PREVIOUS_NODE).
+   */
+  int getAlternateNextHop(int node) {
+    return alternateNextHop[node];
+  }
+
+  /**
+   * Getter of the protection offered by the alternate towards the input node.
+   */
+  byte getProtection(int node) {
+    return protection[node];
+  }
+
+  /**
+   * Boolean helper method to check if the traffic to the input node was switched onto its
+   * alternate.
+   */
+  boolean isFailedOver(int node) {
+    return isFailedOver[node];
+  }
+
+  /**
+   * Convey string representation of Routing Table instance (one route per live destination).
+   */
+  @Override
+  public String toString() {
+    LinkStateGraph graph = shortestPathTree.getGraph();
+    StringBuilder sb = new StringBuilder("destination\tcost\tnext hop\talternate");
+    for (int node = 0; node < nextHop.length; node++) {
+      if (node == shortestPathTree.getSourceNode() || !graph.hasLinkStateAdvertisement(node)
+          || graph.hasShutdown(node)) {
+        continue;
+      }
+      sb.append("\n").append(graph.getNodeId(node)).append("\t");
+      if (nextHop[node] == ShortestPathTree.NO_PREVIOUS_NODE) {
+        sb.append("-\t-");
+      } else {
+        sb.append(cost[node]).append("\t").append(graph.getNodeId(nextHop[node]));
+        if (isFailedOver[node]) {
+          sb.append(" (failed over)");
+        }
+      }
+      sb.append("\t");
+      if (alternateNextHop[node] == ShortestPathTree.NO_PREVIOUS_NODE) {
+        sb.append("-");
+      } else {
+        sb.append(graph.getNodeId(alternateNextHop[node])).append(" (")
+            .append((protection[node] == NODE_PROTECTION) ? "node" : "link")
+            .append("-protecting, cost ").append(alternateCost[node]).append(")");
+      }
+    }
+    return sb.toString();
+  }
+}
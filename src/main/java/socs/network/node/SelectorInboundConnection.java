@@ -0,0 +1,247 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import socs.network.message.SospfPacket;
+
+/**
+ * Inbound connection multiplexed (alongside many others) over a SelectorServer's I/O threads.
+ *
+ * <p> The I/O thread serving this connection splits incoming bytes into frames and routes them to
+ * their conversations; a RequestHandlerJob only runs while a conversation is open, so idle
+ * connections cost a selection key and a small read buffer rather than a whole thread. </p>
+ *
+ * <p> The memory held by a connection is bounded too: its read buffer only grows to fit the frame
+ * being read (and shrinks back right after), while a client which stops reading its replies is
+ * dropped once they outgrow its outbox. </p>
+ */
+class SelectorInboundConnection extends InboundConnection {
+
+  /**
+   * Int constant of the initial (and resting) size in bytes of a connection's read buffer.
+   */
+  private static final int INITIAL_READ_BUFFER_SIZE = 4096;
+
+  /**
+   * Int constant of the maximum number of bytes queued in a connection's outbox (ie. a single
+   * frame of the largest size), past which its client is deemed too slow to keep.
+   */
+  private static final int MAX_OUTBOX_LENGTH =
+      FramingUtils.FRAME_HEADER_LENGTH + FramingUtils.MAX_FRAME_PAYLOAD_LENGTH;
+
+  /**
+   * Non-blocking channel of the client-server connection.
+   */
+  final SocketChannel socketChannel;
+
+  /**
+   * I/O loop of the server to which this connection is assigned.
+   */
+  private final SelectorServer.IoLoopJob ioLoop;
+
+  /**
+   * Key of this connection's registration with its I/O loop's selector (set upon registration).
+   */
+  SelectionKey selectionKey = null;
+
+  /**
+   * Buffer accumulating bytes read from the client until they form complete frames.
+   */
+  private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+
+  /**
+   * Queue of complete frames waiting to be written to the client.
+   */
+  private final ConcurrentLinkedQueue<ByteBuffer> outbox = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Number of bytes of the frames queued in our outbox.
+   */
+  private final AtomicInteger outboxLength = new AtomicInteger(0);
+
+  /**
+   * Boolean to flag that the connection should be closed as soon as its outbox is drained.
+   */
+  volatile boolean closeRequested = false;
+
+  /**
+   * Timestamp (in milliseconds) of the last byte read from or written to the client.
+   */
+  private volatile long lastActiveTimeMillis = System.currentTimeMillis();
+
+  /**
+   * Instantiate SelectorInboundConnection over a freshly accepted (non-blocking) channel.
+   */
+  SelectorInboundConnection(Router router, SocketChannel socketChannel,
+      SelectorServer.IoLoopJob ioLoop) {
+    super(router);
+    if (socketChannel == null) {
+      throw new IllegalArgumentException("Received null socket channel!");
+    }
+    this.socketChannel = socketChannel;
+    this.ioLoop = ioLoop;
+  }
+
+  /**
+   * Read whatever the client has sent so far, routing each complete frame (on the I/O thread).
+   *
+   * @return false iff the client has closed the connection
+   */
+  boolean readFrames() throws IOException {
+    while (true) {
+      int numBytesRead = socketChannel.read(readBuffer);
+      if (numBytesRead < 0) {
+        return false;
+      }
+      if (numBytesRead > 0) {
+        lastActiveTimeMillis = System.currentTimeMillis();
+      }
+      boolean readBufferWasFull = !readBuffer.hasRemaining();
+      extractCompleteFrames();
+      if (!readBufferWasFull) {
+        // the socket has no more bytes for us at the moment
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Helper method to move every complete frame out of the read buffer and to its conversation.
+   */
+  private void extractCompleteFrames() throws IOException {
+    readBuffer.flip();
+    while (readBuffer.remaining() >= FramingUtils.FRAME_HEADER_LENGTH) {
+      // peek at the frame header without consuming it
+      int payloadLength = readBuffer.getInt(readBuffer.position());
+      FramingUtils.verifyFramePayloadLength(payloadLength);
+      if (readBuffer.remaining() < FramingUtils.FRAME_HEADER_LENGTH + payloadLength) {
+        // the rest of this frame has yet to arrive
+        break;
+      }
+      int conversationId =
+          readBuffer.getInt(readBuffer.position() + FramingUtils.FRAME_CONVERSATION_ID_OFFSET);
+      readBuffer.position(readBuffer.position() + FramingUtils.FRAME_HEADER_LENGTH);
+      byte[] payload = new byte[payloadLength];
+      readBuffer.get(payload);
+      deliverFrame(conversationId, payload);
+    }
+    readBuffer.compact();
+
+    // ** at this point, the read buffer holds (only) the start of the next frame **
+
+    // (the length of the next frame is only known once its header is in)
+    int nextFrameLength = FramingUtils.FRAME_HEADER_LENGTH;
+    if (readBuffer.position() >= FramingUtils.FRAME_HEADER_LENGTH) {
+      nextFrameLength += readBuffer.getInt(0);
+    }
+    if (nextFrameLength > readBuffer.capacity()) {
+      // grow the buffer iff the next frame cannot otherwise fit in it
+      resizeReadBuffer(nextFrameLength);
+    } else if (nextFrameLength <= INITIAL_READ_BUFFER_SIZE
+        && readBuffer.capacity() > INITIAL_READ_BUFFER_SIZE) {
+      // shrink back to our resting size once a large frame has been consumed (even as the start
+      // of a small one is already in)
+      resizeReadBuffer(INITIAL_READ_BUFFER_SIZE);
+    }
+  }
+
+  /**
+   * Helper method to move the (partial frame) bytes of the read buffer into one of the input
+   * capacity.
+   */
+  private void resizeReadBuffer(int capacity) {
+    ByteBuffer resizedReadBuffer = ByteBuffer.allocate(capacity);
+    readBuffer.flip();
+    resizedReadBuffer.put(readBuffer);
+    readBuffer = resizedReadBuffer;
+  }
+
+  /**
+   * Write as many queued frames as the channel accepts (on the I/O thread).
+   *
+   * @return true iff every queued frame has been fully written
+   */
+  boolean writePendingFrames() throws IOException {
+    ByteBuffer frame;
+    while ((frame = outbox.peek()) != null) {
+      socketChannel.write(frame);
+      if (frame.hasRemaining()) {
+        // the socket's send buffer is full: wait until it is writable again
+        return false;
+      }
+      outbox.poll();
+      outboxLength.addAndGet(-frame.limit());
+      lastActiveTimeMillis = System.currentTimeMillis();
+    }
+    return true;
+  }
+
+  /**
+   * Boolean helper method to check if no conversation has been open for the input duration.
+   */
+  boolean isIdleFor(long idleTimeMillis) {
+    return !hasOpenConversations()
+        && System.currentTimeMillis() - lastActiveTimeMillis >= idleTimeMillis;
+  }
+
+  /**
+   * Queue a packet of the input conversation for the I/O thread to write to the client.
+   */
+  @Override
+  void sendFrame(int conversationId, SospfPacket packet) throws Exception {
+    if (hasReachedEndOfStream() || closeRequested) {
+      throw new EOFException("Cannot send packet over closed connection.");
+    }
+    ByteBuffer frame =
+        FramingUtils.encodeFrame(conversationId, packet, wireEncoding, compressionNegotiated);
+    if (outboxLength.addAndGet(frame.limit()) > MAX_OUTBOX_LENGTH) {
+      outboxLength.addAndGet(-frame.limit());
+      // the client has stopped reading our replies (or reads them too slowly): drop it
+      closeRequested = true;
+      ioLoop.requestClose(this);
+      throw new IOException("Outbox of connection exceeded ( max length = "
+          + MAX_OUTBOX_LENGTH + " ).");
+    }
+    outbox.add(frame);
+    ioLoop.requestWrite(this);
+  }
+
+  /**
+   * Close the connection as soon as the frames already queued for the client are written.
+   */
+  @Override
+  void close() {
+    closeRequested = true;
+    ioLoop.requestWrite(this);
+  }
+
+  /**
+   * Convey string representation of Selector Inbound Connection instance.
+   */
+  @Override
+  public String toString() {
+    return "channel " + socketChannel;
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking server multiplexing every inbound connection of a Router over a few I/O threads.
+ *
+ * <p> Each I/O thread owns a Selector (the first one also accepts new connections) and only ever
+ * moves framed bytes in and out of its connections; decoding and handling of the packets is left
+ * to the Router's bounded pool of workers running RequestHandlerJobs. </p>
+ */
+class SelectorServer {
+
+  /**
+   * Int constant for the interval (in milliseconds) between sweeps for idle connections.
+   */
+  private static final int IDLE_CONNECTION_SWEEP_INTERVAL = 1000;
+
+  /**
+   * Router on behalf of which this server handles requests.
+   */
+  private final Router router;
+
+  /**
+   * Non-blocking channel at which we listen for incoming connections.
+   */
+  private final ServerSocketChannel serverSocketChannel;
+
+  /**
+   * Fixed set of I/O loops over which connections are distributed.
+   */
+  private final IoLoopJob[] ioLoopJobs;
+
+  /**
+   * Running counter to distribute accepted connections over the I/O loops (round-robin).
+   */
+  private final AtomicInteger numAcceptedConnections = new AtomicInteger(0);
+
+  /**
+   * Instantiate SelectorServer bound to the input port (raising exception if it is unavailable).
+   */
+  SelectorServer(Router router, short processPortNumber, int numIoThreads) throws IOException {
+    if (router == null) {
+      throw new IllegalArgumentException("Cannot instantiate a server for a null router.");
+    }
+    if (numIoThreads <= 0) {
+      throw new IllegalArgumentException(
+          "Cannot instantiate a server with (I/O threads = " + numIoThreads + " ).");
+    }
+    this.router = router;
+    serverSocketChannel = ServerSocketChannel.open();
+    try {
+      serverSocketChannel.bind(new InetSocketAddress(processPortNumber));
+      serverSocketChannel.configureBlocking(false);
+      ioLoopJobs = new IoLoopJob[numIoThreads];
+      for (int ioLoopIndex = 0; ioLoopIndex < numIoThreads; ioLoopIndex++) {
+        ioLoopJobs[ioLoopIndex] = new IoLoopJob();
+      }
+      // the first I/O loop doubles as our acceptor
+      serverSocketChannel.register(ioLoopJobs[0].selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException e) {
+      serverSocketChannel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Start each of our I/O loops in its own background thread.
+   */
+  void start() {
+    for (int ioLoopIndex = 0; ioLoopIndex < ioLoopJobs.length; ioLoopIndex++) {
+      new Thread(ioLoopJobs[ioLoopIndex], "sospf-selector-" + ioLoopIndex).start();
+    }
+  }
+
+  /**
+   * Job to run a Selector loop over its share of our inbound connections.
+   */
+  class IoLoopJob implements Runnable {
+
+    /**
+     * Selector of the connections served by this loop.
+     */
+    private final Selector selector;
+
+    /**
+     * Tasks submitted by other threads, to be run on this loop's thread.
+     */
+    private final ConcurrentLinkedQueue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Timestamp (in milliseconds) of the last sweep for idle connections.
+     */
+    private long lastIdleConnectionSweepTimeMillis = System.currentTimeMillis();
+
+    /**
+     * Instantiate IoLoopJob with a fresh selector.
+     */
+    IoLoopJob() throws IOException {
+      selector = Selector.open();
+    }
+
+    /**
+     * Run the input task on this loop's thread (waking up its selector to do so promptly).
+     */
+    private void submit(Runnable task) {
+      pendingTasks.add(task);
+      selector.wakeup();
+    }
+
+    /**
+     * Register a freshly accepted connection with this loop.
+     */
+    private void register(SelectorInboundConnection connection) {
+      submit(() -> {
+        try {
+          connection.selectionKey =
+              connection.socketChannel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException e) {
+          closeConnection(connection);
+        }
+      });
+    }
+
+    /**
+     * Request that the frames queued at the input connection be written out.
+     */
+    void requestWrite(SelectorInboundConnection connection) {
+      submit(() -> handleWritable(connection));
+    }
+
+    /**
+     * Request that the input connection be closed right away (without draining its outbox).
+     */
+    void requestClose(SelectorInboundConnection connection) {
+      submit(() -> closeConnection(connection));
+    }
+
+    /**
+     * Helper method to accept every pending connection (distributing them over our loops).
+     */
+    private void acceptConnections() throws IOException {
+      SocketChannel acceptedChannel;
+      while ((acceptedChannel = serverSocketChannel.accept()) != null) {
+        if (!router.tryAdmitInboundConnection()) {
+          // we already serve as many connections as we can: the client will retry later
+          acceptedChannel.close();
+          continue;
+        }
+        acceptedChannel.configureBlocking(false);
+        acceptedChannel.socket().setTcpNoDelay(true);
+        IoLoopJob assignedIoLoop = ioLoopJobs[
+            Math.floorMod(numAcceptedConnections.getAndIncrement(), ioLoopJobs.length)];
+        assignedIoLoop.register(
+            new SelectorInboundConnection(router, acceptedChannel, assignedIoLoop));
+      }
+    }
+
+    /**
+     * Helper method to read from a connection (routing each complete frame to its conversation).
+     */
+    private void handleReadable(SelectorInboundConnection connection) throws IOException {
+      if (!connection.readFrames()) {
+        // the client has closed its end of the connection
+        closeConnection(connection);
+      }
+    }
+
+    /**
+     * Helper method to write out a connection's queued frames (closing it after, if requested).
+     */
+    private void handleWritable(SelectorInboundConnection connection) {
+      SelectionKey selectionKey = connection.selectionKey;
+      if (selectionKey == null || !selectionKey.isValid()) {
+        return;
+      }
+      try {
+        if (connection.writePendingFrames()) {
+          if (connection.closeRequested) {
+            closeConnection(connection);
+          } else {
+            selectionKey.interestOps(SelectionKey.OP_READ);
+          }
+        } else {
+          // resume writing once the socket can take more bytes
+          selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+      } catch (IOException e) {
+        closeConnection(connection);
+      }
+    }
+
+    /**
+     * Helper method to close a connection (waking up any job still waiting on it).
+     */
+    private void closeConnection(SelectorInboundConnection connection) {
+      if (!connection.socketChannel.isOpen()) {
+        // already closed (and its permit given back)
+        return;
+      }
+      connection.markEndOfStream();
+      if (connection.selectionKey != null) {
+        connection.selectionKey.cancel();
+      }
+      try {
+        connection.socketChannel.close();
+      } catch (IOException ignored) {
+        // fail silently (the connection is being discarded regardless)
+      }
+      router.releaseInboundConnection();
+    }
+
+    /**
+     * Helper method to close connections abandoned by their clients.
+     */
+    private void sweepIdleConnections() {
+      long currentTimeMillis = System.currentTimeMillis();
+      if (currentTimeMillis - lastIdleConnectionSweepTimeMillis < IDLE_CONNECTION_SWEEP_INTERVAL) {
+        return;
+      }
+      lastIdleConnectionSweepTimeMillis = currentTimeMillis;
+      for (SelectionKey selectionKey : selector.keys()) {
+        Object attachment = selectionKey.attachment();
+        if (attachment instanceof SelectorInboundConnection) {
+          SelectorInboundConnection connection = (SelectorInboundConnection) attachment;
+          if (connection.isIdleFor(Router.SERVER_CONNECTION_IDLE_TIMEOUT)) {
+            closeConnection(connection);
+          }
+        }
+      }
+    }
+
+    /**
+     * IoLoopJob's execution routine to indefinitely move bytes in and out of its connections.
+     */
+    public void run() {
+      try {
+        // infinite loop to serve our connections
+        while (true) {
+          selector.select(IDLE_CONNECTION_SWEEP_INTERVAL);
+
+          // first, run whatever other threads have asked of us
+          Runnable pendingTask;
+          while ((pendingTask = pendingTasks.poll()) != null) {
+            pendingTask.run();
+          }
+
+          // then, serve each ready key
+          Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+          while (selectedKeys.hasNext()) {
+            SelectionKey selectionKey = selectedKeys.next();
+            selectedKeys.remove();
+            if (!selectionKey.isValid()) {
+              continue;
+            }
+            if (selectionKey.isAcceptable()) {
+              acceptConnections();
+              continue;
+            }
+            SelectorInboundConnection connection =
+                (SelectorInboundConnection) selectionKey.attachment();
+            try {
+              if (selectionKey.isReadable()) {
+                handleReadable(connection);
+              }
+              if (selectionKey.isValid() && selectionKey.isWritable()) {
+                handleWritable(connection);
+              }
+            } catch (Exception e) {
+              // a single misbehaving connection should not take the whole loop down
+              closeConnection(connection);
+            }
+          }
+
+          sweepIdleConnections();
+        }
+      } catch (Exception e) {
+        String jobCrashedMessage =
+            "\n\nSelector IoLoopJob crashed for router IP " + router.rd.simulatedIpAddress
+                + " \n\n";
+        RouterUtils.alertExceptionToConsole(e, jobCrashedMessage);
+        System.out.print(">> ");
+      }
+    }
+  }
+}
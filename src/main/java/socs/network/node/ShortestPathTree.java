@@ -0,0 +1,251 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Immutable shortest-path tree (along with the resulting routing table) rooted at our router,
+ * computed once per graph snapshot so that every path query is answered in O(path length).
+ *
+ * <p> Only one predecessor is kept per node, but since distances are final, the equal-cost
+ * predecessors of a node are just those of its incoming edges which are tight (ie. dist[u] + w
+ * equals dist[v]): the full equal-cost multipath DAG is thus derived on demand. </p>
+ */
+final class ShortestPathTree {
+
+  /**
+   * Int constant flagging a node without predecessor (ie. the source, or an unreachable node).
+   */
+  static final int NO_PREVIOUS_NODE = -1;
+
+  /**
+   * Graph snapshot over which this tree was computed.
+   */
+  private final LinkStateGraph graph;
+
+  /**
+   * Root node of this tree (ie. our router).
+   */
+  private final int sourceNode;
+
+  /**
+   * Distance of each node from the source (Integer.MAX_VALUE if unreachable).
+   */
+  private final int[] dist;
+
+  /**
+   * Predecessor of each node on its shortest path from the source (or NO_PREVIOUS_NODE).
+   */
+  private final int[] prev;
+
+  /**
+   * First hop (ie. neighbor of the source) on the shortest path to each node (or
+   * NO_PREVIOUS_NODE), which makes up our routing table.
+   */
+  private final int[] firstHop;
+
+  /**
+   * Instantiate ShortestPathTree from the results of a (complete) run of Dijkstra's algorithm.
+   */
+  ShortestPathTree(LinkStateGraph graph, int sourceNode, int[] dist, int[] prev, int[] firstHop) {
+    this.graph = graph;
+    this.sourceNode = sourceNode;
+    this.dist = dist;
+    this.prev = prev;
+    this.firstHop = firstHop;
+  }
+
+  /**
+   * Getter of the graph snapshot over which this tree was computed.
+   */
+  LinkStateGraph getGraph() {
+    return graph;
+  }
+
+  /**
+   * Getter of the root node of this tree.
+   */
+  int getSourceNode() {
+    return sourceNode;
+  }
+
+  /**
+   * Getter of the predecessor of the input node on its shortest path (or NO_PREVIOUS_NODE).
+   */
+  int getPreviousNode(int node) {
+    return prev[node];
+  }
+
+  /**
+   * Boolean helper method to check if the input node is reachable from the source.
+   */
+  boolean isReachable(int node) {
+    return dist[node] != Integer.MAX_VALUE;
+  }
+
+  /**
+   * Getter of the distance of the input node from the source.
+   */
+  int getDistance(int node) {
+    return dist[node];
+  }
+
+  /**
+   * Getter of the first hop on the shortest path to the input node (or NO_PREVIOUS_NODE).
+   */
+  int getFirstHop(int node) {
+    return firstHop[node];
+  }
+
+  /**
+   * Getter of the shortest path (as a sequence of nodes from the source) to the input node, or
+   * null if it is unreachable.
+   */
+  int[] getPathTo(int destinationNode) {
+    if (!isReachable(destinationNode)) {
+      return null;
+    }
+    // working our way back from the destination, we count the nodes on its path
+    int pathLength = 1;
+    for (int curNode = destinationNode; curNode != sourceNode; curNode = prev[curNode]) {
+      pathLength++;
+    }
+    // then fill in our path (from its end)
+    int[] path = new int[pathLength];
+    int curNode = destinationNode;
+    for (int pathIndex = pathLength - 1; pathIndex >= 0; pathIndex--) {
+      path[pathIndex] = curNode;
+      curNode = prev[curNode];
+    }
+    return path;
+  }
+
+  /**
+   * Getter of every equal-cost predecessor of the input node (ie. the source of each tight edge
+   * into it), in ascending order.
+   */
+  int[] getEqualCostPreviousNodes(int node) {
+    if (!isReachable(node) || node == sourceNode) {
+      return new int[0];
+    }
+    int[] previousNodes = new int[graph.getEndInEdge(node) - graph.getFirstInEdge(node)];
+    int numPreviousNodes = 0;
+    for (int inEdge = graph.getFirstInEdge(node); inEdge < graph.getEndInEdge(node); inEdge++) {
+      int previousNode = graph.getInEdgeSource(inEdge);
+      if (previousNode != node && isReachable(previousNode)
+          && dist[previousNode] + graph.getInEdgeWeight(inEdge) == dist[node]) {
+        previousNodes[numPreviousNodes++] = previousNode;
+      }
+    }
+    // dropping the duplicates of parallel links
+    Arrays.sort(previousNodes, 0, numPreviousNodes);
+    int numDistinctPreviousNodes = 0;
+    for (int previousIndex = 0; previousIndex < numPreviousNodes; previousIndex++) {
+      if (numDistinctPreviousNodes == 0
+          || previousNodes[numDistinctPreviousNodes - 1] != previousNodes[previousIndex]) {
+        previousNodes[numDistinctPreviousNodes++] = previousNodes[previousIndex];
+      }
+    }
+    return Arrays.copyOf(previousNodes, numDistinctPreviousNodes);
+  }
+
+  /**
+   * Getter of every first hop (ie. neighbor of the source) over which the input node may be
+   * reached at its shortest distance, in ascending order.
+   */
+  int[] getEqualCostFirstHops(int node) {
+    HashSet<Integer> firstHops = new HashSet<>();
+    // walk back over the equal-cost DAG: its nodes hanging right off the source are our hops
+    HashSet<Integer> visitedNodes = new HashSet<>();
+    ArrayList<Integer> nodesToVisit = new ArrayList<>();
+    nodesToVisit.add(node);
+    visitedNodes.add(node);
+    while (!nodesToVisit.isEmpty()) {
+      int curNode = nodesToVisit.remove(nodesToVisit.size() - 1);
+      for (int previousNode : getEqualCostPreviousNodes(curNode)) {
+        if (previousNode == sourceNode) {
+          firstHops.add(curNode);
+        } else if (visitedNodes.add(previousNode)) {
+          nodesToVisit.add(previousNode);
+        }
+      }
+    }
+    int[] sortedFirstHops = new int[firstHops.size()];
+    int hopIndex = 0;
+    for (int firstHop : firstHops) {
+      sortedFirstHops[hopIndex++] = firstHop;
+    }
+    Arrays.sort(sortedFirstHops);
+    return sortedFirstHops;
+  }
+
+  /**
+   * Getter of the shortest paths (as sequences of nodes from the source) to the input node, up to
+   * the input number of paths (empty if it is unreachable).
+   */
+  List<int[]> getEqualCostPathsTo(int destinationNode, int maxNumPaths) {
+    List<int[]> paths = new ArrayList<>();
+    if (isReachable(destinationNode)) {
+      ArrayList<Integer> reversedPath = new ArrayList<>();
+      reversedPath.add(destinationNode);
+      collectEqualCostPaths(reversedPath, new HashSet<>(reversedPath), paths, maxNumPaths);
+    }
+    return paths;
+  }
+
+  /**
+   * Helper method to extend the input path (reversed, from its destination) back to the source
+   * over each equal-cost predecessor in turn, collecting every complete path.
+   */
+  private void collectEqualCostPaths(ArrayList<Integer> reversedPath, HashSet<Integer> nodesOnPath,
+      List<int[]> paths, int maxNumPaths) {
+    int curNode = reversedPath.get(reversedPath.size() - 1);
+    if (curNode == sourceNode) {
+      int[] path = new int[reversedPath.size()];
+      for (int pathIndex = 0; pathIndex < path.length; pathIndex++) {
+        path[pathIndex] = reversedPath.get(path.length - 1 - pathIndex);
+      }
+      paths.add(path);
+      return;
+    }
+    for (int previousNode : getEqualCostPreviousNodes(curNode)) {
+      if (paths.size() >= maxNumPaths) {
+        return;
+      }
+      // (zero-weight links may loop back onto our path at equal cost)
+      if (nodesOnPath.add(previousNode)) {
+        reversedPath.add(previousNode);
+        collectEqualCostPaths(reversedPath, nodesOnPath, paths, maxNumPaths);
+        reversedPath.remove(reversedPath.size() - 1);
+        nodesOnPath.remove(previousNode);
+      }
+    }
+  }
+
+  /**
+   * Convey string representation of Shortest Path Tree instance.
+   */
+  @Override
+  public String toString() {
+    return "ShortestPathTree[source=" + graph.getNodeId(sourceNode) + "," + graph + "]";
+  }
+}
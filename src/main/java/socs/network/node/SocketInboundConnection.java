@@ -0,0 +1,131 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import socs.network.message.SospfPacket;
+
+/**
+ * Inbound connection read by a dedicated thread performing blocking socket I/O.
+ *
+ * <p> The reader holds its thread for as long as the client keeps the connection open. That
+ * thread is its own (as on the client side of a LinkChannel) rather than one of the workers
+ * handling its conversations, which could otherwise all end up waiting on frames while the jobs
+ * meant to consume them wait on a worker. </p>
+ */
+class SocketInboundConnection extends InboundConnection implements Runnable {
+
+  /**
+   * Active socket for client-server connection.
+   */
+  private final Socket activeSocket;
+
+  /**
+   * Input stream over active socket connection (only ever read by this connection's reader).
+   */
+  private final DataInputStream inFromRemoteServer;
+
+  /**
+   * Output stream over active socket connection (shared by every conversation).
+   */
+  private final DataOutputStream outToRemoteServer;
+
+  /**
+   * Instantiate SocketInboundConnection over a freshly accepted socket.
+   */
+  SocketInboundConnection(Router router, Socket activeSocket) throws Exception {
+    super(router);
+    if (activeSocket == null) {
+      throw new IllegalArgumentException("Received null socket connection!");
+    }
+    this.activeSocket = activeSocket;
+    // drop connections abandoned by the client (which reaps its own end of them sooner)
+    activeSocket.setSoTimeout(Router.SERVER_CONNECTION_IDLE_TIMEOUT);
+    activeSocket.setTcpNoDelay(true);
+    inFromRemoteServer =
+        new DataInputStream(new BufferedInputStream(activeSocket.getInputStream()));
+    outToRemoteServer =
+        new DataOutputStream(new BufferedOutputStream(activeSocket.getOutputStream()));
+  }
+
+  /**
+   * SocketInboundConnection's reader routine to route each incoming frame to its conversation.
+   */
+  public void run() {
+    try {
+      while (true) {
+        try {
+          // wait for the next frame to start (without consuming any of it)
+          inFromRemoteServer.mark(1);
+          if (inFromRemoteServer.read() < 0) {
+            break;
+          }
+          inFromRemoteServer.reset();
+        } catch (SocketTimeoutException e) {
+          if (hasOpenConversations()) {
+            // quiet, but not idle: some job is still busy with a conversation
+            continue;
+          }
+          // the client abandoned this connection
+          break;
+        }
+        // a frame once started must arrive whole: timing out midway through it (as any other
+        // exception) closes the connection, since the bytes already read would be lost to us
+        FramingUtils.Frame frame = FramingUtils.readFrame(inFromRemoteServer);
+        deliverFrame(frame.conversationId, frame.payload);
+      }
+    } catch (Exception e) {
+      // the client closed (or reset) this connection: nothing left to read
+    } finally {
+      markEndOfStream();
+      close();
+    }
+  }
+
+  /**
+   * Send a packet of the input conversation to the client router.
+   */
+  @Override
+  void sendFrame(int conversationId, SospfPacket packet) throws Exception {
+    synchronized (outToRemoteServer) {
+      RouterUtils.serializeSospfPacketToOutputStream(
+          outToRemoteServer, conversationId, packet, wireEncoding, compressionNegotiated);
+    }
+  }
+
+  /**
+   * Close the connection (which in turn stops its reader).
+   */
+  @Override
+  void close() {
+    RouterUtils.closeIoSocketConnection(activeSocket, null, null);
+  }
+
+  /**
+   * Convey string representation of Socket Inbound Connection instance.
+   */
+  @Override
+  public String toString() {
+    return "socket " + activeSocket;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler throttling the shortest-path computations triggered by changes to a Router's Link
+ * State Database (in the fashion of OSPF's SPF throttling).
+ *
+ * <p> An isolated change is computed after a short initial delay, so that we converge fast. Under
+ * sustained churn, each run is held down for a hold time after the previous one, which doubles
+ * with every run up to the max wait (and halves back for every hold time that passes without any
+ * change). Changes requested while a run is pending are merged into it, and each run computes a
+ * single tree (then installs the routing table over it, along with its loop-free alternates) over
+ * the latest snapshot of the database. </p>
+ */
+class SpfScheduler {
+
+  /**
+   * Long constant flagging the lack of any previous run.
+   */
+  private static final long NO_PREVIOUS_RUN = Long.MIN_VALUE;
+
+  /**
+   * Link State Database over which our shortest-path trees are computed.
+   */
+  private final LinkStateDatabase lsd;
+
+  /**
+   * Delay (in milliseconds) before computing an isolated change.
+   */
+  private final long initialDelayMillis;
+
+  /**
+   * Base time (in milliseconds) between two runs under churn.
+   */
+  private final long holdTimeMillis;
+
+  /**
+   * Cap (in milliseconds) on the time between two runs under churn.
+   */
+  private final long maxWaitMillis;
+
+  /**
+   * Single thread running our computations (one at a time).
+   */
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Current time (in milliseconds) between two runs under churn (guarded by this).
+   */
+  private long currentHoldTimeMillis;
+
+  /**
+   * Timestamp (in milliseconds) at which the last run started (guarded by this).
+   */
+  private long lastRunTimeMillis = NO_PREVIOUS_RUN;
+
+  /**
+   * Scheduled pending run (guarded by this).
+   */
+  private ScheduledFuture<?> pendingRun = null;
+
+  /**
+   * Running count of runs since this scheduler was started (guarded by this).
+   */
+  private long numRuns = 0;
+
+  /**
+   * Instantiate SpfScheduler with the input initial delay, hold time and max wait.
+   */
+  SpfScheduler(LinkStateDatabase lsd, long initialDelayMillis, long holdTimeMillis,
+      long maxWaitMillis) {
+    if (lsd == null) {
+      throw new IllegalArgumentException(
+          "Cannot instantiate an SPF scheduler for a null Link State Database.");
+    }
+    if (initialDelayMillis < 0 || holdTimeMillis < 0 || maxWaitMillis < holdTimeMillis) {
+      throw new IllegalArgumentException(
+          "Cannot instantiate an SPF scheduler with (initial delay = " + initialDelayMillis
+              + ", hold time = " + holdTimeMillis + ", max wait = " + maxWaitMillis + " ).");
+    }
+    this.lsd = lsd;
+    this.initialDelayMillis = initialDelayMillis;
+    this.holdTimeMillis = holdTimeMillis;
+    this.maxWaitMillis = maxWaitMillis;
+    currentHoldTimeMillis = holdTimeMillis;
+    executor = Executors.newSingleThreadScheduledExecutor(job -> {
+      Thread schedulerThread = new Thread(job, "sospf-spf-scheduler");
+      // the scheduler should never hold the router process open on quit
+      schedulerThread.setDaemon(true);
+      return schedulerThread;
+    });
+  }
+
+  /**
+   * Synchronized request of a computation over the latest state of our database.
+   */
+  synchronized void requestRun() {
+    if (pendingRun != null) {
+      // the pending run will pick up this change as well
+      return;
+    }
+    long delayMillis = initialDelayMillis;
+    if (lastRunTimeMillis != NO_PREVIOUS_RUN) {
+      long quietTimeMillis = System.currentTimeMillis() - lastRunTimeMillis;
+      // each hold time spent quiet halves our hold time back towards its base
+      while (currentHoldTimeMillis > holdTimeMillis && quietTimeMillis >= currentHoldTimeMillis) {
+        quietTimeMillis -= currentHoldTimeMillis;
+        currentHoldTimeMillis = Math.max(holdTimeMillis, currentHoldTimeMillis / 2);
+      }
+      if (quietTimeMillis < currentHoldTimeMillis) {
+        // still churning: hold this run down, and the next one for twice as long
+        delayMillis = Math.max(initialDelayMillis, currentHoldTimeMillis - quietTimeMillis);
+        currentHoldTimeMillis = Math.min(maxWaitMillis, 2 * currentHoldTimeMillis);
+      }
+    }
+    pendingRun = executor.schedule(this::runPendingSpf, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Helper method to run the pending computation (merging every change requested until now).
+   */
+  private void runPendingSpf() {
+    synchronized (this) {
+      pendingRun = null;
+      lastRunTimeMillis = System.currentTimeMillis();
+      numRuns++;
+    }
+    try {
+      lsd.computeRoutingTable();
+    } catch (Exception e) {
+      RouterUtils.alertExceptionToConsole(e, "\n\nError: Failed to run throttled SPF.\n\n");
+    }
+  }
+
+  /**
+   * Convey string representation of SPF Scheduler instance.
+   */
+  @Override
+  public synchronized String toString() {
+    return "SpfScheduler[initialDelay=" + initialDelayMillis + "ms,holdTime=" + holdTimeMillis
+        + "ms,maxWait=" + maxWaitMillis + "ms,currentHoldTime=" + currentHoldTimeMillis
+        + "ms,runs=" + numRuns + "]";
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Adler32;
+
+/**
+ * Settings with which a router encodes the packets it sends: the wire format of their payloads
+ * and, over links where compression was negotiated, the threshold and dictionary of deflation.
+ *
+ * <p> The preset dictionary is built from the simulated IP prefixes configured for the router
+ * IDs of our network (which recur throughout our packets). Since both ends of a compressed
+ * payload must hold the very same dictionary, its id is advertised alongside our capabilities at
+ * HELLO time and compression only applies over links whose ends advertised the same id. </p>
+ */
+final class WireEncoding {
+
+  /**
+   * Wire format in which packets are encoded.
+   */
+  final byte wireFormat;
+
+  /**
+   * Size (in bytes) past which payloads are compressed (where negotiated).
+   */
+  final int compressionThreshold;
+
+  /**
+   * Preset dictionary against which payloads are (de)compressed (never to be modified).
+   */
+  final byte[] compressionDictionary;
+
+  /**
+   * Id of the preset dictionary (ie. its Adler-32 checksum, as zlib records in the header of a
+   * payload deflated against it).
+   */
+  final int compressionDictionaryId;
+
+  /**
+   * Instantiate WireEncoding with the input wire format and compression threshold, deflating
+   * against a dictionary of the input router ID prefixes.
+   */
+  WireEncoding(byte wireFormat, int compressionThreshold, List<String> routerIdPrefixes) {
+    if (wireFormat != FramingUtils.JAVA_SERIALIZATION_WIRE_FORMAT
+        && wireFormat != FramingUtils.BINARY_CODEC_WIRE_FORMAT) {
+      throw new IllegalArgumentException("Invalid (wire format = " + wireFormat + " ).");
+    }
+    if (compressionThreshold < 0) {
+      throw new IllegalArgumentException(
+          "Invalid (compression threshold = " + compressionThreshold + " ).");
+    }
+    if (routerIdPrefixes == null) {
+      throw new IllegalArgumentException("Cannot build a dictionary of null router ID prefixes.");
+    }
+    this.wireFormat = wireFormat;
+    this.compressionThreshold = compressionThreshold;
+    // since zlib favours the end of the dictionary, the prefixes listed last match the cheapest
+    StringBuilder dictionary = new StringBuilder();
+    for (String routerIdPrefix : routerIdPrefixes) {
+      dictionary.append(routerIdPrefix);
+    }
+    this.compressionDictionary = dictionary.toString().getBytes(StandardCharsets.UTF_8);
+    Adler32 checksum = new Adler32();
+    checksum.update(compressionDictionary, 0, compressionDictionary.length);
+    this.compressionDictionaryId = (int) checksum.getValue();
+  }
+}
@@ -21,6 +21,8 @@ import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import com.typesafe.config.ConfigValueFactory;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration class to wrap state of Router setup.
@@ -32,11 +34,186 @@ public class RouterConfiguration {
    */
   private static final String SIMULATED_IP_KEY = "socs.network.router.ip";
 
+  /**
+   * String constant of key to fetch mode in which Router serves incoming connections.
+   */
+  private static final String SERVER_MODE_KEY = "socs.network.router.server.mode";
+
+  /**
+   * String constant of key to fetch number of I/O threads of Router's selector server.
+   */
+  private static final String SERVER_IO_THREADS_KEY = "socs.network.router.server.ioThreads";
+
+  /**
+   * String constant of key to fetch maximum number of inbound connections Router serves at once.
+   */
+  private static final String SERVER_MAX_CONNECTIONS_KEY =
+      "socs.network.router.server.maxConnections";
+
+  /**
+   * String constant of key to fetch number of worker threads handling Router's requests.
+   */
+  private static final String WORKER_POOL_SIZE_KEY = "socs.network.router.workers.poolSize";
+
+  /**
+   * String constant of key to fetch number of requests allowed to wait on a worker thread.
+   */
+  private static final String WORKER_QUEUE_DEPTH_KEY = "socs.network.router.workers.queueDepth";
+
+  /**
+   * String constant of key to fetch wire format in which Router encodes its outgoing packets.
+   */
+  private static final String WIRE_FORMAT_KEY = "socs.network.router.wire.format";
+
+  /**
+   * String constant of key to fetch compression Router offers to receive from its neighbors.
+   */
+  private static final String WIRE_COMPRESSION_KEY = "socs.network.router.wire.compression";
+
+  /**
+   * String constant of key to fetch size (in bytes) past which Router compresses payloads.
+   */
+  private static final String WIRE_COMPRESSION_THRESHOLD_KEY =
+      "socs.network.router.wire.compressionThreshold";
+
+  /**
+   * String constant of key to fetch (comma-separated) router ID prefixes from which Router builds
+   * its compression dictionary.
+   */
+  private static final String WIRE_COMPRESSION_DICTIONARY_PREFIXES_KEY =
+      "socs.network.router.wire.compressionDictionaryPrefixes";
+
+  /**
+   * String constant of key to fetch delay (in milliseconds) over which Router coalesces floods.
+   */
+  private static final String FLOOD_COALESCING_DELAY_KEY =
+      "socs.network.router.flood.coalescingDelay";
+
+  /**
+   * String constant of key to fetch number of flood requests past which Router floods at once.
+   */
+  private static final String FLOOD_MAX_BATCH_SIZE_KEY = "socs.network.router.flood.maxBatchSize";
+
+  /**
+   * String constant of key to fetch delay (in milliseconds) before Router computes an isolated
+   * change to its shortest paths.
+   */
+  private static final String SPF_INITIAL_DELAY_KEY = "socs.network.router.spf.initialDelay";
+
+  /**
+   * String constant of key to fetch base time (in milliseconds) between Router's shortest-path
+   * computations under churn.
+   */
+  private static final String SPF_HOLD_TIME_KEY = "socs.network.router.spf.holdTime";
+
+  /**
+   * String constant of key to fetch cap (in milliseconds) on the time between Router's
+   * shortest-path computations under churn.
+   */
+  private static final String SPF_MAX_WAIT_KEY = "socs.network.router.spf.maxWait";
+
+  /**
+   * String constant of key to fetch age (in seconds) past which Router refreshes its own LSA.
+   */
+  private static final String LSA_REFRESH_INTERVAL_KEY = "socs.network.router.lsa.refreshInterval";
+
+  /**
+   * String constant of wire format relying on default Java serialization of packets.
+   */
+  public static final String SERIALIZED_WIRE_FORMAT = "serialized";
+
+  /**
+   * String constant of wire format relying on our compact binary codec of packets.
+   */
+  public static final String BINARY_WIRE_FORMAT = "binary";
+
+  /**
+   * String constant of compression deflating payloads (where both ends of a link offer it).
+   */
+  public static final String DEFLATE_WIRE_COMPRESSION = "deflate";
+
+  /**
+   * String constant of compression leaving every payload as is.
+   */
+  public static final String NO_WIRE_COMPRESSION = "none";
+
+  /**
+   * String constant of server mode dedicating a blocking thread to each incoming connection.
+   */
+  public static final String BLOCKING_SERVER_MODE = "blocking";
+
+  /**
+   * String constant of server mode multiplexing incoming connections over a few selectors.
+   */
+  public static final String SELECTOR_SERVER_MODE = "selector";
+
+  /**
+   * Int constant of default number of I/O threads of Router's selector server.
+   */
+  private static final int DEFAULT_SERVER_IO_THREADS = 2;
+
+  /**
+   * Int constant of default maximum number of inbound connections Router serves at once.
+   */
+  private static final int DEFAULT_SERVER_MAX_CONNECTIONS = 64;
+
+  /**
+   * Int constant of default number of worker threads handling Router's requests.
+   */
+  private static final int DEFAULT_WORKER_POOL_SIZE = 16;
+
+  /**
+   * Int constant of default number of requests allowed to wait on a worker thread.
+   */
+  private static final int DEFAULT_WORKER_QUEUE_DEPTH = 64;
+
+  /**
+   * Int constant of default size (in bytes) past which Router compresses payloads.
+   */
+  private static final int DEFAULT_WIRE_COMPRESSION_THRESHOLD = 512;
+
+  /**
+   * Int constant of default delay (in milliseconds) over which Router coalesces floods.
+   */
+  private static final int DEFAULT_FLOOD_COALESCING_DELAY = 100;
+
+  /**
+   * Int constant of default number of flood requests past which Router floods at once.
+   */
+  private static final int DEFAULT_FLOOD_MAX_BATCH_SIZE = 16;
+
+  /**
+   * Int constant of default delay (in milliseconds) before Router computes an isolated change.
+   */
+  private static final int DEFAULT_SPF_INITIAL_DELAY = 50;
+
+  /**
+   * Int constant of default base time (in milliseconds) between computations under churn.
+   */
+  private static final int DEFAULT_SPF_HOLD_TIME = 200;
+
+  /**
+   * Int constant of default cap (in milliseconds) on the time between computations under churn.
+   */
+  private static final int DEFAULT_SPF_MAX_WAIT = 5000;
+
+  /**
+   * Int constant of default age (in seconds) past which Router refreshes its own LSA.
+   */
+  private static final int DEFAULT_LSA_REFRESH_INTERVAL = 1800;
+
   /**
    * Underlying Java representation of router configuration file.
    */
   private Config routerConfig = null;
 
+  /**
+   * Boolean helper method to check if routerConfig holds a record for the input key.
+   */
+  private boolean hasEntry(String key) {
+    return routerConfig.hasPath(key);
+  }
+
   /**
    * Fetch string data from routerConfig via input key.
    */
@@ -92,4 +269,159 @@ public class RouterConfiguration {
   public String getSimulatedIpAddress() {
     return getString(SIMULATED_IP_KEY);
   }
+
+  /**
+   * Public getter for mode in which Router serves incoming connections (blocking by default).
+   */
+  public String getServerMode() {
+    if (!hasEntry(SERVER_MODE_KEY)) {
+      return BLOCKING_SERVER_MODE;
+    }
+    String serverMode = getString(SERVER_MODE_KEY);
+    if (!BLOCKING_SERVER_MODE.equals(serverMode) && !SELECTOR_SERVER_MODE.equals(serverMode)) {
+      throw new IllegalArgumentException("Invalid server mode in router configuration: "
+          + serverMode + " (expected " + BLOCKING_SERVER_MODE + " or " + SELECTOR_SERVER_MODE
+          + ").");
+    }
+    return serverMode;
+  }
+
+  /**
+   * Public getter for number of I/O threads of Router's selector server.
+   */
+  public int getServerIoThreads() {
+    return hasEntry(SERVER_IO_THREADS_KEY)
+        ? getInt(SERVER_IO_THREADS_KEY) : DEFAULT_SERVER_IO_THREADS;
+  }
+
+  /**
+   * Public getter for maximum number of inbound connections Router serves at once.
+   */
+  public int getServerMaxConnections() {
+    return hasEntry(SERVER_MAX_CONNECTIONS_KEY)
+        ? getInt(SERVER_MAX_CONNECTIONS_KEY) : DEFAULT_SERVER_MAX_CONNECTIONS;
+  }
+
+  /**
+   * Public getter for number of worker threads handling Router's requests.
+   */
+  public int getWorkerPoolSize() {
+    return hasEntry(WORKER_POOL_SIZE_KEY)
+        ? getInt(WORKER_POOL_SIZE_KEY) : DEFAULT_WORKER_POOL_SIZE;
+  }
+
+  /**
+   * Public getter for number of requests allowed to wait on a worker thread.
+   */
+  public int getWorkerQueueDepth() {
+    return hasEntry(WORKER_QUEUE_DEPTH_KEY)
+        ? getInt(WORKER_QUEUE_DEPTH_KEY) : DEFAULT_WORKER_QUEUE_DEPTH;
+  }
+
+  /**
+   * Public getter for wire format in which Router encodes its outgoing packets (binary default).
+   */
+  public String getWireFormat() {
+    if (!hasEntry(WIRE_FORMAT_KEY)) {
+      return BINARY_WIRE_FORMAT;
+    }
+    String wireFormat = getString(WIRE_FORMAT_KEY);
+    if (!BINARY_WIRE_FORMAT.equals(wireFormat) && !SERIALIZED_WIRE_FORMAT.equals(wireFormat)) {
+      throw new IllegalArgumentException("Invalid wire format in router configuration: "
+          + wireFormat + " (expected " + BINARY_WIRE_FORMAT + " or " + SERIALIZED_WIRE_FORMAT
+          + ").");
+    }
+    return wireFormat;
+  }
+
+  /**
+   * Public getter for compression Router offers to receive from its neighbors (deflate default).
+   */
+  public String getWireCompression() {
+    if (!hasEntry(WIRE_COMPRESSION_KEY)) {
+      return DEFLATE_WIRE_COMPRESSION;
+    }
+    String wireCompression = getString(WIRE_COMPRESSION_KEY);
+    if (!DEFLATE_WIRE_COMPRESSION.equals(wireCompression)
+        && !NO_WIRE_COMPRESSION.equals(wireCompression)) {
+      throw new IllegalArgumentException("Invalid wire compression in router configuration: "
+          + wireCompression + " (expected " + DEFLATE_WIRE_COMPRESSION + " or "
+          + NO_WIRE_COMPRESSION + ").");
+    }
+    return wireCompression;
+  }
+
+  /**
+   * Public getter for size (in bytes) past which Router compresses payloads.
+   */
+  public int getWireCompressionThreshold() {
+    return hasEntry(WIRE_COMPRESSION_THRESHOLD_KEY)
+        ? getInt(WIRE_COMPRESSION_THRESHOLD_KEY) : DEFAULT_WIRE_COMPRESSION_THRESHOLD;
+  }
+
+  /**
+   * Public getter for router ID prefixes from which Router builds its compression dictionary (the
+   * prefix of Router's simulated IP up to its last octet by default, as its subnet shares).
+   */
+  public List<String> getWireCompressionDictionaryPrefixes() {
+    List<String> routerIdPrefixes = new ArrayList<>();
+    if (!hasEntry(WIRE_COMPRESSION_DICTIONARY_PREFIXES_KEY)) {
+      String simulatedIpAddress = getSimulatedIpAddress();
+      routerIdPrefixes.add(
+          simulatedIpAddress.substring(0, simulatedIpAddress.lastIndexOf('.') + 1));
+      return routerIdPrefixes;
+    }
+    for (String routerIdPrefix : getString(WIRE_COMPRESSION_DICTIONARY_PREFIXES_KEY).split(",")) {
+      if (!routerIdPrefix.trim().isEmpty()) {
+        routerIdPrefixes.add(routerIdPrefix.trim());
+      }
+    }
+    return routerIdPrefixes;
+  }
+
+  /**
+   * Public getter for delay (in milliseconds) over which Router coalesces floods (0 to disable).
+   */
+  public int getFloodCoalescingDelay() {
+    return hasEntry(FLOOD_COALESCING_DELAY_KEY)
+        ? getInt(FLOOD_COALESCING_DELAY_KEY) : DEFAULT_FLOOD_COALESCING_DELAY;
+  }
+
+  /**
+   * Public getter for number of flood requests past which Router floods at once.
+   */
+  public int getFloodMaxBatchSize() {
+    return hasEntry(FLOOD_MAX_BATCH_SIZE_KEY)
+        ? getInt(FLOOD_MAX_BATCH_SIZE_KEY) : DEFAULT_FLOOD_MAX_BATCH_SIZE;
+  }
+
+  /**
+   * Public getter for delay (in milliseconds) before Router computes an isolated change.
+   */
+  public int getSpfInitialDelay() {
+    return hasEntry(SPF_INITIAL_DELAY_KEY)
+        ? getInt(SPF_INITIAL_DELAY_KEY) : DEFAULT_SPF_INITIAL_DELAY;
+  }
+
+  /**
+   * Public getter for base time (in milliseconds) between computations under churn.
+   */
+  public int getSpfHoldTime() {
+    return hasEntry(SPF_HOLD_TIME_KEY) ? getInt(SPF_HOLD_TIME_KEY) : DEFAULT_SPF_HOLD_TIME;
+  }
+
+  /**
+   * Public getter for cap (in milliseconds) on the time between computations under churn.
+   */
+  public int getSpfMaxWait() {
+    return hasEntry(SPF_MAX_WAIT_KEY) ? getInt(SPF_MAX_WAIT_KEY) : DEFAULT_SPF_MAX_WAIT;
+  }
+
+  /**
+   * Public getter for age (in seconds) past which Router refreshes its own LSA.
+   */
+  public int getLsaRefreshInterval() {
+    return hasEntry(LSA_REFRESH_INTERVAL_KEY)
+        ? getInt(LSA_REFRESH_INTERVAL_KEY) : DEFAULT_LSA_REFRESH_INTERVAL;
+  }
 }
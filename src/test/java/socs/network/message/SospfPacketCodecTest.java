@@ -0,0 +1,196 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.message;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Vector;
+import org.junit.Test;
+
+/**
+ * Round trips of SospfPackets through the binary codec, covering every field it lays out along
+ * with the malformed inputs it must refuse.
+ */
+public class SospfPacketCodecTest {
+
+  @Test
+  public void lsaUpdateRoundTrips() throws IOException {
+    LinkStateAdvertisement lsa = newLinkStateAdvertisement("10.0.0.1", 7, "10.0.0.2", "10.0.0.3");
+    lsa.lsaAge = 120;
+    LinkStateAdvertisement shutdownLsa = newLinkStateAdvertisement("10.0.0.2", 3, "10.0.0.1");
+    shutdownLsa.hasShutdown = true;
+    Vector<LinkStateAdvertisement> lsaArray = new Vector<>(Arrays.asList(lsa, shutdownLsa));
+    SospfPacket packet = newPacket(SospfPacket.SOSPF_LSAUPDATE, lsaArray, null,
+        SospfPacket.NO_CAPABILITIES, SospfPacket.NO_COMPRESSION_DICTIONARY, null, null);
+
+    SospfPacket decodedPacket = roundTrip(packet);
+
+    assertSamePacketFields(packet, decodedPacket);
+    assertEquals(2, decodedPacket.lsaArray.size());
+    for (int lsaIndex = 0; lsaIndex < lsaArray.size(); lsaIndex++) {
+      LinkStateAdvertisement expectedLsa = lsaArray.get(lsaIndex);
+      LinkStateAdvertisement decodedLsa = decodedPacket.lsaArray.get(lsaIndex);
+      assertEquals(expectedLsa.linkStateId, decodedLsa.linkStateId);
+      assertEquals(expectedLsa.lsaSeqNumber, decodedLsa.lsaSeqNumber);
+      assertEquals(expectedLsa.hasShutdown, decodedLsa.hasShutdown);
+      assertEquals(expectedLsa.getCurrentAge(), decodedLsa.lsaAge);
+      assertEquals(expectedLsa.links.size(), decodedLsa.links.size());
+      for (int linkIndex = 0; linkIndex < expectedLsa.links.size(); linkIndex++) {
+        LinkDescription expectedLink = expectedLsa.links.get(linkIndex);
+        LinkDescription decodedLink = decodedLsa.links.get(linkIndex);
+        assertEquals(expectedLink.linkId, decodedLink.linkId);
+        assertEquals(expectedLink.processPortNum, decodedLink.processPortNum);
+        assertEquals(expectedLink.tosMetrics, decodedLink.tosMetrics);
+      }
+    }
+    assertNull(decodedPacket.lsaHeaderArray);
+    assertNull(decodedPacket.digestNodes);
+  }
+
+  @Test
+  public void dbdRoundTrips() throws IOException {
+    Vector<LinkStateAdvertisementHeader> lsaHeaderArray = new Vector<>(Arrays.asList(
+        new LinkStateAdvertisementHeader("10.0.0.1", 7, false, (short) 0),
+        new LinkStateAdvertisementHeader("10.0.0.2", 3, true, LinkStateAdvertisement.MAX_AGE)));
+    SospfPacket packet = newPacket(SospfPacket.SOSPF_DBD, null, lsaHeaderArray,
+        SospfPacket.NO_CAPABILITIES, SospfPacket.NO_COMPRESSION_DICTIONARY, null, null);
+
+    SospfPacket decodedPacket = roundTrip(packet);
+
+    assertSamePacketFields(packet, decodedPacket);
+    assertNull(decodedPacket.lsaArray);
+    assertEquals(2, decodedPacket.lsaHeaderArray.size());
+    for (int headerIndex = 0; headerIndex < lsaHeaderArray.size(); headerIndex++) {
+      LinkStateAdvertisementHeader expectedHeader = lsaHeaderArray.get(headerIndex);
+      LinkStateAdvertisementHeader decodedHeader = decodedPacket.lsaHeaderArray.get(headerIndex);
+      assertEquals(expectedHeader.linkStateId, decodedHeader.linkStateId);
+      assertEquals(expectedHeader.lsaSeqNumber, decodedHeader.lsaSeqNumber);
+      assertEquals(expectedHeader.hasShutdown, decodedHeader.hasShutdown);
+      assertEquals(expectedHeader.lsaAge, decodedHeader.lsaAge);
+    }
+  }
+
+  @Test
+  public void helloCapabilitiesRoundTrip() throws IOException {
+    SospfPacket packet = newPacket(SospfPacket.SOSPF_HELLO, null, null,
+        SospfPacket.DEFLATE_CAPABILITY, 0x1c2d3e4f, null, null);
+
+    SospfPacket decodedPacket = roundTrip(packet);
+
+    assertSamePacketFields(packet, decodedPacket);
+    assertNull(decodedPacket.lsaArray);
+    assertNull(decodedPacket.lsaHeaderArray);
+    assertNull(decodedPacket.digestNodes);
+    assertNull(decodedPacket.digests);
+  }
+
+  @Test
+  public void digestRoundTrips() throws IOException {
+    int[] digestNodes = {0, 1, 2, Short.MAX_VALUE};
+    long[] digests = {Long.MIN_VALUE, -1L, 0L, 0x0123456789abcdefL};
+    SospfPacket packet = newPacket(SospfPacket.SOSPF_DIGEST, null, null,
+        SospfPacket.NO_CAPABILITIES, SospfPacket.NO_COMPRESSION_DICTIONARY, digestNodes, digests);
+
+    SospfPacket decodedPacket = roundTrip(packet);
+
+    assertSamePacketFields(packet, decodedPacket);
+    assertArrayEquals(digestNodes, decodedPacket.digestNodes);
+    assertArrayEquals(digests, decodedPacket.digests);
+  }
+
+  @Test(expected = EOFException.class)
+  public void forgedLsaCountEndsInEofException() throws IOException {
+    // an empty LSA array is encoded as a zero count followed by the (null) headers and digests
+    byte[] encoding = encode(newPacket(SospfPacket.SOSPF_LSAUPDATE,
+        new Vector<LinkStateAdvertisement>(), null, SospfPacket.NO_CAPABILITIES,
+        SospfPacket.NO_COMPRESSION_DICTIONARY, null, null));
+    int countOffset = encoding.length - 12;
+    byte[] forgedEncoding = Arrays.copyOf(encoding, countOffset + 4);
+    forgedEncoding[countOffset] = 0x7f;
+    forgedEncoding[countOffset + 1] = (byte) 0xff;
+    forgedEncoding[countOffset + 2] = (byte) 0xff;
+    forgedEncoding[countOffset + 3] = (byte) 0xf0;
+    decode(forgedEncoding);
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void unsupportedVersionIsRefused() throws IOException {
+    byte[] encoding = encode(newPacket(SospfPacket.SOSPF_HELLO, null, null,
+        SospfPacket.NO_CAPABILITIES, SospfPacket.NO_COMPRESSION_DICTIONARY, null, null));
+    encoding[0] = SospfPacketCodec.CODEC_VERSION + 1;
+    decode(encoding);
+  }
+
+  private static LinkStateAdvertisement newLinkStateAdvertisement(String linkStateId,
+      int lsaSeqNumber, String... neighborIps) {
+    LinkedList<LinkDescription> links = new LinkedList<>();
+    links.add(new LinkDescription(linkStateId, 0, (short) 0));
+    for (String neighborIp : neighborIps) {
+      links.add(new LinkDescription(neighborIp, 20000 + links.size(), (short) links.size()));
+    }
+    return new LinkStateAdvertisement(linkStateId, lsaSeqNumber, links);
+  }
+
+  private static SospfPacket newPacket(short sospfType, Vector<LinkStateAdvertisement> lsaArray,
+      Vector<LinkStateAdvertisementHeader> lsaHeaderArray, byte capabilities,
+      int compressionDictionaryId, int[] digestNodes, long[] digests) {
+    return new SospfPacket("127.0.0.1", (short) 20001, "10.0.0.1", "10.0.0.2", sospfType,
+        "10.0.0.1", "10.0.0.2", lsaArray, lsaHeaderArray, (short) 5, capabilities,
+        compressionDictionaryId, digestNodes, digests);
+  }
+
+  private static void assertSamePacketFields(SospfPacket packet, SospfPacket decodedPacket) {
+    assertEquals(packet.srcProcessIp, decodedPacket.srcProcessIp);
+    assertEquals(packet.srcProcessPort, decodedPacket.srcProcessPort);
+    assertEquals(packet.srcIp, decodedPacket.srcIp);
+    assertEquals(packet.dstIp, decodedPacket.dstIp);
+    assertEquals(packet.sospfType, decodedPacket.sospfType);
+    assertEquals(packet.routerId, decodedPacket.routerId);
+    assertEquals(packet.neighborId, decodedPacket.neighborId);
+    assertEquals(packet.weightOfTransmission, decodedPacket.weightOfTransmission);
+    assertEquals(packet.capabilities, decodedPacket.capabilities);
+    assertEquals(packet.compressionDictionaryId, decodedPacket.compressionDictionaryId);
+  }
+
+  private static SospfPacket roundTrip(SospfPacket packet) throws IOException {
+    return decode(encode(packet));
+  }
+
+  private static byte[] encode(SospfPacket packet) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    SospfPacketCodec.encode(packet, out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static SospfPacket decode(byte[] encoding) throws IOException {
+    return SospfPacketCodec.decode(new DataInputStream(new ByteArrayInputStream(encoding)));
+  }
+}
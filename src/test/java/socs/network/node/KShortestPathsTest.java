@@ -0,0 +1,116 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static socs.network.node.LinkStateDatabaseTestUtils.getIp;
+import static socs.network.node.LinkStateDatabaseTestUtils.newLinkStateDatabase;
+import static socs.network.node.LinkStateDatabaseTestUtils.putLinkStateAdvertisement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Randomized check of the k shortest (loopless) paths listed by our Link State Database against a
+ * brute-force enumeration of every simple path over small random graphs.
+ */
+public class KShortestPathsTest {
+
+  private static final int NUM_TRIALS = 300;
+
+  @Test
+  public void kShortestPathsMatchBruteForceEnumeration() {
+    Random random = new Random(3);
+    for (int trial = 0; trial < NUM_TRIALS; trial++) {
+      // ** random graph (with asymmetric weights on every other trial) **
+      int numRouters = 4 + random.nextInt(6);
+      int[][] weights = new int[numRouters][numRouters];
+      for (int router = 0; router < numRouters; router++) {
+        for (int neighbor = router + 1; neighbor < numRouters; neighbor++) {
+          if (random.nextInt(3) > 0) {
+            weights[router][neighbor] = 1 + random.nextInt(5);
+            weights[neighbor][router] = (trial % 2 == 0)
+                ? weights[router][neighbor] : 1 + random.nextInt(5);
+          }
+        }
+      }
+      LinkStateDatabase lsd = newLinkStateDatabase(0);
+      for (int router = 0; router < numRouters; router++) {
+        Map<Integer, Integer> weightsByNeighbor = new LinkedHashMap<>();
+        for (int neighbor = 0; neighbor < numRouters; neighbor++) {
+          if (weights[router][neighbor] > 0) {
+            weightsByNeighbor.put(neighbor, weights[router][neighbor]);
+          }
+        }
+        putLinkStateAdvertisement(lsd, router, 1, weightsByNeighbor);
+      }
+
+      int destinationRouter = 1 + random.nextInt(numRouters - 1);
+      int k = 1 + random.nextInt(8);
+      List<Integer> expectedCosts = new ArrayList<>();
+      collectCostsOfSimplePaths(weights, 0, destinationRouter, new boolean[numRouters], 0,
+          expectedCosts);
+      Collections.sort(expectedCosts);
+      expectedCosts = expectedCosts.subList(0, Math.min(k, expectedCosts.size()));
+
+      String paths = lsd.getKShortestPaths(getIp(destinationRouter), k);
+      if (expectedCosts.isEmpty()) {
+        assertNull(paths);
+        continue;
+      }
+      List<Integer> costs = new ArrayList<>();
+      for (String path : paths.split("\n")) {
+        // eg. "2) cost 7: 10.0.0.0 ->(3) 10.0.0.2 ->(4) 10.0.0.1"
+        costs.add(Integer.parseInt(path.split(" ")[2].replace(":", "")));
+        String[] routers = path.substring(path.indexOf(": ") + 2).split(" ->\\(\\d+\\) ");
+        assertEquals("loop in " + path,
+            routers.length, new HashSet<>(Arrays.asList(routers)).size());
+        assertEquals(getIp(0), routers[0]);
+        assertEquals(getIp(destinationRouter), routers[routers.length - 1]);
+      }
+      assertEquals("trial " + trial, expectedCosts, costs);
+      // nothing changed since: the cached listing is handed back as is
+      assertSame(paths, lsd.getKShortestPaths(getIp(destinationRouter), k));
+    }
+  }
+
+  private static void collectCostsOfSimplePaths(int[][] weights, int router,
+      int destinationRouter, boolean[] visited, int cost, List<Integer> costs) {
+    if (router == destinationRouter) {
+      costs.add(cost);
+      return;
+    }
+    visited[router] = true;
+    for (int neighbor = 0; neighbor < weights.length; neighbor++) {
+      if (weights[router][neighbor] > 0 && !visited[neighbor]) {
+        collectCostsOfSimplePaths(weights, neighbor, destinationRouter, visited,
+            cost + weights[router][neighbor], costs);
+      }
+    }
+    visited[router] = false;
+  }
+}
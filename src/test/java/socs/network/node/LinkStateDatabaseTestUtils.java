@@ -0,0 +1,68 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import java.util.LinkedList;
+import java.util.Map;
+import socs.network.message.LinkDescription;
+import socs.network.message.LinkStateAdvertisement;
+
+/**
+ * Static utilities class to build the Link State Databases of randomized topologies in tests, where
+ * router i is simulated at IP address 10.0.(i / 256).(i % 256).
+ */
+final class LinkStateDatabaseTestUtils {
+
+  /**
+   * Private constructor to restrict class instantiation.
+   */
+  private LinkStateDatabaseTestUtils() {
+  }
+
+  /**
+   * Static helper method to get the simulated IP address of the input router.
+   */
+  static String getIp(int router) {
+    return "10.0." + (router / 256) + "." + (router % 256);
+  }
+
+  /**
+   * Static helper method to instantiate the (initially empty) Link State Database of the input
+   * router.
+   */
+  static LinkStateDatabase newLinkStateDatabase(int router) {
+    return new LinkStateDatabase(new RouterDescription(
+        "127.0.0.1", (short) 20000, getIp(router), RouterStatus.UNKNOWN, (short) 0));
+  }
+
+  /**
+   * Static helper method to install the LSA of the input router, advertising a link of the mapped
+   * weight to each of its neighbors.
+   */
+  static void putLinkStateAdvertisement(LinkStateDatabase lsd, int router, int seqNumber,
+      Map<Integer, Integer> weightsByNeighbor) {
+    LinkedList<LinkDescription> linkDescriptions = new LinkedList<>();
+    linkDescriptions.add(new LinkDescription(getIp(router), 0, (short) 0));
+    for (Map.Entry<Integer, Integer> link : weightsByNeighbor.entrySet()) {
+      linkDescriptions.add(
+          new LinkDescription(getIp(link.getKey()), 0, link.getValue().shortValue()));
+    }
+    lsd.putLinkStateAdvertisement(getIp(router),
+        new LinkStateAdvertisement(getIp(router), seqNumber, linkDescriptions));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * simulated-link-state-routing
+ * Copyright (C) 2018, Logan Martel
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package socs.network.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static socs.network.node.LinkStateDatabaseTestUtils.getIp;
+import static socs.network.node.LinkStateDatabaseTestUtils.newLinkStateDatabase;
+import static socs.network.node.LinkStateDatabaseTestUtils.putLinkStateAdvertisement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Randomized equivalence check of the shortest-path tree cached by our Link State Database: after
+ * every batch of LSA updates, the tree it hands out (whether repaired incrementally, patched for a
+ * leaf, or rebuilt) must agree with a full recompute over the same graph snapshot.
+ */
+public class ShortestPathTreeTest {
+
+  private static final int NUM_ROUTERS = 200;
+
+  private static final int NUM_ROUNDS = 60;
+
+  /**
+   * Mesh links removed, re-weighted (asymmetrically) and new routers attached, a few at a time.
+   */
+  @Test
+  public void repairedTreeMatchesFullRecomputeAfterSmallBatches() {
+    checkAgainstFullRecompute(new Random(7), 1, false);
+    checkAgainstFullRecompute(new Random(11), 4, false);
+  }
+
+  /**
+   * Batches large enough to have the tree rebuilt from scratch rather than repaired.
+   */
+  @Test
+  public void rebuiltTreeMatchesFullRecomputeAfterLargeBatches() {
+    checkAgainstFullRecompute(new Random(13), NUM_ROUTERS / 4, false);
+  }
+
+  /**
+   * Stub routers attached, re-weighted and detached, so that only leaf routes need patching.
+   */
+  @Test
+  public void patchedTreeMatchesFullRecomputeAfterLeafChanges() {
+    checkAgainstFullRecompute(new Random(17), 1, true);
+    checkAgainstFullRecompute(new Random(19), 4, true);
+  }
+
+  private static void checkAgainstFullRecompute(Random random, int batchSize,
+      boolean changeLeaves) {
+    LinkStateDatabase lsd = newLinkStateDatabase(0);
+
+    // ** random mesh (with a stub router hanging off of every fourth router, if asked) **
+    List<Map<Integer, Integer>> links = new ArrayList<>();
+    for (int router = 0; router < NUM_ROUTERS; router++) {
+      links.add(new LinkedHashMap<Integer, Integer>());
+    }
+    for (int router = 0; router < NUM_ROUTERS; router++) {
+      for (int link = 0; link < 3; link++) {
+        int neighbor = random.nextInt(NUM_ROUTERS);
+        int weight = 1 + random.nextInt(20);
+        if (neighbor != router) {
+          links.get(router).put(neighbor, weight);
+          links.get(neighbor).put(router, weight);
+        }
+      }
+    }
+    int numLeaves = changeLeaves ? NUM_ROUTERS / 4 : 0;
+    for (int leaf = NUM_ROUTERS; leaf < NUM_ROUTERS + numLeaves; leaf++) {
+      links.add(new LinkedHashMap<Integer, Integer>());
+      links.get(random.nextInt(NUM_ROUTERS)).put(leaf, 1 + random.nextInt(20));
+    }
+    for (int router = 0; router < NUM_ROUTERS; router++) {
+      putLinkStateAdvertisement(lsd, router, 1, links.get(router));
+    }
+    assertMatchesFullRecompute(lsd.getShortestPathTree());
+
+    for (int round = 0; round < NUM_ROUNDS; round++) {
+      int seqNumber = round + 2;
+      for (int change = 0; change < batchSize; change++) {
+        int router = random.nextInt(NUM_ROUTERS);
+        int operation = random.nextInt(4);
+        Map<Integer, Integer> routerLinks = links.get(router);
+        if (changeLeaves) {
+          int leaf = NUM_ROUTERS + random.nextInt(numLeaves);
+          if (operation == 0) {
+            routerLinks.remove(leaf);
+          } else {
+            routerLinks.put(leaf, 1 + random.nextInt(20));
+          }
+        } else if (operation == 3 && round % 5 == 0) {
+          // attach a brand new router (which advertises a different weight back)
+          int newRouter = links.size();
+          links.add(new LinkedHashMap<Integer, Integer>());
+          routerLinks.put(newRouter, 1 + random.nextInt(20));
+          links.get(newRouter).put(router, 1 + random.nextInt(20));
+          putLinkStateAdvertisement(lsd, newRouter, seqNumber, links.get(newRouter));
+        } else if (!routerLinks.isEmpty()) {
+          List<Integer> neighbors = new ArrayList<>(routerLinks.keySet());
+          int neighbor = neighbors.get(random.nextInt(neighbors.size()));
+          if (operation == 0) {
+            routerLinks.remove(neighbor);
+          } else {
+            routerLinks.put(neighbor, 1 + random.nextInt(20));
+          }
+        }
+        putLinkStateAdvertisement(lsd, router, seqNumber, routerLinks);
+      }
+      assertMatchesFullRecompute(lsd.getShortestPathTree());
+    }
+  }
+
+  private static void assertMatchesFullRecompute(ShortestPathTree tree) {
+    LinkStateGraph graph = tree.getGraph();
+    int sourceNode = graph.getNode(getIp(0));
+    ShortestPathTree fullTree = LinkStateDatabaseUtils.computeShortestPathTree(graph, sourceNode);
+    for (int node = 0; node < graph.getNumNodes(); node++) {
+      assertEquals("distance to " + node, fullTree.getDistance(node), tree.getDistance(node));
+      assertEquals(fullTree.isReachable(node), tree.isReachable(node));
+      if (node == sourceNode || !tree.isReachable(node)) {
+        continue;
+      }
+      // our predecessor must lie on a shortest path (along some, possibly parallel, edge)
+      int previousNode = tree.getPreviousNode(node);
+      assertTrue("tight edge into " + node, hasEdgeOfWeight(graph, previousNode, node,
+          tree.getDistance(node) - tree.getDistance(previousNode)));
+      int[] path = tree.getPathTo(node);
+      assertEquals(sourceNode, path[0]);
+      assertEquals(node, path[path.length - 1]);
+      assertEquals(path[1], tree.getFirstHop(node));
+    }
+  }
+
+  private static boolean hasEdgeOfWeight(LinkStateGraph graph, int fromNode, int toNode,
+      int weight) {
+    for (int edge = graph.getFirstEdge(fromNode); edge < graph.getEndEdge(fromNode); edge++) {
+      if (graph.getEdgeTarget(edge) == toNode && graph.getEdgeWeight(edge) == weight) {
+        return true;
+      }
+    }
+    return false;
+  }
+}